@@ -0,0 +1,84 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.Bundle;
+
+/**
+ * <p>Clears the library's process-wide caches of activity-bound objects
+ * ({@link DialogPrewarmer} and {@link ThemedInflaterCache}) whenever they
+ * may have become stale or would otherwise keep a destroyed activity
+ * alive.</p>
+ *
+ * <p>Registered once per process, the first time one of the caches is
+ * filled.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class ActivityCacheCallbacks implements ComponentCallbacks2,
+                                              Application.ActivityLifecycleCallbacks
+{
+    private static boolean sIsRegistered;
+
+    private ActivityCacheCallbacks() {}
+
+    static void register(Application application)
+    {
+        if (sIsRegistered)
+            return;
+
+        ActivityCacheCallbacks callbacks = new ActivityCacheCallbacks();
+        application.registerComponentCallbacks(callbacks);
+        application.registerActivityLifecycleCallbacks(callbacks);
+        sIsRegistered = true;
+    }
+
+    @Override
+    public void onTrimMemory(int level)
+    {
+        DialogPrewarmer.discard();
+        ThemedInflaterCache.clear();
+    }
+
+    @Override
+    public void onLowMemory()
+    {
+        DialogPrewarmer.discard();
+        ThemedInflaterCache.clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig)
+    {
+        DialogPrewarmer.discard();
+        ThemedInflaterCache.clear();
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity)
+    {
+        DialogPrewarmer.discard(activity);
+        ThemedInflaterCache.clear(activity);
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {}
+
+    @Override
+    public void onActivityStarted(Activity activity) {}
+
+    @Override
+    public void onActivityResumed(Activity activity) {}
+
+    @Override
+    public void onActivityPaused(Activity activity) {}
+
+    @Override
+    public void onActivityStopped(Activity activity) {}
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {}
+}
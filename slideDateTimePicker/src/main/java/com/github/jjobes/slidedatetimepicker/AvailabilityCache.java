@@ -0,0 +1,248 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.util.LruCache;
+
+/**
+ * <p>Loads the unavailable days of each month from the client's
+ * {@link AvailabilityProvider} on a background thread, and keeps the
+ * most recently used months in memory.</p>
+ *
+ * <p>{@link #setCurrentMonth(int, int)} is called as the user scrolls.
+ * It loads the current month first, then the months on either side, and
+ * cancels the loads of any other month that is still pending, so that
+ * a quick scroll through a year does not leave a queue of requests the
+ * user no longer needs.</p>
+ *
+ * <p>Apart from the provider calls, everything here happens on the main
+ * thread.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class AvailabilityCache implements DayAvailability
+{
+    /**
+     * Informs the dialog when a month has loaded, so that it can move the
+     * selection off a day that turned out to be unavailable.
+     */
+    interface OnMonthLoadedListener
+    {
+        void onMonthLoaded(int year, int month);
+    }
+
+    private static final int MAX_CACHED_MONTHS = 24;
+    private static final int LOADER_THREADS = 2;
+
+    private static ExecutorService sExecutor;
+
+    private final AvailabilityProvider mProvider;
+    private final OnMonthLoadedListener mListener;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    // Unavailable days per month, keyed by year * 12 + month
+    private final LruCache<Integer, Integer> mMonths = new LruCache<Integer, Integer>(MAX_CACHED_MONTHS);
+    private final Map<Integer, Future<?>> mPendingLoads = new HashMap<Integer, Future<?>>();
+
+    // The month of the last lookup, so that looking up days in the same
+    // month does not box a key each time.
+    private int mLastMonthKey = Integer.MIN_VALUE;
+    private int mLastMonthMask;
+
+    AvailabilityCache(AvailabilityProvider provider, OnMonthLoadedListener listener)
+    {
+        mProvider = provider;
+        mListener = listener;
+    }
+
+    private static synchronized ExecutorService getExecutor()
+    {
+        if (sExecutor == null)
+        {
+            sExecutor = Executors.newFixedThreadPool(LOADER_THREADS, new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable r)
+                {
+                    Thread thread = new Thread(r, "SlideDateTimePicker availability");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return sExecutor;
+    }
+
+    private static int toMonthKey(int year, int month)
+    {
+        return year * 12 + month;
+    }
+
+    /**
+     * Load the given month and the months on either side of it, and cancel
+     * the loads of all other months.
+     *
+     * @param year
+     * @param month  0-11
+     */
+    void setCurrentMonth(int year, int month)
+    {
+        int currentKey = toMonthKey(year, month);
+
+        Iterator<Map.Entry<Integer, Future<?>>> iterator = mPendingLoads.entrySet().iterator();
+
+        while (iterator.hasNext())
+        {
+            Map.Entry<Integer, Future<?>> entry = iterator.next();
+
+            if (Math.abs(entry.getKey() - currentKey) > 1)
+            {
+                entry.getValue().cancel(true);
+                iterator.remove();
+            }
+        }
+
+        load(currentKey);
+        load(currentKey + 1);
+        load(currentKey - 1);
+    }
+
+    private void load(int monthKey)
+    {
+        if (mPendingLoads.containsKey(monthKey) || mMonths.get(monthKey) != null)
+            return;
+
+        MonthLoad load = new MonthLoad(monthKey);
+        load.mFuture = getExecutor().submit(load);
+        mPendingLoads.put(monthKey, load.mFuture);
+    }
+
+    /**
+     * @return <tt>true</tt> if the load is still the pending load of its
+     *         month. Once a load is cancelled, its month can be requested
+     *         again, and the late result of the old load must neither be
+     *         taken for the new one nor remove it.
+     */
+    private boolean isPending(MonthLoad load)
+    {
+        return mPendingLoads.get(load.mMonthKey) == load.mFuture;
+    }
+
+    private void onFailed(MonthLoad load)
+    {
+        // Requested again the next time the user scrolls here
+        if (isPending(load))
+            mPendingLoads.remove(load.mMonthKey);
+    }
+
+    private void onLoaded(MonthLoad load, int mask)
+    {
+        // Drop the result if the load was cancelled after it had finished
+        if (!isPending(load))
+            return;
+
+        int monthKey = load.mMonthKey;
+
+        mPendingLoads.remove(monthKey);
+        mMonths.put(monthKey, mask);
+
+        if (monthKey == mLastMonthKey)
+            mLastMonthKey = Integer.MIN_VALUE;
+
+        mListener.onMonthLoaded(monthKey / 12, monthKey % 12);
+    }
+
+    /**
+     * Cancel every pending load. Called when the dialog is destroyed.
+     */
+    void cancelAll()
+    {
+        for (Future<?> future : mPendingLoads.values())
+        {
+            future.cancel(true);
+        }
+
+        mPendingLoads.clear();
+    }
+
+    @Override
+    public boolean isUnavailable(int epochDay)
+    {
+        int civil = DateTimeState.civilFromDays(epochDay);
+        int monthKey = toMonthKey(DateTimeState.civilYear(civil), DateTimeState.civilMonth(civil) - 1);
+
+        if (monthKey != mLastMonthKey)
+        {
+            Integer mask = mMonths.get(monthKey);
+
+            // A month that has not loaded yet is treated as available, and
+            // is not remembered so that it is looked up again.
+            if (mask == null)
+                return false;
+
+            mLastMonthKey = monthKey;
+            mLastMonthMask = mask;
+        }
+
+        return (mLastMonthMask & 1 << (DateTimeState.civilDay(civil) - 1)) != 0;
+    }
+
+    /**
+     * Requests one month from the provider on the executor, and hands the
+     * result back to the main thread.
+     */
+    private final class MonthLoad implements Runnable
+    {
+        private final int mMonthKey;
+        // Set on the main thread as soon as the load is submitted, and only
+        // read there, after the result has been posted back
+        private Future<?> mFuture;
+
+        MonthLoad(int monthKey)
+        {
+            mMonthKey = monthKey;
+        }
+
+        @Override
+        public void run()
+        {
+            final int mask;
+
+            try
+            {
+                mask = mProvider.getUnavailableDays(mMonthKey / 12, mMonthKey % 12);
+            }
+            catch (Exception e)
+            {
+                mHandler.post(new Runnable() {
+
+                    @Override
+                    public void run()
+                    {
+                        onFailed(MonthLoad.this);
+                    }
+                });
+                return;
+            }
+
+            mHandler.post(new Runnable() {
+
+                @Override
+                public void run()
+                {
+                    onLoaded(MonthLoad.this, mask);
+                }
+            });
+        }
+    }
+}
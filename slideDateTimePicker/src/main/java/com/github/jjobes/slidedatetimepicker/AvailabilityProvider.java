@@ -0,0 +1,33 @@
+package com.github.jjobes.slidedatetimepicker;
+
+/**
+ * <p>Decides which days can be selected, a month at a time, for clients
+ * whose availability is only known at run time, such as fully booked
+ * days from a backend. Set it with
+ * {@link SlideDateTimePicker.Builder#setAvailabilityProvider(AvailabilityProvider)}.</p>
+ *
+ * <p>The month being shown and the months on either side of it are
+ * requested on a background thread as the user scrolls, and the results
+ * are cached. A day in a month that has not loaded yet can be selected;
+ * if it turns out to be unavailable once its month loads, the selection
+ * moves on to the next available day. A request for a month the user
+ * has scrolled away from is cancelled by interrupting its thread.</p>
+ *
+ * @author jjobes
+ *
+ */
+public interface AvailabilityProvider
+{
+    /**
+     * Called on a background thread. May block.
+     *
+     * @param year
+     * @param month  the month of the year, 0-11
+     * @return a bit mask of the days of the month that cannot be selected,
+     *         with bit 0 for the 1st of the month and bit 30 for the 31st
+     * @throws Exception  if the month could not be loaded, in which case
+     *                    it is requested again the next time the user
+     *                    scrolls to it
+     */
+    int getUnavailableDays(int year, int month) throws Exception;
+}
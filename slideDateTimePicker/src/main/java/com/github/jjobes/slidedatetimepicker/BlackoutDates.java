@@ -0,0 +1,226 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * <p>The days that cannot be selected, held as a sorted array of
+ * disjoint intervals of days since the epoch (1970-01-01). Each interval
+ * is packed into a single {@code long}, with its first day in the upper
+ * 32 bits and its last day in the lower 32 bits, so that the array sorts
+ * by first day and takes 8 bytes per range however many days it
+ * covers.</p>
+ *
+ * <p>Overlapping and adjacent ranges are merged when the index is built,
+ * so the day after an interval and the day before it are always
+ * available. Every lookup is a binary search.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class BlackoutDates
+{
+    static final BlackoutDates NONE = new BlackoutDates(new long[0]);
+
+    private static final int INITIAL_RANGE_CAPACITY = 8;
+
+    private final long[] mIntervals;
+
+    /**
+     * @param intervals  packed intervals, as returned by
+     *                   {@link #toIntervals(long[], int, TimeZone)}
+     */
+    BlackoutDates(long[] intervals)
+    {
+        mIntervals = intervals;
+    }
+
+    /**
+     * Append a range of instants to an array of {@code [start, end]}
+     * pairs, growing it as needed.
+     *
+     * @param ranges  the array to append to, or null
+     * @param count  the number of ranges already in the array
+     * @param startMillis  the first instant to black out
+     * @param endMillis  the last instant to black out
+     * @return the array holding the ranges, which may be a new one
+     */
+    static long[] appendRange(long[] ranges, int count, long startMillis, long endMillis)
+    {
+        if (endMillis < startMillis)
+        {
+            throw new IllegalArgumentException(
+                    "The end of a blackout range must not be before its start");
+        }
+
+        if (ranges == null)
+            ranges = new long[2 * INITIAL_RANGE_CAPACITY];
+        else if (2 * count + 2 > ranges.length)
+            ranges = Arrays.copyOf(ranges, 2 * ranges.length);
+
+        ranges[2 * count] = startMillis;
+        ranges[2 * count + 1] = endMillis;
+
+        return ranges;
+    }
+
+    /**
+     * Convert ranges of instants to the sorted, merged intervals of the
+     * days they touch in the given time zone.
+     *
+     * @param ranges  {@code [start, end]} pairs of milliseconds since the epoch
+     * @param count  the number of ranges in the array
+     * @param zone  the time zone that the pickers display
+     * @return the packed intervals, or null if there are none
+     */
+    static long[] toIntervals(long[] ranges, int count, TimeZone zone)
+    {
+        if (count == 0)
+            return null;
+
+        long[] intervals = new long[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            intervals[i] = pack(toEpochDay(ranges[2 * i], zone), toEpochDay(ranges[2 * i + 1], zone));
+        }
+
+        return normalize(intervals);
+    }
+
+    /**
+     * Sort the intervals and merge the ones that overlap or touch, in
+     * place.
+     *
+     * @return the merged intervals, trimmed to length
+     */
+    static long[] normalize(long[] intervals)
+    {
+        Arrays.sort(intervals);
+
+        int count = 0;
+
+        for (int i = 0; i < intervals.length; i++)
+        {
+            int start = start(intervals[i]);
+            int end = end(intervals[i]);
+
+            if (count > 0 && (long) start <= (long) end(intervals[count - 1]) + 1)
+            {
+                if (end > end(intervals[count - 1]))
+                    intervals[count - 1] = pack(start(intervals[count - 1]), end);
+            }
+            else
+            {
+                intervals[count++] = pack(start, end);
+            }
+        }
+
+        return count == intervals.length ? intervals : Arrays.copyOf(intervals, count);
+    }
+
+    static long pack(int startEpochDay, int endEpochDay)
+    {
+        return ((long) startEpochDay << 32) | (endEpochDay & 0xFFFFFFFFL);
+    }
+
+    static int start(long interval)
+    {
+        return (int) (interval >> 32);
+    }
+
+    static int end(long interval)
+    {
+        return (int) interval;
+    }
+
+    private static int toEpochDay(long millis, TimeZone zone)
+    {
+        return (int) DateTimeState.floorDiv(millis + zone.getOffset(millis), DateTimeState.MILLIS_PER_DAY);
+    }
+
+    /**
+     * @return the packed intervals, for the dialog's arguments
+     */
+    long[] getIntervals()
+    {
+        return mIntervals;
+    }
+
+    boolean isEmpty()
+    {
+        return mIntervals.length == 0;
+    }
+
+    boolean isBlackedOut(int epochDay)
+    {
+        return indexOf(epochDay) >= 0;
+    }
+
+    /**
+     * @return the given day if it is available, otherwise the first
+     *         available day after it
+     */
+    int nextAvailableDay(int epochDay)
+    {
+        int index = indexOf(epochDay);
+        return index < 0 ? epochDay : end(mIntervals[index]) + 1;
+    }
+
+    /**
+     * @return the given day if it is available, otherwise the last
+     *         available day before it
+     */
+    int previousAvailableDay(int epochDay)
+    {
+        int index = indexOf(epochDay);
+        return index < 0 ? epochDay : start(mIntervals[index]) - 1;
+    }
+
+    /**
+     * Find the available day nearest to the given one within the bounds,
+     * looking in the direction the user is scrolling first.
+     *
+     * @param epochDay  the day the user scrolled to
+     * @param direction  positive if the user is moving forward in time,
+     *                   negative if backward
+     * @param minEpochDay
+     * @param maxEpochDay
+     * @return the day to select, or the given day if every day between the
+     *         bounds is blacked out
+     */
+    int findAvailableDay(int epochDay, int direction, int minEpochDay, int maxEpochDay)
+    {
+        int index = indexOf(epochDay);
+
+        if (index < 0)
+            return epochDay;
+
+        long next = (long) end(mIntervals[index]) + 1;
+        long previous = (long) start(mIntervals[index]) - 1;
+        boolean isNextAllowed = next <= maxEpochDay;
+        boolean isPreviousAllowed = previous >= minEpochDay;
+
+        if (isNextAllowed && (direction >= 0 || !isPreviousAllowed))
+            return (int) next;
+        else if (isPreviousAllowed)
+            return (int) previous;
+        else
+            return epochDay;
+    }
+
+    /**
+     * @return the index of the interval that contains the day, or -1
+     */
+    private int indexOf(int epochDay)
+    {
+        // Find the last interval that starts on or before the day. The
+        // key sorts after every interval starting on that day.
+        int index = Arrays.binarySearch(mIntervals, pack(epochDay, -1));
+
+        if (index < 0)
+            index = -index - 2;
+
+        return index >= 0 && end(mIntervals[index]) >= epochDay ? index : -1;
+    }
+}
@@ -1,79 +1,308 @@
 package com.github.jjobes.slidedatetimepicker;
 
-import java.lang.reflect.Field;
+import java.text.DateFormatSymbols;
 
 import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.text.format.DateFormat;
 import android.util.AttributeSet;
-import android.util.Log;
-import android.widget.DatePicker;
-import android.widget.NumberPicker;
+import android.view.Gravity;
+import android.widget.LinearLayout;
 
 /**
- * A subclass of {@link android.widget.DatePicker} that uses
- * reflection to allow for customization of the default blue
- * dividers.
+ * <p>A spinner-style date picker made of three {@link WheelView}s for the
+ * month, day and year, ordered according to the device's date format.</p>
+ *
+ * <p>This replaces the platform {@code DatePicker}, which is built from
+ * three {@code NumberPicker}s (each with its own {@code EditText} and
+ * buttons) and can only have its dividers customized through reflection.
+ * It mirrors the parts of the {@code DatePicker} API that the library
+ * uses.</p>
  *
  * @author jjobes
  *
  */
-public class CustomDatePicker extends DatePicker
+public class CustomDatePicker extends LinearLayout
 {
-    private static final String TAG = "CustomDatePicker";
+    /**
+     * Informs the owner when the user changes the date.
+     */
+    public interface OnDateChangedListener
+    {
+        void onDateChanged(CustomDatePicker view, int year, int monthOfYear, int dayOfMonth);
+    }
+
+    static final int DEFAULT_START_YEAR = 1900;
+    static final int DEFAULT_END_YEAR = 2100;
+
+    private final WheelView mMonthWheel;
+    private final WheelView mDayWheel;
+    private final WheelView mYearWheel;
+
+    private OnDateChangedListener mOnDateChangedListener;
+
+    // The selected date and the bounds, in days since 1970-01-01
+    private int mEpochDay;
+    private int mMinEpochDay;
+    private int mMaxEpochDay;
+    private DateTimeConstraints mConstraints;
 
     public CustomDatePicker(Context context, AttributeSet attrs)
     {
         super(context, attrs);
 
-        Class<?> idClass = null;
-        Class<?> numberPickerClass = null;
-        Field selectionDividerField = null;
-        Field monthField = null;
-        Field dayField = null;
-        Field yearField = null;
-        NumberPicker monthNumberPicker = null;
-        NumberPicker dayNumberPicker = null;
-        NumberPicker yearNumberPicker = null;
+        PickerTrace.begin(PickerTrace.DATE_PICKER_INIT);
 
         try
         {
-            // Create an instance of the id class
-            idClass = Class.forName("com.android.internal.R$id");
-
-            // Get the fields that store the resource IDs for the month, day and year NumberPickers
-            monthField = idClass.getField("month");
-            dayField = idClass.getField("day");
-            yearField = idClass.getField("year");
-
-            // Use the resource IDs to get references to the month, day and year NumberPickers
-            monthNumberPicker = (NumberPicker) findViewById(monthField.getInt(null));
-            dayNumberPicker = (NumberPicker) findViewById(dayField.getInt(null));
-            yearNumberPicker = (NumberPicker) findViewById(yearField.getInt(null));
-
-            numberPickerClass = Class.forName("android.widget.NumberPicker");
-
-            // Set the value of the mSelectionDivider field in the month, day and year NumberPickers
-            // to refer to our custom drawables
-            selectionDividerField = numberPickerClass.getDeclaredField("mSelectionDivider");
-            selectionDividerField.setAccessible(true);
-            selectionDividerField.set(monthNumberPicker, getResources().getDrawable(R.drawable.selection_divider));
-            selectionDividerField.set(dayNumberPicker, getResources().getDrawable(R.drawable.selection_divider));
-            selectionDividerField.set(yearNumberPicker, getResources().getDrawable(R.drawable.selection_divider));
+            setOrientation(HORIZONTAL);
+            setGravity(Gravity.CENTER);
+
+            Drawable selectionDivider = getResources().getDrawable(R.drawable.selection_divider);
+
+            mMonthWheel = createWheel(context, selectionDivider);
+            mDayWheel = createWheel(context, selectionDivider);
+            mYearWheel = createWheel(context, selectionDivider);
+
+            String[] shortMonths = new DateFormatSymbols().getShortMonths();
+            String[] months = new String[12];
+            System.arraycopy(shortMonths, 0, months, 0, months.length);
+            mMonthWheel.setDisplayedValues(months);
+            mDayWheel.setFormatter(WheelView.TWO_DIGIT_FORMATTER);
+
+            // Add the wheels in the order the device's date format uses
+            for (char field : DateFormat.getDateFormatOrder(context))
+            {
+                switch (field)
+                {
+                case DateFormat.MONTH:
+                    addView(mMonthWheel);
+                    break;
+                case DateFormat.DATE:
+                    addView(mDayWheel);
+                    break;
+                case DateFormat.YEAR:
+                    addView(mYearWheel);
+                    break;
+                }
+            }
+
+            WheelView.OnValueChangeListener onValueChangeListener = new WheelView.OnValueChangeListener() {
+
+                @Override
+                public void onValueChange(WheelView wheel, int oldValue, int newValue)
+                {
+                    onWheelValueChange(wheel, oldValue, newValue);
+                }
+            };
+
+            mMonthWheel.setOnValueChangedListener(onValueChangeListener);
+            mDayWheel.setOnValueChangedListener(onValueChangeListener);
+            mYearWheel.setOnValueChangedListener(onValueChangeListener);
+
+            mMinEpochDay = DateTimeState.daysFromCivil(DEFAULT_START_YEAR, 1, 1);
+            mMaxEpochDay = DateTimeState.daysFromCivil(DEFAULT_END_YEAR, 12, 31);
+            mEpochDay = mMinEpochDay;
+
+            updateWheels();
         }
-        catch (ClassNotFoundException e)
+        finally
         {
-            Log.e(TAG, "ClassNotFoundException in CustomDatePicker", e);
+            PickerTrace.end();
         }
-        catch (NoSuchFieldException e)
+    }
+
+    private static WheelView createWheel(Context context, Drawable selectionDivider)
+    {
+        WheelView wheel = new WheelView(context);
+        wheel.setSelectionDivider(selectionDivider);
+        return wheel;
+    }
+
+    /**
+     * Set the initial date and the listener to inform of changes.
+     *
+     * @param year
+     * @param monthOfYear  0-11
+     * @param dayOfMonth
+     * @param onDateChangedListener
+     */
+    public void init(int year, int monthOfYear, int dayOfMonth,
+            OnDateChangedListener onDateChangedListener)
+    {
+        mOnDateChangedListener = onDateChangedListener;
+        updateDate(year, monthOfYear, dayOfMonth);
+    }
+
+    /**
+     * Set the displayed date, clamped to the minimum and maximum dates.
+     * Unlike the platform {@code DatePicker}, the listener is not notified.
+     *
+     * @param year
+     * @param monthOfYear  0-11
+     * @param dayOfMonth
+     */
+    public void updateDate(int year, int monthOfYear, int dayOfMonth)
+    {
+        setEpochDay(DateTimeState.daysFromCivil(year, monthOfYear + 1, dayOfMonth));
+    }
+
+    public int getYear()
+    {
+        return DateTimeState.civilYear(DateTimeState.civilFromDays(mEpochDay));
+    }
+
+    /**
+     * @return the selected month, 0-11
+     */
+    public int getMonth()
+    {
+        return DateTimeState.civilMonth(DateTimeState.civilFromDays(mEpochDay)) - 1;
+    }
+
+    public int getDayOfMonth()
+    {
+        return DateTimeState.civilDay(DateTimeState.civilFromDays(mEpochDay));
+    }
+
+    void setMinEpochDay(int minEpochDay)
+    {
+        mMinEpochDay = minEpochDay;
+
+        if (mMaxEpochDay < mMinEpochDay)
+            mMaxEpochDay = mMinEpochDay;
+
+        setEpochDay(mEpochDay);
+    }
+
+    void setMaxEpochDay(int maxEpochDay)
+    {
+        mMaxEpochDay = maxEpochDay;
+
+        if (mMinEpochDay > mMaxEpochDay)
+            mMinEpochDay = mMaxEpochDay;
+
+        setEpochDay(mEpochDay);
+    }
+
+    /**
+     * Set the constraints that decide which days cannot be selected.
+     * Scrolling onto one of them moves on to the nearest available day in
+     * the same direction. The displayed date is not changed.
+     */
+    void setDayConstraints(DateTimeConstraints constraints)
+    {
+        mConstraints = constraints;
+    }
+
+    void setEpochDay(int epochDay)
+    {
+        mEpochDay = Math.max(mMinEpochDay, Math.min(mMaxEpochDay, epochDay));
+        updateWheels();
+    }
+
+    int getEpochDay()
+    {
+        return mEpochDay;
+    }
+
+    /**
+     * Work out the new date from the wheel that changed. As with the
+     * platform {@code DatePicker}, wrapping the day or month wheel moves
+     * on to the next or previous month or year. A day that cannot be
+     * selected is skipped in the direction the user is scrolling.
+     */
+    private void onWheelValueChange(WheelView wheel, int oldValue, int newValue)
+    {
+        int civil = DateTimeState.civilFromDays(mEpochDay);
+        int year = DateTimeState.civilYear(civil);
+        int month = DateTimeState.civilMonth(civil);
+        int day = DateTimeState.civilDay(civil);
+        int epochDay;
+
+        if (wheel == mDayWheel)
+        {
+            int delta = newValue - oldValue;
+
+            if (oldValue == wheel.getMaxValue() && newValue == wheel.getMinValue())
+                delta = 1;
+            else if (oldValue == wheel.getMinValue() && newValue == wheel.getMaxValue())
+                delta = -1;
+
+            epochDay = mEpochDay + delta;
+        }
+        else
         {
-            Log.e(TAG, "NoSuchFieldException in CustomDatePicker", e);
+            if (wheel == mMonthWheel)
+            {
+                if (oldValue == 11 && newValue == 0)
+                    year++;
+                else if (oldValue == 0 && newValue == 11)
+                    year--;
+
+                month = newValue + 1;
+            }
+            else
+            {
+                year = newValue;
+            }
+
+            day = Math.min(day, DateTimeState.daysInMonth(year, month));
+            epochDay = DateTimeState.daysFromCivil(year, month, day);
         }
-        catch (IllegalAccessException e)
+
+        epochDay = Math.max(mMinEpochDay, Math.min(mMaxEpochDay, epochDay));
+        if (mConstraints != null)
         {
-            Log.e(TAG, "IllegalAccessException in CustomDatePicker", e);
+            epochDay = mConstraints.findAvailableDay(epochDay, epochDay - mEpochDay,
+                    mMinEpochDay, mMaxEpochDay);
         }
-        catch (IllegalArgumentException e)
+
+        if (epochDay == mEpochDay)
         {
-            Log.e(TAG, "IllegalArgumentException in CustomDatePicker", e);
+            // Every day that way is blacked out, so snap the wheel back
+            updateWheels();
+            return;
         }
+
+        setEpochDay(epochDay);
+
+        if (mOnDateChangedListener != null)
+        {
+            mOnDateChangedListener.onDateChanged(this, getYear(), getMonth(), getDayOfMonth());
+        }
+    }
+
+    /**
+     * Update the range and value of each wheel from the selected date and
+     * the bounds, as the platform {@code DatePicker} does.
+     */
+    private void updateWheels()
+    {
+        int civil = DateTimeState.civilFromDays(mEpochDay);
+        int year = DateTimeState.civilYear(civil);
+        int month = DateTimeState.civilMonth(civil);
+        int day = DateTimeState.civilDay(civil);
+
+        int minCivil = DateTimeState.civilFromDays(mMinEpochDay);
+        int maxCivil = DateTimeState.civilFromDays(mMaxEpochDay);
+        int minYear = DateTimeState.civilYear(minCivil);
+        int maxYear = DateTimeState.civilYear(maxCivil);
+
+        int minMonth = year == minYear ? DateTimeState.civilMonth(minCivil) : 1;
+        int maxMonth = year == maxYear ? DateTimeState.civilMonth(maxCivil) : 12;
+
+        int minDay = year == minYear && month == minMonth ? DateTimeState.civilDay(minCivil) : 1;
+        int maxDay = year == maxYear && month == maxMonth ?
+                DateTimeState.civilDay(maxCivil) :
+                DateTimeState.daysInMonth(year, month);
+
+        mYearWheel.setRange(minYear, maxYear, false);
+        mMonthWheel.setRange(minMonth - 1, maxMonth - 1, minMonth == 1 && maxMonth == 12);
+        mDayWheel.setRange(minDay, maxDay, minDay == 1 && maxDay == DateTimeState.daysInMonth(year, month));
+
+        mYearWheel.setValue(year);
+        mMonthWheel.setValue(month - 1);
+        mDayWheel.setValue(day);
     }
 }
@@ -1,79 +1,345 @@
 package com.github.jjobes.slidedatetimepicker;
 
-import java.lang.reflect.Field;
+import java.text.DateFormatSymbols;
 
 import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
-import android.util.Log;
-import android.widget.NumberPicker;
-import android.widget.TimePicker;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.widget.LinearLayout;
+import android.widget.TextView;
 
 /**
- * A subclass of {@link android.widget.TimePicker} that uses
- * reflection to allow for customization of the default blue
- * dividers.
+ * <p>A spinner-style time picker made of {@link WheelView}s for the hour,
+ * the minute and, in 12-hour mode, AM/PM.</p>
+ *
+ * <p>This replaces the platform {@code TimePicker}, which is built from
+ * {@code NumberPicker}s and can only have its dividers customized through
+ * reflection. It mirrors the parts of the {@code TimePicker} API that the
+ * library uses, and it also reports AM/PM changes, which the platform
+ * picker did not on 4.0.x (Issue 18982).</p>
  *
  * @author jjobes
  *
  */
-public class CustomTimePicker extends TimePicker
+public class CustomTimePicker extends LinearLayout
 {
-    private static final String TAG = "CustomTimePicker";
+    /**
+     * Informs the owner when the user changes the time.
+     */
+    public interface OnTimeChangedListener
+    {
+        void onTimeChanged(CustomTimePicker view, int hourOfDay, int minute);
+    }
+
+    private static final int TEXT_SIZE_SP = 18;
+
+    // Hour wheel labels in 12-hour mode, indexed by hourOfDay % 12
+    private static final String[] HOURS_12 = {
+        "12", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11"
+    };
+
+    // Minute wheel labels for each minute interval above 1, indexed by
+    // minute / interval and shared by every picker. Only touched on the
+    // main thread.
+    private static final String[][] sMinuteLabels = new String[61][];
+
+    private final WheelView mHourWheel;
+    private final WheelView mMinuteWheel;
+    private final WheelView mAmPmWheel;
+
+    private OnTimeChangedListener mOnTimeChangedListener;
+
+    private boolean mIs24HourView;
+    private int mHour;
+    private int mMinute;
+
+    // The range of times that can be selected, in minutes of the day
+    private int mMinMinuteOfDay = 0;
+    private int mMaxMinuteOfDay = DateTimeState.MINUTES_PER_DAY - 1;
+    // The minute wheel's value is mMinute / mMinuteInterval
+    private int mMinuteInterval = 1;
 
     public CustomTimePicker(Context context, AttributeSet attrs)
     {
         super(context, attrs);
 
-        Class<?> idClass = null;
-        Class<?> numberPickerClass = null;
-        Field selectionDividerField = null;
-        Field hourField = null;
-        Field minuteField = null;
-        Field amPmField = null;
-        NumberPicker hourNumberPicker = null;
-        NumberPicker minuteNumberPicker = null;
-        NumberPicker amPmNumberPicker = null;
+        PickerTrace.begin(PickerTrace.TIME_PICKER_INIT);
 
         try
         {
-            // Create an instance of the id class
-            idClass = Class.forName("com.android.internal.R$id");
-
-            // Get the fields that store the resource IDs for the hour, minute and amPm NumberPickers
-            hourField = idClass.getField("hour");
-            minuteField = idClass.getField("minute");
-            amPmField = idClass.getField("amPm");
-
-            // Use the resource IDs to get references to the hour, minute and amPm NumberPickers
-            hourNumberPicker = (NumberPicker) findViewById(hourField.getInt(null));
-            minuteNumberPicker = (NumberPicker) findViewById(minuteField.getInt(null));
-            amPmNumberPicker = (NumberPicker) findViewById(amPmField.getInt(null));
-
-            numberPickerClass = Class.forName("android.widget.NumberPicker");
-
-            // Set the value of the mSelectionDivider field in the hour, minute and amPm NumberPickers
-            // to refer to our custom drawables
-            selectionDividerField = numberPickerClass.getDeclaredField("mSelectionDivider");
-            selectionDividerField.setAccessible(true);
-            selectionDividerField.set(hourNumberPicker, getResources().getDrawable(R.drawable.selection_divider));
-            selectionDividerField.set(minuteNumberPicker, getResources().getDrawable(R.drawable.selection_divider));
-            selectionDividerField.set(amPmNumberPicker, getResources().getDrawable(R.drawable.selection_divider));
+            setOrientation(HORIZONTAL);
+            setGravity(Gravity.CENTER);
+
+            Drawable selectionDivider = getResources().getDrawable(R.drawable.selection_divider);
+
+            mHourWheel = new WheelView(context);
+            mHourWheel.setSelectionDivider(selectionDivider);
+
+            TextView separator = new TextView(context);
+            separator.setText(":");
+            separator.setTextSize(TypedValue.COMPLEX_UNIT_SP, TEXT_SIZE_SP);
+
+            mMinuteWheel = new WheelView(context);
+            mMinuteWheel.setSelectionDivider(selectionDivider);
+            mMinuteWheel.setFormatter(WheelView.TWO_DIGIT_FORMATTER);
+            mMinuteWheel.setRange(0, 59, true);
+
+            mAmPmWheel = new WheelView(context);
+            mAmPmWheel.setSelectionDivider(selectionDivider);
+            mAmPmWheel.setDisplayedValues(new DateFormatSymbols().getAmPmStrings());
+            mAmPmWheel.setRange(0, 1, false);
+
+            addView(mHourWheel);
+            addView(separator);
+            addView(mMinuteWheel);
+            addView(mAmPmWheel);
+
+            WheelView.OnValueChangeListener onValueChangeListener = new WheelView.OnValueChangeListener() {
+
+                @Override
+                public void onValueChange(WheelView wheel, int oldValue, int newValue)
+                {
+                    onWheelValueChange(wheel, oldValue, newValue);
+                }
+            };
+
+            mHourWheel.setOnValueChangedListener(onValueChangeListener);
+            mMinuteWheel.setOnValueChangedListener(onValueChangeListener);
+            mAmPmWheel.setOnValueChangedListener(onValueChangeListener);
+
+            updateWheels();
+        }
+        finally
+        {
+            PickerTrace.end();
+        }
+    }
+
+    public void setOnTimeChangedListener(OnTimeChangedListener onTimeChangedListener)
+    {
+        mOnTimeChangedListener = onTimeChangedListener;
+    }
+
+    public void setIs24HourView(boolean is24HourView)
+    {
+        if (mIs24HourView == is24HourView)
+            return;
+
+        mIs24HourView = is24HourView;
+        updateWheels();
+    }
+
+    public boolean is24HourView()
+    {
+        return mIs24HourView;
+    }
+
+    /**
+     * Set the hour, 0-23, clamped to the time bounds. Unlike the platform
+     * {@code TimePicker}, the listener is not notified.
+     */
+    public void setCurrentHour(int hourOfDay)
+    {
+        mHour = Math.max(0, Math.min(23, hourOfDay));
+        updateWheels();
+    }
+
+    /**
+     * Set the minute, 0-59, clamped to the time bounds. Unlike the platform
+     * {@code TimePicker}, the listener is not notified.
+     */
+    public void setCurrentMinute(int minute)
+    {
+        mMinute = Math.max(0, Math.min(59, minute));
+        updateWheels();
+    }
+
+    /**
+     * @return the selected hour, 0-23
+     */
+    public int getCurrentHour()
+    {
+        return mHour;
+    }
+
+    public int getCurrentMinute()
+    {
+        return mMinute;
+    }
+
+    /**
+     * Only offer the minutes that are a multiple of the given interval.
+     * The current minute is rounded down to one of them. The listener is
+     * not notified.
+     *
+     * @param minuteInterval  a divisor of 60
+     */
+    void setMinuteInterval(int minuteInterval)
+    {
+        checkMinuteInterval(minuteInterval);
+
+        if (mMinuteInterval == minuteInterval)
+            return;
+
+        mMinuteInterval = minuteInterval;
+        mMinuteWheel.setDisplayedValues(minuteInterval == 1 ? null : getMinuteLabels(minuteInterval));
+        updateWheels();
+    }
+
+    /**
+     * @throws IllegalArgumentException  if the interval does not divide an
+     *                                   hour evenly
+     */
+    static void checkMinuteInterval(int minuteInterval)
+    {
+        if (minuteInterval < 1 || 60 % minuteInterval != 0)
+        {
+            throw new IllegalArgumentException(
+                    "The minute interval must be a divisor of 60, not " + minuteInterval);
+        }
+    }
+
+    private static String[] getMinuteLabels(int minuteInterval)
+    {
+        String[] labels = sMinuteLabels[minuteInterval];
+
+        if (labels == null)
+        {
+            labels = new String[60 / minuteInterval];
+
+            for (int i = 0; i < labels.length; i++)
+            {
+                labels[i] = WheelView.TWO_DIGIT_FORMATTER.format(i * minuteInterval);
+            }
+
+            sMinuteLabels[minuteInterval] = labels;
+        }
+
+        return labels;
+    }
+
+    /**
+     * Limit the times that can be selected, and clamp the current time to
+     * them. The listener is not notified.
+     *
+     * @param minMinuteOfDay  the earliest time, in minutes from midnight
+     * @param maxMinuteOfDay  the latest time, in minutes from midnight
+     */
+    void setTimeBounds(int minMinuteOfDay, int maxMinuteOfDay)
+    {
+        mMinMinuteOfDay = Math.max(0, minMinuteOfDay);
+        mMaxMinuteOfDay = Math.max(mMinMinuteOfDay,
+                Math.min(DateTimeState.MINUTES_PER_DAY - 1, maxMinuteOfDay));
+
+        updateWheels();
+    }
+
+    private void onWheelValueChange(WheelView wheel, int oldValue, int newValue)
+    {
+        if (wheel == mMinuteWheel)
+        {
+            // The wheel only ever moves one value at a time, so a jump
+            // from one end to the other is it wrapping around the hour,
+            // which carries into the hour the way the date picker carries
+            // the day into the month.
+            int delta = newValue - oldValue;
+
+            if (delta > 1)
+                delta = -1;
+            else if (delta < -1)
+                delta = 1;
+
+            int minuteOfDay = mHour * 60 + mMinute + delta * mMinuteInterval;
+            minuteOfDay = (minuteOfDay + DateTimeState.MINUTES_PER_DAY) % DateTimeState.MINUTES_PER_DAY;
+
+            mHour = minuteOfDay / 60;
+            mMinute = minuteOfDay % 60;
         }
-        catch (ClassNotFoundException e)
+        else if (wheel == mAmPmWheel)
         {
-            Log.e(TAG, "ClassNotFoundException in CustomTimePicker", e);
+            mHour = mHour % 12 + newValue * 12;
         }
-        catch (NoSuchFieldException e)
+        else if (mIs24HourView)
         {
-            Log.e(TAG, "NoSuchFieldException in CustomTimePicker", e);
+            mHour = newValue;
         }
-        catch (IllegalAccessException e)
+        else
         {
-            Log.e(TAG, "IllegalAccessException in CustomTimePicker", e);
+            // As with the platform picker, scrolling the hour between
+            // 11 and 12 toggles AM/PM.
+            boolean isPm = mHour >= 12;
+
+            if ((oldValue == 11 && newValue == 0) || (oldValue == 0 && newValue == 11))
+                isPm = !isPm;
+
+            mHour = newValue + (isPm ? 12 : 0);
         }
-        catch (IllegalArgumentException e)
+
+        // The new hour can change the range of the other wheels, and the
+        // new time can be out of bounds after an AM/PM toggle.
+        updateWheels();
+
+        if (mOnTimeChangedListener != null)
         {
-            Log.e(TAG, "IllegalArgumentException in CustomTimePicker", e);
+            mOnTimeChangedListener.onTimeChanged(this, mHour, mMinute);
         }
     }
+
+    /**
+     * Clamp the time to the bounds and round it down to the minute
+     * interval, then update the range and value of each wheel from it. The
+     * hour wheel only wraps when every hour can be selected, and the
+     * minute wheel when every minute of the selected hour can.
+     */
+    private void updateWheels()
+    {
+        // The bounds, moved inwards onto the minute interval
+        int minMinuteOfDay = (mMinMinuteOfDay + mMinuteInterval - 1) / mMinuteInterval * mMinuteInterval;
+        int maxMinuteOfDay = Math.max(minMinuteOfDay, mMaxMinuteOfDay / mMinuteInterval * mMinuteInterval);
+
+        int minuteOfDay = mHour * 60 + mMinute;
+        minuteOfDay -= minuteOfDay % mMinuteInterval;
+        minuteOfDay = Math.max(minMinuteOfDay, Math.min(maxMinuteOfDay, minuteOfDay));
+        mHour = minuteOfDay / 60;
+        mMinute = minuteOfDay % 60;
+
+        int minHour = minMinuteOfDay / 60;
+        int maxHour = maxMinuteOfDay / 60;
+
+        if (mIs24HourView)
+        {
+            mHourWheel.setDisplayedValues(null);
+            mHourWheel.setFormatter(WheelView.TWO_DIGIT_FORMATTER);
+            mHourWheel.setRange(minHour, maxHour, minHour == 0 && maxHour == 23);
+            mHourWheel.setValue(mHour);
+            mAmPmWheel.setVisibility(GONE);
+        }
+        else
+        {
+            // The hour wheel only shows the hours of the selected half of
+            // the day, and scrolling it between 11 and 12 toggles AM/PM,
+            // so it can only wrap when both halves are entirely allowed.
+            int halfOfDay = mHour / 12;
+            int minHalfOfDay = minHour / 12;
+            int maxHalfOfDay = maxHour / 12;
+            int minHourOfHalf = halfOfDay == minHalfOfDay ? minHour % 12 : 0;
+            int maxHourOfHalf = halfOfDay == maxHalfOfDay ? maxHour % 12 : 11;
+
+            mHourWheel.setDisplayedValues(HOURS_12);
+            mHourWheel.setRange(minHourOfHalf, maxHourOfHalf, minHour == 0 && maxHour == 23);
+            mHourWheel.setValue(mHour % 12);
+            mAmPmWheel.setRange(minHalfOfDay, maxHalfOfDay, false);
+            mAmPmWheel.setValue(halfOfDay);
+            mAmPmWheel.setVisibility(VISIBLE);
+        }
+
+        int minMinute = mHour == minHour ? minMinuteOfDay % 60 : 0;
+        int maxMinute = mHour == maxHour ? maxMinuteOfDay % 60 : 60 - mMinuteInterval;
+
+        mMinuteWheel.setRange(minMinute / mMinuteInterval, maxMinute / mMinuteInterval,
+                minMinute == 0 && maxMinute == 60 - mMinuteInterval);
+        mMinuteWheel.setValue(mMinute / mMinuteInterval);
+    }
 }
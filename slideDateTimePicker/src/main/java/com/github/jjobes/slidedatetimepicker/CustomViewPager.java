@@ -4,25 +4,40 @@ import android.content.Context;
 import android.support.v4.view.ViewPager;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
-import android.widget.DatePicker;
-import android.widget.TimePicker;
+import android.view.ViewParent;
 
 /**
  * A custom {@link android.support.v4.view.ViewPager} implementation that corrects
  * the height of the ViewPager and also dispatches touch events to either the ViewPager
  * or the date or time picker depending on the direction of the swipe.
  *
+ * Which of the two each touch event goes to is decided by a
+ * {@link GestureArbiter}.
+ *
  * @author jjobes
  *
  */
 public class CustomViewPager extends ViewPager
 {
-    private DatePicker mDatePicker;
-    private TimePicker mTimePicker;
-    private float x1, y1, x2, y2;
-    private float mTouchSlop;
+    private CustomDatePicker mDatePicker;
+    private CustomTimePicker mTimePicker;
+    private GestureArbiter mGestureArbiter;
+    private float mDownX;
+    private float mDownY;
+    private VelocityTracker mVelocityTracker;
+
+    // The height of the tallest page, measured for mPageHeightWidthSpec.
+    // Only measured again after a layout request from this view or one
+    // of its descendants (for instance a page's picker being built or
+    // released, or a wheel whose widest label changed). Requests from
+    // elsewhere in the dialog, such as the tab text changing, don't
+    // touch it.
+    private int mPageHeight;
+    private int mPageHeightWidthSpec;
+    private boolean mIsLayoutDirty = true;
 
     public CustomViewPager(Context context)
     {
@@ -40,7 +55,10 @@ public class CustomViewPager extends ViewPager
 
     private void init(Context context)
     {
-        mTouchSlop = ViewConfiguration.get(context).getScaledPagingTouchSlop();
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        mGestureArbiter = new GestureArbiter(
+                configuration.getScaledTouchSlop(),
+                configuration.getScaledMinimumFlingVelocity());
     }
 
     /**
@@ -50,27 +68,54 @@ public class CustomViewPager extends ViewPager
      * have the same height as its immediate child.
      *
      * Thanks to alexrainman for the bugfix!
+     *
+     * The height is cached per width spec, so a steady-state layout
+     * neither measures the pages a second time nor looks up the pickers.
      */
     @Override
     public void onMeasure(int widthMeasureSpec, int heightMeasureSpec)
     {
-        int height = 0;
-
-        for (int i = 0; i < getChildCount(); i++)
+        if (mIsLayoutDirty || widthMeasureSpec != mPageHeightWidthSpec)
         {
-            View child = getChildAt(i);
-            child.measure(widthMeasureSpec, MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
-            int h = child.getMeasuredHeight();
-            if (h > height)
-                height = h;
+            // Cleared before super.onMeasure() so that pages it adds
+            // mark the cache dirty again.
+            mIsLayoutDirty = false;
+
+            int height = 0;
+
+            for (int i = 0; i < getChildCount(); i++)
+            {
+                View child = getChildAt(i);
+                child.measure(widthMeasureSpec, MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+                int h = child.getMeasuredHeight();
+                if (h > height)
+                    height = h;
+            }
+
+            mPageHeight = height;
+            mPageHeightWidthSpec = widthMeasureSpec;
+
+            // The pickers are only added or removed along with a layout
+            // request, so this is the only time they can have changed.
+            mDatePicker = (CustomDatePicker) findViewById(R.id.datePicker);
+            mTimePicker = (CustomTimePicker) findViewById(R.id.timePicker);
         }
 
-        heightMeasureSpec = MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY);
+        heightMeasureSpec = MeasureSpec.makeMeasureSpec(mPageHeight, MeasureSpec.EXACTLY);
 
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    /**
+     * Called both for this view's own layout requests and for every
+     * request made by one of its descendants.
+     */
+    @Override
+    public void requestLayout()
+    {
+        mIsLayoutDirty = true;
 
-        mDatePicker = (DatePicker) findViewById(R.id.datePicker);
-        mTimePicker = (TimePicker) findViewById(R.id.timePicker);
+        super.requestLayout();
     }
 
     /**
@@ -84,76 +129,94 @@ public class CustomViewPager extends ViewPager
     @Override
     public boolean dispatchTouchEvent(MotionEvent event)
     {
-        switch (event.getAction())
-        {
-            case MotionEvent.ACTION_DOWN:
-                x1 = event.getX();
-                y1 = event.getY();
+        if (mVelocityTracker == null)
+            mVelocityTracker = VelocityTracker.obtain();
 
-                break;
+        mVelocityTracker.addMovement(event);
 
-           case MotionEvent.ACTION_MOVE:
-               x2 = event.getX();
-               y2 = event.getY();
+        int action = event.getActionMasked();
 
-               if (isScrollingHorizontal(x1, y1, x2, y2))
-               {
-                   // When the user is scrolling the ViewPager horizontally,
-                   // block the pickers from scrolling vertically.
-                   return super.dispatchTouchEvent(event);
-               }
+        if (action == MotionEvent.ACTION_DOWN)
+        {
+            mDownX = event.getX();
+            mDownY = event.getY();
+        }
 
-               break;
-         }
+        float deltaX = event.getX() - mDownX;
+        float deltaY = event.getY() - mDownY;
+        float velocityX = 0;
+        float velocityY = 0;
 
-         // As long as the ViewPager isn't scrolling horizontally,
-         // dispatch the event to the DatePicker or TimePicker,
-         // depending on which page the ViewPager is currently on.
+        if (action == MotionEvent.ACTION_MOVE && mGestureArbiter.needsVelocity(deltaX, deltaY))
+        {
+            mVelocityTracker.computeCurrentVelocity(1000);
+            velocityX = mVelocityTracker.getXVelocity();
+            velocityY = mVelocityTracker.getYVelocity();
+        }
 
-         switch (getCurrentItem())
-         {
-         case 0:
+        boolean isPagerSettling = action == MotionEvent.ACTION_DOWN &&
+                getScrollX() != getCurrentItem() * getWidth();
 
-             if (mDatePicker != null)
-                 mDatePicker.dispatchTouchEvent(event);
+        int routing = mGestureArbiter.route(action, deltaX, deltaY, velocityX, velocityY, isPagerSettling);
 
-             break;
+        if ((routing & (GestureArbiter.CANCEL_PAGER | GestureArbiter.CANCEL_PICKER)) != 0)
+        {
+            MotionEvent cancel = MotionEvent.obtain(event);
+            cancel.setAction(MotionEvent.ACTION_CANCEL);
 
-         case 1:
+            if ((routing & GestureArbiter.CANCEL_PAGER) != 0)
+                super.onTouchEvent(cancel);
+            if ((routing & GestureArbiter.CANCEL_PICKER) != 0)
+                dispatchToPicker(cancel);
 
-             if (mTimePicker != null)
-                 mTimePicker.dispatchTouchEvent(event);
+            cancel.recycle();
+        }
 
-             break;
-         }
+        if ((routing & GestureArbiter.DISPATCH_PAGER) != 0)
+            super.onTouchEvent(event);
+        if ((routing & GestureArbiter.DISPATCH_PICKER) != 0)
+            dispatchToPicker(event);
 
-         // need this for the ViewPager to scroll horizontally at all
-         return super.onTouchEvent(event);
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)
+        {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+
+        return true;
     }
 
     /**
-     * Determine whether the distance between the user's ACTION_DOWN
-     * event (x1, y1) and the current ACTION_MOVE event (x2, y2) should
-     * be interpreted as a horizontal swipe.
-     *
-     * @param x1
-     * @param y1
-     * @param x2
-     * @param y2
-     * @return
+     * Dispatch the event to the picker on the current page, translated
+     * into the picker's coordinates.
      */
-    private boolean isScrollingHorizontal(float x1, float y1, float x2, float y2)
+    private void dispatchToPicker(MotionEvent event)
     {
-        float deltaX = x2 - x1;
-        float deltaY = y2 - y1;
+        View picker = getCurrentItem() == 0 ? mDatePicker : mTimePicker;
+
+        if (picker == null)
+            return;
 
-        if (Math.abs(deltaX) > mTouchSlop &&
-            Math.abs(deltaX) > Math.abs(deltaY))
+        float offsetX = 0;
+        float offsetY = 0;
+
+        for (View view = picker; view != this; )
         {
+            ViewParent parent = view.getParent();
+
+            // The picker was released and the references are not
+            // refreshed until the next layout.
+            if (!(parent instanceof View))
+                return;
 
-            return true;
+            View parentView = (View) parent;
+            offsetX += view.getLeft() - parentView.getScrollX();
+            offsetY += view.getTop() - parentView.getScrollY();
+            view = parentView;
         }
 
-        return false;
+        event.offsetLocation(-offsetX, -offsetY);
+        picker.dispatchTouchEvent(event);
+        event.offsetLocation(offsetX, offsetY);
     }
 }
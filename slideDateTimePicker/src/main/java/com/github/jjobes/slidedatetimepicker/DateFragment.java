@@ -1,16 +1,11 @@
 package com.github.jjobes.slidedatetimepicker;
 
-import java.util.Date;
-
-import android.content.Context;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
-import android.view.ContextThemeWrapper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.DatePicker;
-import android.widget.DatePicker.OnDateChangedListener;
+import android.widget.FrameLayout;
 
 /**
  * The fragment for the first page in the ViewPager that holds
@@ -32,7 +27,9 @@ public class DateFragment extends Fragment
     }
 
     private DateChangedListener mCallback;
+    private FrameLayout mContainer;
     private CustomDatePicker mDatePicker;
+    private int mTheme;
 
     public DateFragment()
     {
@@ -60,88 +57,159 @@ public class DateFragment extends Fragment
     }
 
     /**
-     * Return an instance of DateFragment with its bundle filled with the
-     * constructor arguments. The values in the bundle are retrieved in
-     * {@link #onCreateView()} below to properly initialize the DatePicker.
+     * Return an instance of DateFragment. It has no arguments of its own:
+     * the theme is read from the {@link PickerConfig} of
+     * {@link SlideDateTimeDialogFragment} in {@link #onCreateView()} below,
+     * and the date itself each time the DatePicker is built, along with
+     * the minimum and maximum dates.
      *
-     * @param theme
-     * @param year
-     * @param month
-     * @param day
-     * @param minDate
-     * @param maxDate
      * @return an instance of DateFragment
      */
-    public static final DateFragment newInstance(int theme, int year, int month,
-            int day, Date minDate, Date maxDate)
+    public static final DateFragment newInstance()
     {
-        DateFragment f = new DateFragment();
-
-        Bundle b = new Bundle();
-        b.putInt("theme", theme);
-        b.putInt("year", year);
-        b.putInt("month", month);
-        b.putInt("day", day);
-        b.putSerializable("minDate", minDate);
-        b.putSerializable("maxDate", maxDate);
-        f.setArguments(b);
-
-        return f;
+        return new DateFragment();
     }
 
     /**
-     * Create and return the user interface view for this fragment.
+     * Create and return the user interface view for this fragment. This
+     * is only an empty container. The DatePicker is built into it right
+     * away if this is the page being shown, and otherwise when
+     * {@link SlideDateTimeDialogFragment} asks for it.
      */
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
             Bundle savedInstanceState)
     {
-        int theme = getArguments().getInt("theme");
-        int initialYear = getArguments().getInt("year");
-        int initialMonth = getArguments().getInt("month");
-        int initialDay = getArguments().getInt("day");
-        Date minDate = (Date) getArguments().getSerializable("minDate");
-        Date maxDate = (Date) getArguments().getSerializable("maxDate");
-
-        // Unless we inflate using a cloned inflater with a Holo theme,
-        // on Lollipop devices the DatePicker will be the new-style
-        // DatePicker, which is not what we want. So we will
-        // clone the inflater that we're given but with our specified
-        // theme, then inflate the layout with this new inflater.
-
-        Context contextThemeWrapper = new ContextThemeWrapper(
-                getActivity(),
-                theme == SlideDateTimePicker.HOLO_DARK ?
-                         android.R.style.Theme_Holo :
-                         android.R.style.Theme_Holo_Light);
-
-        LayoutInflater localInflater = inflater.cloneInContext(contextThemeWrapper);
-
-        View v = localInflater.inflate(R.layout.fragment_date, container, false);
-
-        mDatePicker = (CustomDatePicker) v.findViewById(R.id.datePicker);
-        // block keyboard popping up on touch
-        mDatePicker.setDescendantFocusability(DatePicker.FOCUS_BLOCK_DESCENDANTS);
-        mDatePicker.init(
-            initialYear,
-            initialMonth,
-            initialDay,
-            new OnDateChangedListener() {
-
-                @Override
-                public void onDateChanged(DatePicker view, int year,
-                        int monthOfYear, int dayOfMonth)
+        mTheme = getDialogFragment().getConfig().getTheme();
+
+        mContainer = new FrameLayout(getActivity());
+
+        if (getDialogFragment().isCurrentPage(SlideDateTimeDialogFragment.DATE_PAGE))
+            buildPicker();
+
+        return mContainer;
+    }
+
+    @Override
+    public void onDestroyView()
+    {
+        mContainer = null;
+        mDatePicker = null;
+
+        super.onDestroyView();
+    }
+
+    /**
+     * Build the DatePicker into this page, initialized with the date
+     * currently selected in the dialog, unless it has already been built.
+     *
+     * @return <tt>true</tt> if the page now holds a DatePicker, or
+     *         <tt>false</tt> if this fragment has no view yet
+     */
+    boolean buildPicker()
+    {
+        if (mContainer == null)
+            return false;
+
+        if (mDatePicker != null)
+            return true;
+
+        PickerTrace.begin(PickerTrace.DATE_PAGE_BUILD);
+
+        try
+        {
+            PickerMetrics metrics = getDialogFragment().getMetrics();
+            long startNanos = metrics != null ? System.nanoTime() : 0;
+
+            // Use the layout inflated by SlideDateTimePicker.prewarm() if
+            // there is one.
+            View v = DialogPrewarmer.takeDateView(getActivity(), mTheme);
+            boolean wasPrewarmed = v != null;
+
+            if (v == null)
+            {
+                // Reuse the Holo themed inflater cached for this activity
+                // rather than resolving the theme again on every open.
+                LayoutInflater localInflater = ThemedInflaterCache.get(getActivity(), mTheme);
+
+                v = localInflater.inflate(R.layout.fragment_date, mContainer, false);
+
+                if (metrics != null)
                 {
-                    mCallback.onDateChanged(year, monthOfYear, dayOfMonth);
+                    metrics.onPickerInflated(PickerMetrics.PAGE_DATE, System.nanoTime() - startNanos);
                 }
-            });
+            }
+
+            DateTimeState state = getDialogFragment().getState();
+            DateTimeConstraints constraints = getDialogFragment().getConstraints();
+
+            mDatePicker = (CustomDatePicker) v.findViewById(R.id.datePicker);
+            mDatePicker.init(
+                state.getYear(),
+                state.getMonth(),
+                state.getDayOfMonth(),
+                new CustomDatePicker.OnDateChangedListener() {
+
+                    @Override
+                    public void onDateChanged(CustomDatePicker view, int year,
+                            int monthOfYear, int dayOfMonth)
+                    {
+                        mCallback.onDateChanged(year, monthOfYear, dayOfMonth);
+                    }
+                });
+
+            // The bounds are in the dialog's time zone, which the
+            // constraints have already applied.
+            if (constraints.hasMinDate())
+                mDatePicker.setMinEpochDay(constraints.getMinEpochDay());
+
+            if (constraints.hasMaxDate())
+                mDatePicker.setMaxEpochDay(constraints.getMaxEpochDay());
+
+            mDatePicker.setDayConstraints(constraints);
+
+            mContainer.addView(v, new FrameLayout.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+
+            if (metrics != null)
+            {
+                metrics.onPageBuilt(PickerMetrics.PAGE_DATE, System.nanoTime() - startNanos,
+                        wasPrewarmed);
+            }
+
+            return true;
+        }
+        finally
+        {
+            PickerTrace.end();
+        }
+    }
 
-        if (minDate != null)
-            mDatePicker.setMinDate(minDate.getTime());
+    /**
+     * Set the DatePicker to the date selected in the dialog, after
+     * {@link SlideDateTimeDialogFragment} had to clamp it.
+     */
+    void updatePicker()
+    {
+        if (mDatePicker != null)
+            mDatePicker.setEpochDay(getDialogFragment().getState().getEpochDay());
+    }
 
-        if (maxDate != null)
-            mDatePicker.setMaxDate(maxDate.getTime());
+    /**
+     * Drop the DatePicker's views while this page is off screen. They are
+     * built again from the dialog's state by {@link #buildPicker()}.
+     */
+    void releasePicker()
+    {
+        if (mContainer != null)
+            mContainer.removeAllViews();
+
+        mDatePicker = null;
+    }
 
-        return v;
+    private SlideDateTimeDialogFragment getDialogFragment()
+    {
+        return (SlideDateTimeDialogFragment) getTargetFragment();
     }
 }
@@ -0,0 +1,243 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * <p>The minimum and maximum date and time that the client allows,
+ * held as local minutes since the epoch (1970-01-01T00:00) so that the
+ * date and the time can be checked together with a single comparison.</p>
+ *
+ * <p>The dialog clamps its {@link DateTimeState} with this after every
+ * change from either picker. The date picker is limited to the days
+ * between the bounds, and the time picker to the minutes that are
+ * allowed on the selected day: from the minimum time on the minimum
+ * day, up to the maximum time on the maximum day, and the whole day in
+ * between. Days that the client has blacked out, or that its
+ * {@link AvailabilityProvider} reported as unavailable, are skipped.
+ * Nothing is allocated after construction.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class DateTimeConstraints
+{
+    private final long mMinMillis;
+    private final long mMaxMillis;
+    private final long mMinLocalMinute;
+    private final long mMaxLocalMinute;
+    private final BlackoutDates mBlackoutDates;
+    private DayAvailability mDayAvailability;
+
+    /**
+     * @param minDate  the earliest date and time that can be selected, or null
+     * @param maxDate  the latest date and time that can be selected, or null
+     * @param zone  the time zone that the pickers display
+     * @param minuteInterval  the interval between the minutes that can be
+     *                        selected, a divisor of 60
+     * @param blackoutDates  the days that cannot be selected
+     */
+    DateTimeConstraints(Date minDate, Date maxDate, TimeZone zone, int minuteInterval,
+            BlackoutDates blackoutDates)
+    {
+        mBlackoutDates = blackoutDates;
+
+        mMinMillis = minDate != null ? minDate.getTime() : Long.MIN_VALUE;
+        mMaxMillis = maxDate != null ? Math.max(mMinMillis, maxDate.getTime()) : Long.MAX_VALUE;
+
+        // Without a bound, the pickers' own range of years applies. The
+        // bounds are moved inwards onto the minute interval, which divides
+        // a day evenly, so that clamping lands on a minute the time picker
+        // can show.
+        mMinLocalMinute = minDate != null ?
+                -DateTimeState.floorDiv(-toLocalMinute(mMinMillis, zone), minuteInterval) * minuteInterval :
+                Long.MIN_VALUE;
+        mMaxLocalMinute = maxDate != null ?
+                Math.max(mMinLocalMinute,
+                        DateTimeState.floorDiv(toLocalMinute(mMaxMillis, zone), minuteInterval) * minuteInterval) :
+                Long.MAX_VALUE;
+    }
+
+    private static long toLocalMinute(long millis, TimeZone zone)
+    {
+        return DateTimeState.floorDiv(millis + zone.getOffset(millis), DateTimeState.MILLIS_PER_MINUTE);
+    }
+
+    boolean hasMinDate()
+    {
+        return mMinLocalMinute != Long.MIN_VALUE;
+    }
+
+    boolean hasMaxDate()
+    {
+        return mMaxLocalMinute != Long.MAX_VALUE;
+    }
+
+    /**
+     * @return the first day that can be selected, only meaningful if
+     *         {@link #hasMinDate()}
+     */
+    int getMinEpochDay()
+    {
+        return (int) DateTimeState.floorDiv(mMinLocalMinute, DateTimeState.MINUTES_PER_DAY);
+    }
+
+    /**
+     * @return the last day that can be selected, only meaningful if
+     *         {@link #hasMaxDate()}
+     */
+    int getMaxEpochDay()
+    {
+        return (int) DateTimeState.floorDiv(mMaxLocalMinute, DateTimeState.MINUTES_PER_DAY);
+    }
+
+    /**
+     * @param dayAvailability  the days loaded from the client's
+     *                         {@link AvailabilityProvider}, or null
+     */
+    void setDayAvailability(DayAvailability dayAvailability)
+    {
+        mDayAvailability = dayAvailability;
+    }
+
+    /**
+     * Find the selectable day nearest to the given one within the bounds,
+     * looking in the direction the user is scrolling first. Blacked out
+     * days are skipped a whole range at a time, and unavailable days one
+     * at a time. The search stops at the first month that has not loaded,
+     * since its days count as available.
+     *
+     * @param epochDay  the day the user scrolled to
+     * @param direction  positive if the user is moving forward in time,
+     *                   negative if backward
+     * @param minEpochDay
+     * @param maxEpochDay
+     * @return the day to select, or the given day if no day between the
+     *         bounds can be selected
+     */
+    int findAvailableDay(int epochDay, int direction, int minEpochDay, int maxEpochDay)
+    {
+        int day = mBlackoutDates.findAvailableDay(epochDay, direction, minEpochDay, maxEpochDay);
+
+        if (mDayAvailability == null || !mDayAvailability.isUnavailable(day))
+            return day;
+
+        int step = direction >= 0 ? 1 : -1;
+        long found = searchAvailableDay(day, step, minEpochDay, maxEpochDay);
+
+        if (found == Long.MIN_VALUE)
+            found = searchAvailableDay(day, -step, minEpochDay, maxEpochDay);
+
+        return found != Long.MIN_VALUE ? (int) found : epochDay;
+    }
+
+    /**
+     * @return the first selectable day after (or before, if {@code step}
+     *         is negative) the given day, or {@code Long.MIN_VALUE} if
+     *         there is none within the bounds
+     */
+    private long searchAvailableDay(int epochDay, int step, int minEpochDay, int maxEpochDay)
+    {
+        long day = epochDay;
+
+        while (true)
+        {
+            day += step;
+
+            if (day < minEpochDay || day > maxEpochDay)
+                return Long.MIN_VALUE;
+
+            day = step > 0 ?
+                    mBlackoutDates.nextAvailableDay((int) day) :
+                    mBlackoutDates.previousAvailableDay((int) day);
+
+            if (day < minEpochDay || day > maxEpochDay)
+                return Long.MIN_VALUE;
+
+            if (!mDayAvailability.isUnavailable((int) day))
+                return day;
+        }
+    }
+
+    /**
+     * @return the earliest minute of the day that can be selected on the
+     *         given day
+     */
+    int getMinMinuteOfDay(int epochDay)
+    {
+        if (hasMinDate() && epochDay <= getMinEpochDay())
+            return (int) (mMinLocalMinute - (long) getMinEpochDay() * DateTimeState.MINUTES_PER_DAY);
+
+        return 0;
+    }
+
+    /**
+     * @return the latest minute of the day that can be selected on the
+     *         given day
+     */
+    int getMaxMinuteOfDay(int epochDay)
+    {
+        if (hasMaxDate() && epochDay >= getMaxEpochDay())
+            return (int) (mMaxLocalMinute - (long) getMaxEpochDay() * DateTimeState.MINUTES_PER_DAY);
+
+        return DateTimeState.MINUTES_PER_DAY - 1;
+    }
+
+    /**
+     * Move the selection within the bounds if it is outside them, and off
+     * a blacked out or unavailable day onto the nearest available one,
+     * preferring the one after it.
+     *
+     * @return <tt>true</tt> if the selection was changed
+     */
+    boolean clamp(DateTimeState state)
+    {
+        boolean isChanged = clampToBounds(state);
+
+        int epochDay = state.getEpochDay();
+        int availableDay = findAvailableDay(epochDay, 1,
+                hasMinDate() ? getMinEpochDay() : Integer.MIN_VALUE,
+                hasMaxDate() ? getMaxEpochDay() : Integer.MAX_VALUE);
+
+        if (availableDay != epochDay)
+        {
+            state.setEpochDay(availableDay);
+
+            // The new day can be the first or last day, on which only
+            // part of the day is allowed.
+            clampToBounds(state);
+            isChanged = true;
+        }
+
+        return isChanged;
+    }
+
+    private boolean clampToBounds(DateTimeState state)
+    {
+        long localMinute = (long) state.getEpochDay() * DateTimeState.MINUTES_PER_DAY
+                + state.getMinuteOfDay();
+        long clamped = Math.max(mMinLocalMinute, Math.min(mMaxLocalMinute, localMinute));
+
+        if (clamped == localMinute)
+            return false;
+
+        int epochDay = (int) DateTimeState.floorDiv(clamped, DateTimeState.MINUTES_PER_DAY);
+
+        state.setEpochDay(epochDay);
+        state.setMinuteOfDay((int) (clamped - (long) epochDay * DateTimeState.MINUTES_PER_DAY));
+
+        return true;
+    }
+
+    /**
+     * Clamp an instant to the bounds. The pickers only work in whole
+     * minutes, so the selection can still be up to a minute before the
+     * minimum (or after the maximum) date if that falls within a minute.
+     * This is the final check before the instant is returned to the
+     * client.
+     */
+    long clampMillis(long millis)
+    {
+        return Math.max(mMinMillis, Math.min(mMaxMillis, millis));
+    }
+}
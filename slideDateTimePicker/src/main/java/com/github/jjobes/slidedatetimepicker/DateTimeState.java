@@ -0,0 +1,288 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.TimeZone;
+
+/**
+ * <p>Holds the date and time the user has currently selected as a pair
+ * of primitives: the local day since the epoch (1970-01-01) and the
+ * minute of that day.</p>
+ *
+ * <p>Unlike {@code java.util.Calendar}, setting a field does not force
+ * the other fields to be recomputed, and nothing is allocated as the
+ * user spins the pickers. Conversion to and from epoch milliseconds
+ * only happens at the public API edge, when the dialog is created and
+ * when the user presses OK.</p>
+ *
+ * <p>The civil date arithmetic is the proleptic Gregorian algorithm
+ * described by Howard Hinnant in <i>chrono-Compatible Low-Level Date
+ * Algorithms</i>.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class DateTimeState
+{
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final long MILLIS_PER_MINUTE = 60 * 1000L;
+    static final long MILLIS_PER_DAY = MINUTES_PER_DAY * MILLIS_PER_MINUTE;
+
+    private int mEpochDay;
+    private int mMinuteOfDay;
+
+    // The seconds and milliseconds of the initial date, which the pickers
+    // cannot change but which are still returned to the client.
+    private int mMillisOfMinute;
+
+    /**
+     * Set the selection from an instant, interpreted in the given time zone.
+     *
+     * @param millis  milliseconds since the epoch
+     * @param zone  the time zone that the pickers display
+     */
+    void setFromMillis(long millis, TimeZone zone)
+    {
+        setFromLocalMillis(millis + zone.getOffset(millis));
+    }
+
+    /**
+     * Set the selection from a local wall-clock time, expressed as if
+     * it were milliseconds since the epoch in UTC.
+     *
+     * @param localMillis
+     */
+    void setFromLocalMillis(long localMillis)
+    {
+        long epochDay = floorDiv(localMillis, MILLIS_PER_DAY);
+        long millisOfDay = localMillis - epochDay * MILLIS_PER_DAY;
+
+        mEpochDay = (int) epochDay;
+        mMinuteOfDay = (int) (millisOfDay / MILLIS_PER_MINUTE);
+        mMillisOfMinute = (int) (millisOfDay % MILLIS_PER_MINUTE);
+    }
+
+    /**
+     * Convert the selection back to an instant in the given time zone.
+     *
+     * @param zone  the time zone that the pickers display
+     * @return milliseconds since the epoch
+     */
+    long toMillis(TimeZone zone)
+    {
+        long localMillis = getLocalMillis();
+
+        // The offset depends on the instant we are trying to find, so
+        // estimate it from the standard offset first, then correct it
+        // once in case the estimate fell on the other side of a DST
+        // transition.
+        int offset = zone.getOffset(localMillis - zone.getRawOffset());
+        int correctedOffset = zone.getOffset(localMillis - offset);
+
+        return localMillis - correctedOffset;
+    }
+
+    /**
+     * Convert the selection back to an instant using a precomputed table
+     * of the zone's transitions, resolving a time that falls in a DST gap
+     * or overlap by the given policies.
+     *
+     * @param zone  the transitions of the time zone that the pickers display
+     * @param gapPolicy  one of the {@code ZoneTransitions.DST_GAP_} constants
+     * @param overlapPolicy  one of the {@code ZoneTransitions.DST_OVERLAP_} constants
+     * @return milliseconds since the epoch
+     */
+    long toMillis(ZoneTransitions zone, int gapPolicy, int overlapPolicy)
+    {
+        return zone.toUtcMillis(getLocalMillis(), gapPolicy, overlapPolicy);
+    }
+
+    /**
+     * @return the local wall-clock time of the selection, expressed as
+     *         if it were milliseconds since the epoch in UTC
+     */
+    long getLocalMillis()
+    {
+        return mEpochDay * MILLIS_PER_DAY + mMinuteOfDay * MILLIS_PER_MINUTE + mMillisOfMinute;
+    }
+
+    /**
+     * @param year
+     * @param month  the month of the year, 0-11, as used by {@code Calendar}
+     *               and {@code DatePicker}
+     * @param day  the day of the month, 1-31
+     */
+    void setDate(int year, int month, int day)
+    {
+        mEpochDay = daysFromCivil(year, month + 1, day);
+    }
+
+    /**
+     * @param hour  the hour of the day, 0-23
+     * @param minute  the minute of the hour, 0-59
+     */
+    void setTime(int hour, int minute)
+    {
+        mMinuteOfDay = hour * 60 + minute;
+    }
+
+    /**
+     * Round the selection to the nearest multiple of the interval, moving
+     * on to the next day if it rounds up past midnight. The seconds and
+     * milliseconds are dropped.
+     *
+     * @param minuteInterval  a divisor of 60
+     */
+    void roundToMinuteInterval(int minuteInterval)
+    {
+        long intervalMillis = minuteInterval * MILLIS_PER_MINUTE;
+        long rounded = floorDiv(getLocalMillis() + intervalMillis / 2, intervalMillis) * intervalMillis;
+
+        setFromLocalMillis(rounded);
+    }
+
+    /**
+     * Set the selection to the same date and time as another one.
+     */
+    void copyFrom(DateTimeState other)
+    {
+        mEpochDay = other.mEpochDay;
+        mMinuteOfDay = other.mMinuteOfDay;
+        mMillisOfMinute = other.mMillisOfMinute;
+    }
+
+    void setEpochDay(int epochDay)
+    {
+        mEpochDay = epochDay;
+    }
+
+    void setMinuteOfDay(int minuteOfDay)
+    {
+        mMinuteOfDay = minuteOfDay;
+    }
+
+    int getEpochDay()
+    {
+        return mEpochDay;
+    }
+
+    int getMinuteOfDay()
+    {
+        return mMinuteOfDay;
+    }
+
+    int getYear()
+    {
+        return civilYear(civilFromDays(mEpochDay));
+    }
+
+    /**
+     * @return the month of the year, 0-11
+     */
+    int getMonth()
+    {
+        return civilMonth(civilFromDays(mEpochDay)) - 1;
+    }
+
+    int getDayOfMonth()
+    {
+        return civilDay(civilFromDays(mEpochDay));
+    }
+
+    int getHour()
+    {
+        return mMinuteOfDay / 60;
+    }
+
+    int getMinute()
+    {
+        return mMinuteOfDay % 60;
+    }
+
+    /**
+     * Return the number of days between 1970-01-01 and the given date.
+     *
+     * @param year
+     * @param month  the month of the year, 1-12
+     * @param day  the day of the month, 1-31
+     * @return
+     */
+    static int daysFromCivil(int year, int month, int day)
+    {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Return the date that is the given number of days after 1970-01-01,
+     * packed into a single int as {@code year << 9 | month << 5 | day}.
+     * Use {@link #civilYear(int)}, {@link #civilMonth(int)} and
+     * {@link #civilDay(int)} to unpack it.
+     *
+     * @param epochDay
+     * @return
+     */
+    static int civilFromDays(int epochDay)
+    {
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        return (year << 9) | (month << 5) | day;
+    }
+
+    static int civilYear(int civil)
+    {
+        return civil >> 9;
+    }
+
+    /**
+     * @return the month of the year, 1-12
+     */
+    static int civilMonth(int civil)
+    {
+        return (civil >> 5) & 0xF;
+    }
+
+    static int civilDay(int civil)
+    {
+        return civil & 0x1F;
+    }
+
+    /**
+     * @param year
+     * @param month  the month of the year, 1-12
+     * @return the number of days in the given month
+     */
+    static int daysInMonth(int year, int month)
+    {
+        if (month == 2)
+            return isLeapYear(year) ? 29 : 28;
+
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    static boolean isLeapYear(int year)
+    {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static long floorDiv(long x, long y)
+    {
+        long q = x / y;
+
+        if ((x % y != 0) && ((x ^ y) < 0))
+            q--;
+
+        return q;
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.jjobes.slidedatetimepicker;
+
+/**
+ * The days known to be unavailable, as loaded from the client's
+ * {@link AvailabilityProvider}.
+ *
+ * @author jjobes
+ *
+ */
+interface DayAvailability
+{
+    /**
+     * Must not block. A day whose month has not loaded yet is available.
+     *
+     * @param epochDay  days since 1970-01-01
+     * @return <tt>true</tt> if the day cannot be selected
+     */
+    boolean isUnavailable(int epochDay);
+}
@@ -0,0 +1,218 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+
+/**
+ * <p>Inflates the dialog's layout and both pages ahead of time so that
+ * the next {@link SlideDateTimePicker#show()} does not have to.</p>
+ *
+ * <p>The prepared views belong to the {@code Activity} they were
+ * inflated for, so they are only handed out to that same activity and
+ * theme. They are discarded as soon as they are taken, and by
+ * {@link ActivityCacheCallbacks} when that activity is destroyed, when
+ * the configuration changes or when the system asks the process to trim
+ * its memory.</p>
+ *
+ * <p>All methods must be called from the main thread.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class DialogPrewarmer
+{
+    private static Activity sActivity;
+    private static int sTheme;
+
+    private static View sDialogView;
+    private static View sDateView;
+    private static View sTimeView;
+    private static long sDialogInflateNanos;
+    private static long sDateInflateNanos;
+    private static long sTimeInflateNanos;
+
+    private static long sSavedNanos;
+
+    private DialogPrewarmer() {}
+
+    /**
+     * Inflate the dialog and its pages for the given activity and theme,
+     * unless they have already been prepared.
+     *
+     * @param activity
+     * @param theme  {@code SlideDateTimePicker.HOLO_DARK} or
+     *               {@code SlideDateTimePicker.HOLO_LIGHT}
+     */
+    static void prewarm(Activity activity, int theme)
+    {
+        theme = normalizeTheme(theme);
+
+        if (activity == sActivity && theme == sTheme &&
+            sDialogView != null && sDateView != null && sTimeView != null)
+        {
+            return;
+        }
+
+        discard();
+        ActivityCacheCallbacks.register(activity.getApplication());
+
+        sActivity = activity;
+        sTheme = theme;
+
+        PickerTrace.begin(PickerTrace.PREWARM);
+
+        try
+        {
+            long start = System.nanoTime();
+            sDialogView = LayoutInflater.from(new ContextThemeWrapper(activity,
+                    SlideDateTimeDialogFragment.getDialogStyle(theme)))
+                    .inflate(R.layout.slide_date_time_picker, null);
+
+            long dateStart = System.nanoTime();
+            sDialogInflateNanos = dateStart - start;
+
+            // The pages are inflated with the same Holo themed inflater that
+            // DateFragment and TimeFragment use.
+            LayoutInflater pageInflater = ThemedInflaterCache.get(activity, theme);
+
+            sDateView = pageInflater.inflate(R.layout.fragment_date, null, false);
+
+            long timeStart = System.nanoTime();
+            sDateInflateNanos = timeStart - dateStart;
+
+            sTimeView = pageInflater.inflate(R.layout.fragment_time, null, false);
+            sTimeInflateNanos = System.nanoTime() - timeStart;
+        }
+        finally
+        {
+            PickerTrace.end();
+        }
+    }
+
+    /**
+     * Call {@link #prewarm(Activity, int)} the next time the main thread's
+     * message queue is idle.
+     *
+     * @param activity
+     * @param theme
+     */
+    static void prewarmWhenIdle(final Activity activity, final int theme)
+    {
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+
+            @Override
+            public boolean queueIdle()
+            {
+                if (!activity.isFinishing())
+                {
+                    prewarm(activity, theme);
+                }
+
+                return false;
+            }
+        });
+    }
+
+    /**
+     * @return the prepared dialog layout, or {@code null} if none was
+     *         prepared for this activity and theme
+     */
+    static View takeDialogView(Activity activity, int theme)
+    {
+        if (!matches(activity, theme) || sDialogView == null)
+            return null;
+
+        View v = sDialogView;
+        sDialogView = null;
+        sSavedNanos += sDialogInflateNanos;
+        releaseIfEmpty();
+
+        return v;
+    }
+
+    /**
+     * @return the prepared {@code fragment_date} layout, or {@code null}
+     *         if none was prepared for this activity and theme
+     */
+    static View takeDateView(Activity activity, int theme)
+    {
+        if (!matches(activity, theme) || sDateView == null)
+            return null;
+
+        View v = sDateView;
+        sDateView = null;
+        sSavedNanos += sDateInflateNanos;
+        releaseIfEmpty();
+
+        return v;
+    }
+
+    /**
+     * @return the prepared {@code fragment_time} layout, or {@code null}
+     *         if none was prepared for this activity and theme
+     */
+    static View takeTimeView(Activity activity, int theme)
+    {
+        if (!matches(activity, theme) || sTimeView == null)
+            return null;
+
+        View v = sTimeView;
+        sTimeView = null;
+        sSavedNanos += sTimeInflateNanos;
+        releaseIfEmpty();
+
+        return v;
+    }
+
+    /**
+     * @return the total inflation time, in nanoseconds, that was moved
+     *         out of {@code show()} by prewarming
+     */
+    static long getSavedNanos()
+    {
+        return sSavedNanos;
+    }
+
+    /**
+     * Drop any prepared views along with the activity they belong to.
+     */
+    static void discard()
+    {
+        sDialogView = null;
+        sDateView = null;
+        sTimeView = null;
+        sActivity = null;
+    }
+
+    /**
+     * Drop the prepared views if they belong to the given activity.
+     */
+    static void discard(Activity activity)
+    {
+        if (activity == sActivity)
+            discard();
+    }
+
+    private static int normalizeTheme(int theme)
+    {
+        // If no theme was specified, default to holo light
+        return theme == SlideDateTimePicker.HOLO_DARK ?
+                SlideDateTimePicker.HOLO_DARK :
+                SlideDateTimePicker.HOLO_LIGHT;
+    }
+
+    private static boolean matches(Activity activity, int theme)
+    {
+        return activity != null && activity == sActivity && normalizeTheme(theme) == sTheme;
+    }
+
+    private static void releaseIfEmpty()
+    {
+        if (sDialogView == null && sDateView == null && sTimeView == null)
+            sActivity = null;
+    }
+}
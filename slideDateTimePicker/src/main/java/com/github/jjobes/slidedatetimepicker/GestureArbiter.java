@@ -0,0 +1,187 @@
+package com.github.jjobes.slidedatetimepicker;
+
+/**
+ * <p>Decides which of the ViewPager and the current page's picker each
+ * touch event of a gesture goes to, for {@link CustomViewPager}.</p>
+ *
+ * <p>Each gesture is routed to a single consumer. Until its direction is
+ * known, only the ACTION_DOWN is delivered (to both). The direction is
+ * locked as soon as the finger passes the touch slop, or earlier if it is
+ * already moving fast along one axis. From then on every event goes to
+ * the winner only, and the loser gets an ACTION_CANCEL. A gesture that
+ * ends before its direction is known is a tap, and belongs to the
+ * picker.</p>
+ *
+ * <p>This class knows nothing of {@code MotionEvent}, so that recorded
+ * gestures can be replayed through it on the JVM.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class GestureArbiter
+{
+    // The same values as MotionEvent's masked actions
+    static final int ACTION_DOWN = 0;
+    static final int ACTION_UP = 1;
+    static final int ACTION_MOVE = 2;
+    static final int ACTION_CANCEL = 3;
+
+    static final int CONSUMER_UNDECIDED = 0;
+    static final int CONSUMER_PAGER = 1;
+    static final int CONSUMER_PICKER = 2;
+
+    // What to do with an event, returned by route(). Cancels are sent
+    // before the event itself is dispatched.
+    static final int DISPATCH_PAGER = 1;
+    static final int DISPATCH_PICKER = 1 << 1;
+    static final int CANCEL_PAGER = 1 << 2;
+    static final int CANCEL_PICKER = 1 << 3;
+
+    // A fast gesture is locked once it has moved this fraction of the
+    // touch slop, provided one axis clearly dominates its velocity.
+    static final float EARLY_LOCK_SLOP_FRACTION = 0.5f;
+    static final float EARLY_LOCK_AXIS_RATIO = 2f;
+
+    private final float mTouchSlop;
+    private final float mLockVelocity;
+    private int mConsumer = CONSUMER_UNDECIDED;
+
+    /**
+     * @param touchSlop  the distance in pixels a touch can wander before
+     *                   it is a drag
+     * @param lockVelocity  the velocity in pixels per second above which a
+     *                      gesture is locked before it passes the slop
+     */
+    GestureArbiter(float touchSlop, float lockVelocity)
+    {
+        mTouchSlop = touchSlop;
+        mLockVelocity = lockVelocity;
+    }
+
+    /**
+     * Decide the consumer of a gesture from its displacement since the
+     * ACTION_DOWN and, for a fast gesture, from its velocity.
+     *
+     * @param deltaX
+     * @param deltaY
+     * @param velocityX  in pixels per second
+     * @param velocityY  in pixels per second
+     * @param touchSlop
+     * @param lockVelocity
+     * @return {@link #CONSUMER_PAGER}, {@link #CONSUMER_PICKER} or
+     *         {@link #CONSUMER_UNDECIDED} if it is too early to tell
+     */
+    static int decide(float deltaX, float deltaY, float velocityX, float velocityY,
+            float touchSlop, float lockVelocity)
+    {
+        float absDeltaX = Math.abs(deltaX);
+        float absDeltaY = Math.abs(deltaY);
+
+        if (absDeltaX > touchSlop || absDeltaY > touchSlop)
+            return absDeltaX > absDeltaY ? CONSUMER_PAGER : CONSUMER_PICKER;
+
+        if (Math.max(absDeltaX, absDeltaY) > touchSlop * EARLY_LOCK_SLOP_FRACTION)
+        {
+            float absVelocityX = Math.abs(velocityX);
+            float absVelocityY = Math.abs(velocityY);
+
+            if (absVelocityX > lockVelocity && absVelocityX > absVelocityY * EARLY_LOCK_AXIS_RATIO)
+                return CONSUMER_PAGER;
+
+            if (absVelocityY > lockVelocity && absVelocityY > absVelocityX * EARLY_LOCK_AXIS_RATIO)
+                return CONSUMER_PICKER;
+        }
+
+        return CONSUMER_UNDECIDED;
+    }
+
+    /**
+     * @return <tt>true</tt> if {@link #route} needs the velocity of a move
+     *         with this displacement to decide the consumer. Otherwise the
+     *         velocity is not read, and need not be computed.
+     */
+    boolean needsVelocity(float deltaX, float deltaY)
+    {
+        float maxDelta = Math.max(Math.abs(deltaX), Math.abs(deltaY));
+
+        return mConsumer == CONSUMER_UNDECIDED &&
+               maxDelta > mTouchSlop * EARLY_LOCK_SLOP_FRACTION &&
+               maxDelta <= mTouchSlop;
+    }
+
+    /**
+     * Route the next event of the gesture.
+     *
+     * @param action  the event's masked action
+     * @param deltaX  the displacement since the ACTION_DOWN
+     * @param deltaY
+     * @param velocityX  in pixels per second, only read when
+     *                   {@link #needsVelocity(float, float)}
+     * @param velocityY
+     * @param isPagerSettling  for an ACTION_DOWN, <tt>true</tt> if the
+     *                         ViewPager is still settling from a previous
+     *                         swipe, in which case the touch catches it
+     *                         and the gesture belongs to the ViewPager
+     * @return the {@code DISPATCH_} and {@code CANCEL_} flags of where the
+     *         event goes, or 0 if it is held back until the direction is
+     *         known. Both consumers measure from the ACTION_DOWN, so no
+     *         distance is lost.
+     */
+    int route(int action, float deltaX, float deltaY, float velocityX, float velocityY,
+            boolean isPagerSettling)
+    {
+        int routing = 0;
+
+        switch (action)
+        {
+        case ACTION_DOWN:
+            mConsumer = isPagerSettling ? CONSUMER_PAGER : CONSUMER_UNDECIDED;
+            break;
+
+        case ACTION_MOVE:
+            if (mConsumer == CONSUMER_UNDECIDED)
+            {
+                mConsumer = decide(deltaX, deltaY, velocityX, velocityY, mTouchSlop, mLockVelocity);
+
+                if (mConsumer == CONSUMER_UNDECIDED)
+                    return 0;
+
+                routing |= getLoserCancel();
+            }
+            break;
+
+        case ACTION_UP:
+            if (mConsumer == CONSUMER_UNDECIDED)
+            {
+                mConsumer = CONSUMER_PICKER;
+                routing |= getLoserCancel();
+            }
+            break;
+        }
+
+        if (mConsumer == CONSUMER_PAGER)
+            routing |= DISPATCH_PAGER;
+        else if (mConsumer == CONSUMER_PICKER)
+            routing |= DISPATCH_PICKER;
+        else  // the ACTION_DOWN, an ACTION_CANCEL or a pointer event before the direction was locked
+            routing |= DISPATCH_PAGER | DISPATCH_PICKER;
+
+        if (action == ACTION_UP || action == ACTION_CANCEL)
+            mConsumer = CONSUMER_UNDECIDED;
+
+        return routing;
+    }
+
+    /**
+     * @return the consumer of the gesture in progress
+     */
+    int getConsumer()
+    {
+        return mConsumer;
+    }
+
+    private int getLoserCancel()
+    {
+        return mConsumer == CONSUMER_PAGER ? CANCEL_PICKER : CANCEL_PAGER;
+    }
+}
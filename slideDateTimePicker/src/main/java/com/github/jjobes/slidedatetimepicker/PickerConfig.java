@@ -0,0 +1,283 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * <p>The options the client passed to {@link SlideDateTimePicker}, as
+ * stored in the arguments of {@link SlideDateTimeDialogFragment}. The
+ * dialog and both of its pages read them from here.</p>
+ *
+ * <p>Everything is written as primitives under a single bundle key, so
+ * saving the dialog's state does not go through Java serialization. The
+ * dates are held as milliseconds since the epoch, the booleans as bits of
+ * one {@code int}, and the time zone by its ID.</p>
+ *
+ * @author jjobes
+ *
+ */
+public final class PickerConfig implements Parcelable
+{
+    private static final int FLAG_HAS_MIN_DATE = 1;
+    private static final int FLAG_HAS_MAX_DATE = 1 << 1;
+    private static final int FLAG_CLIENT_SPECIFIED_24_HOUR_TIME = 1 << 2;
+    private static final int FLAG_24_HOUR_TIME = 1 << 3;
+    private static final int FLAG_TRIM_OFFSCREEN_PAGE = 1 << 4;
+    private static final int FLAG_RANGE_MODE = 1 << 5;
+
+    private final String mRequestKey;
+    private final long mInitialMillis;
+    private final long mInitialEndMillis;
+    private final long mMinMillis;
+    private final long mMaxMillis;
+    private final int mFlags;
+    private final int mTheme;
+    private final int mIndicatorColor;
+    private final int mMinuteInterval;
+    private final String mTimeZoneId;
+    private final int mDstGapPolicy;
+    private final int mDstOverlapPolicy;
+    private final long[] mBlackoutIntervals;
+    private final int mStreamPolicy;
+    private final int mStreamDebounceMillis;
+    private final long mShowNanos;
+
+    /**
+     * @param requestKey  the key the client's listener is registered under
+     *                    in {@link PickerRegistry}
+     * @param initialDate  the initial date, or the initial start of the
+     *                     range in range mode
+     * @param initialEndDate  the initial end of the range, or null to
+     *                        start and end on the same date
+     * @param isRangeMode
+     * @param minDate  may be null
+     * @param maxDate  may be null
+     * @param isClientSpecified24HourTime
+     * @param is24HourTime
+     * @param theme
+     * @param indicatorColor
+     * @param trimOffscreenPage
+     * @param minuteInterval  a divisor of 60
+     * @param timeZone  the time zone to display, or null for the device's
+     * @param dstGapPolicy
+     * @param dstOverlapPolicy
+     * @param blackoutIntervals  the blacked out days, packed as described
+     *                           in {@link BlackoutDates}, or null
+     * @param streamPolicy  one of the {@code STREAM_} policies of
+     *                      {@link SelectionStream}
+     * @param streamDebounceMillis
+     * @param showNanos  when the dialog was shown, or 0 if no
+     *                   {@link PickerMetrics} was set
+     */
+    PickerConfig(String requestKey, Date initialDate, Date initialEndDate, boolean isRangeMode,
+            Date minDate, Date maxDate, boolean isClientSpecified24HourTime, boolean is24HourTime,
+            int theme, int indicatorColor, boolean trimOffscreenPage, int minuteInterval,
+            TimeZone timeZone, int dstGapPolicy, int dstOverlapPolicy,
+            long[] blackoutIntervals, int streamPolicy, int streamDebounceMillis, long showNanos)
+    {
+        int flags = 0;
+
+        if (minDate != null)
+            flags |= FLAG_HAS_MIN_DATE;
+        if (maxDate != null)
+            flags |= FLAG_HAS_MAX_DATE;
+        if (isClientSpecified24HourTime)
+            flags |= FLAG_CLIENT_SPECIFIED_24_HOUR_TIME;
+        if (is24HourTime)
+            flags |= FLAG_24_HOUR_TIME;
+        if (trimOffscreenPage)
+            flags |= FLAG_TRIM_OFFSCREEN_PAGE;
+        if (isRangeMode)
+            flags |= FLAG_RANGE_MODE;
+
+        mRequestKey = requestKey;
+        mInitialMillis = initialDate.getTime();
+        mInitialEndMillis = initialEndDate != null ? initialEndDate.getTime() : mInitialMillis;
+        mMinMillis = minDate != null ? minDate.getTime() : 0;
+        mMaxMillis = maxDate != null ? maxDate.getTime() : 0;
+        mFlags = flags;
+        mTheme = theme;
+        mIndicatorColor = indicatorColor;
+        mMinuteInterval = minuteInterval;
+        mTimeZoneId = timeZone != null ? timeZone.getID() : null;
+        mDstGapPolicy = dstGapPolicy;
+        mDstOverlapPolicy = dstOverlapPolicy;
+        mBlackoutIntervals = blackoutIntervals;
+        mStreamPolicy = streamPolicy;
+        mStreamDebounceMillis = streamDebounceMillis;
+        mShowNanos = showNanos;
+    }
+
+    private PickerConfig(Parcel in)
+    {
+        mRequestKey = in.readString();
+        mInitialMillis = in.readLong();
+        mInitialEndMillis = in.readLong();
+        mMinMillis = in.readLong();
+        mMaxMillis = in.readLong();
+        mFlags = in.readInt();
+        mTheme = in.readInt();
+        mIndicatorColor = in.readInt();
+        mMinuteInterval = in.readInt();
+        mTimeZoneId = in.readString();
+        mDstGapPolicy = in.readInt();
+        mDstOverlapPolicy = in.readInt();
+        mBlackoutIntervals = in.createLongArray();
+        mStreamPolicy = in.readInt();
+        mStreamDebounceMillis = in.readInt();
+        mShowNanos = in.readLong();
+    }
+
+    @Override
+    public void writeToParcel(Parcel out, int flags)
+    {
+        out.writeString(mRequestKey);
+        out.writeLong(mInitialMillis);
+        out.writeLong(mInitialEndMillis);
+        out.writeLong(mMinMillis);
+        out.writeLong(mMaxMillis);
+        out.writeInt(mFlags);
+        out.writeInt(mTheme);
+        out.writeInt(mIndicatorColor);
+        out.writeInt(mMinuteInterval);
+        out.writeString(mTimeZoneId);
+        out.writeInt(mDstGapPolicy);
+        out.writeInt(mDstOverlapPolicy);
+        out.writeLongArray(mBlackoutIntervals);
+        out.writeInt(mStreamPolicy);
+        out.writeInt(mStreamDebounceMillis);
+        out.writeLong(mShowNanos);
+    }
+
+    @Override
+    public int describeContents()
+    {
+        return 0;
+    }
+
+    public static final Parcelable.Creator<PickerConfig> CREATOR = new Parcelable.Creator<PickerConfig>() {
+
+        @Override
+        public PickerConfig createFromParcel(Parcel in)
+        {
+            return new PickerConfig(in);
+        }
+
+        @Override
+        public PickerConfig[] newArray(int size)
+        {
+            return new PickerConfig[size];
+        }
+    };
+
+    String getRequestKey()
+    {
+        return mRequestKey;
+    }
+
+    Date getInitialDate()
+    {
+        return new Date(mInitialMillis);
+    }
+
+    Date getInitialEndDate()
+    {
+        return new Date(mInitialEndMillis);
+    }
+
+    boolean isRangeMode()
+    {
+        return (mFlags & FLAG_RANGE_MODE) != 0;
+    }
+
+    /**
+     * @return the minimum date, or null if there is none
+     */
+    Date getMinDate()
+    {
+        return (mFlags & FLAG_HAS_MIN_DATE) != 0 ? new Date(mMinMillis) : null;
+    }
+
+    /**
+     * @return the maximum date, or null if there is none
+     */
+    Date getMaxDate()
+    {
+        return (mFlags & FLAG_HAS_MAX_DATE) != 0 ? new Date(mMaxMillis) : null;
+    }
+
+    boolean isClientSpecified24HourTime()
+    {
+        return (mFlags & FLAG_CLIENT_SPECIFIED_24_HOUR_TIME) != 0;
+    }
+
+    boolean is24HourTime()
+    {
+        return (mFlags & FLAG_24_HOUR_TIME) != 0;
+    }
+
+    int getTheme()
+    {
+        return mTheme;
+    }
+
+    int getIndicatorColor()
+    {
+        return mIndicatorColor;
+    }
+
+    boolean isTrimOffscreenPage()
+    {
+        return (mFlags & FLAG_TRIM_OFFSCREEN_PAGE) != 0;
+    }
+
+    int getMinuteInterval()
+    {
+        return mMinuteInterval;
+    }
+
+    /**
+     * @return the time zone the client specified, or null to use the
+     *         device's
+     */
+    TimeZone getTimeZone()
+    {
+        return mTimeZoneId != null ? TimeZone.getTimeZone(mTimeZoneId) : null;
+    }
+
+    int getDstGapPolicy()
+    {
+        return mDstGapPolicy;
+    }
+
+    int getDstOverlapPolicy()
+    {
+        return mDstOverlapPolicy;
+    }
+
+    /**
+     * @return the packed blackout intervals, or null if there are none
+     */
+    long[] getBlackoutIntervals()
+    {
+        return mBlackoutIntervals;
+    }
+
+    int getStreamPolicy()
+    {
+        return mStreamPolicy;
+    }
+
+    int getStreamDebounceMillis()
+    {
+        return mStreamDebounceMillis;
+    }
+
+    long getShowNanos()
+    {
+        return mShowNanos;
+    }
+}
@@ -0,0 +1,345 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.Locale;
+
+import android.content.Context;
+import android.text.format.DateFormat;
+import android.text.format.DateUtils;
+import android.view.View;
+import android.view.View.OnClickListener;
+import android.widget.Button;
+
+/**
+ * <p>Keeps the pickers, tabs and range selector of a picker in step with
+ * its {@link PickerSelection}. Shared by {@link SlideDateTimeDialogFragment}
+ * and {@link SlideDateTimeView}, which only build the pickers and tell
+ * this class how to reach them through a {@link Host}.</p>
+ *
+ * <p>Each change the user makes is applied to the selection. Whatever had
+ * to be moved is set again on the pickers, the tabs are marked dirty, and
+ * the selection is streamed to the client.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class PickerController
+{
+    // The alpha of the range selector button that is not selected
+    private static final float UNSELECTED_RANGE_BUTTON_ALPHA = 0.5f;
+
+    // The date tab is formatted from the local wall-clock time held in
+    // the selection, so it must not be shifted by the device's time zone.
+    private static final int DATE_TAB_FLAGS =
+        DateUtils.FORMAT_SHOW_WEEKDAY |
+        DateUtils.FORMAT_SHOW_DATE |
+        DateUtils.FORMAT_ABBREV_ALL |
+        DateUtils.FORMAT_UTC;
+
+    /**
+     * Sets the pickers again after the selection was moved. Either picker
+     * may not be built, in which case there is nothing to do.
+     */
+    interface Host
+    {
+        /** Set the DatePicker to the selected day. */
+        void updateDatePicker();
+
+        /** Call {@link PickerController#updateTimePicker} on the TimePicker. */
+        void updateTimePicker();
+    }
+
+    private final PickerSelection mSelection;
+    // Null unless the client set a stream policy
+    private final SelectionStream mSelectionStream;
+    private final Host mHost;
+    // Only set while the host has views
+    private TabUpdateScheduler mTabUpdateScheduler;
+    private Button mRangeStartButton;
+    private Button mRangeEndButton;
+
+    /**
+     * @param config  the client's options
+     * @param availabilityProvider  may be null
+     * @param sink  receives the selections streamed to the client
+     * @param host
+     */
+    PickerController(PickerConfig config, AvailabilityProvider availabilityProvider,
+            SelectionStream.Sink sink, Host host)
+    {
+        mHost = host;
+        mSelection = new PickerSelection(config, availabilityProvider, mOnMonthLoadedListener);
+        mSelectionStream = config.getStreamPolicy() != SelectionStream.STREAM_NONE ?
+                new SelectionStream(config.getStreamPolicy(), config.getStreamDebounceMillis(), sink) :
+                null;
+    }
+
+    PickerSelection getSelection()
+    {
+        return mSelection;
+    }
+
+    /**
+     * Start updating the tabs through the given scheduler, and show the
+     * range selector in range mode.
+     *
+     * @param tabUpdateScheduler
+     * @param rangeSelector  the range selector's layout
+     * @param rangeStartButton
+     * @param rangeEndButton
+     */
+    void attachViews(TabUpdateScheduler tabUpdateScheduler, View rangeSelector,
+            Button rangeStartButton, Button rangeEndButton)
+    {
+        mTabUpdateScheduler = tabUpdateScheduler;
+
+        if (!mSelection.isRangeMode())
+            return;
+
+        mRangeStartButton = rangeStartButton;
+        mRangeEndButton = rangeEndButton;
+
+        rangeSelector.setVisibility(View.VISIBLE);
+        mRangeStartButton.setOnClickListener(new OnClickListener() {
+
+            @Override
+            public void onClick(View v)
+            {
+                selectRangeEnd(false);
+            }
+        });
+        mRangeEndButton.setOnClickListener(new OnClickListener() {
+
+            @Override
+            public void onClick(View v)
+            {
+                selectRangeEnd(true);
+            }
+        });
+        updateRangeSelector();
+    }
+
+    /**
+     * Drop the views passed to {@link #attachViews}. Changes made to the
+     * selection from now on are picked up when the views are created
+     * again.
+     */
+    void detachViews()
+    {
+        mTabUpdateScheduler = null;
+        mRangeStartButton = null;
+        mRangeEndButton = null;
+    }
+
+    /**
+     * Deliver the selection held back by the stream policy and stop
+     * loading availability. Called when the host goes away, or is
+     * detached until {@link #resume()}.
+     */
+    void release()
+    {
+        flushSelectionStream();
+        mSelection.release();
+    }
+
+    /**
+     * Load the availability of the selected month again after
+     * {@link #release()}.
+     */
+    void resume()
+    {
+        mSelection.resume();
+    }
+
+    /**
+     * Set the selection to a saved one, and the pickers, tabs and range
+     * selector to match.
+     *
+     * @see PickerSelection#restore(long, long, boolean)
+     */
+    void restore(long startLocalMillis, long endLocalMillis, boolean isEndSelected)
+    {
+        mSelection.restore(startLocalMillis, endLocalMillis, isEndSelected);
+
+        if (mRangeStartButton != null)
+            updateRangeSelector();
+
+        mHost.updateDatePicker();
+        mHost.updateTimePicker();
+
+        if (mTabUpdateScheduler != null)
+        {
+            mTabUpdateScheduler.markDateDirty();
+            mTabUpdateScheduler.markTimeDirty();
+        }
+    }
+
+    /**
+     * Switch the pickers to editing the start or the end of the range.
+     * The pickers are kept and only set to the other selection.
+     */
+    private void selectRangeEnd(boolean isEnd)
+    {
+        if (!mSelection.selectEnd(isEnd))
+            return;
+
+        updateRangeSelector();
+        mHost.updateDatePicker();
+        mHost.updateTimePicker();
+
+        mTabUpdateScheduler.markDateDirty();
+        mTabUpdateScheduler.markTimeDirty();
+    }
+
+    private void updateRangeSelector()
+    {
+        boolean isEndSelected = mSelection.isEndSelected();
+
+        mRangeStartButton.setSelected(!isEndSelected);
+        mRangeStartButton.setAlpha(isEndSelected ? UNSELECTED_RANGE_BUTTON_ALPHA : 1f);
+        mRangeEndButton.setSelected(isEndSelected);
+        mRangeEndButton.setAlpha(isEndSelected ? 1f : UNSELECTED_RANGE_BUTTON_ALPHA);
+    }
+
+    /**
+     * Apply the date the user picked. The times allowed can differ on the
+     * new day, so the time picker is limited to them again.
+     */
+    void onDateChanged(int year, int month, int day)
+    {
+        int changes = mSelection.setDate(year, month, day);
+
+        if ((changes & PickerSelection.TIME_CHANGED) != 0)
+            mTabUpdateScheduler.markTimeDirty();
+
+        if ((changes & PickerSelection.DATE_CHANGED) != 0)
+            mHost.updateDatePicker();
+
+        mHost.updateTimePicker();
+
+        mTabUpdateScheduler.markDateDirty();
+        streamSelection();
+    }
+
+    /**
+     * Apply the time the user picked. The time picker is already limited
+     * to the times allowed on the selected day, but the time is clamped
+     * here as well so that the selection can never leave the bounds.
+     */
+    void onTimeChanged(int hour, int minute)
+    {
+        if (mSelection.setTime(hour, minute) != 0)
+            mHost.updateTimePicker();
+
+        mTabUpdateScheduler.markTimeDirty();
+        streamSelection();
+    }
+
+    /**
+     * Report the selection to the client's
+     * {@link SlideDateTimeListener#onSelectionChanging(long)}, or both ends
+     * of the range to {@link SlideDateTimeListener#onRangeChanging(long, long)},
+     * as often as its stream policy allows.
+     */
+    private void streamSelection()
+    {
+        if (mSelectionStream == null)
+            return;
+
+        if (mSelection.isRangeMode())
+            mSelectionStream.onRangeChanged(mSelection.getStartMillis(), mSelection.getEndMillis());
+        else
+            mSelectionStream.onSelectionChanged(mSelection.getSelectedMillis());
+    }
+
+    /**
+     * Deliver the last selection that is still held back by the stream
+     * policy, so that the client always sees it before the result.
+     */
+    void flushSelectionStream()
+    {
+        if (mSelectionStream != null)
+            mSelectionStream.flush();
+    }
+
+    /**
+     * Moves the selection off the selected day if the month that was just
+     * loaded says it is unavailable.
+     */
+    private final AvailabilityCache.OnMonthLoadedListener mOnMonthLoadedListener =
+            new AvailabilityCache.OnMonthLoadedListener() {
+
+        @Override
+        public void onMonthLoaded(int year, int month)
+        {
+            int changes = mSelection.onMonthLoaded();
+
+            // Without views, the pickers are built from mSelection once
+            // they are created again.
+            if (changes == 0 || mTabUpdateScheduler == null)
+                return;
+
+            if ((changes & PickerSelection.DATE_CHANGED) != 0)
+            {
+                mTabUpdateScheduler.markDateDirty();
+                mHost.updateDatePicker();
+            }
+
+            mTabUpdateScheduler.markTimeDirty();
+            mHost.updateTimePicker();
+        }
+    };
+
+    /**
+     * @return the text of the date tab
+     */
+    String getDateTabText(Context context)
+    {
+        return DateUtils.formatDateTime(context, mSelection.getState().getLocalMillis(), DATE_TAB_FLAGS);
+    }
+
+    /**
+     * Limit a TimePicker to the times allowed on the selected day, and set
+     * it to the selected time.
+     */
+    static void updateTimePicker(CustomTimePicker timePicker, DateTimeState state,
+            DateTimeConstraints constraints)
+    {
+        timePicker.setTimeBounds(
+                constraints.getMinMinuteOfDay(state.getEpochDay()),
+                constraints.getMaxMinuteOfDay(state.getEpochDay()));
+        timePicker.setCurrentHour(state.getHour());
+        timePicker.setCurrentMinute(state.getMinute());
+    }
+
+    /**
+     * @return <tt>true</tt> if the TimePicker shows 24 hour time, as the
+     *         client specified, or as the device does if it did not
+     */
+    static boolean is24HourView(Context context, PickerConfig config)
+    {
+        return config.isClientSpecified24HourTime() ?
+                config.is24HourTime() :
+                DateFormat.is24HourFormat(context);
+    }
+
+    /**
+     * Return the table of time tab labels matching the 12/24 hour format
+     * the client specified, or the device's default format if none was
+     * specified.
+     */
+    static TimeLabels resolveTimeLabels(Context context, PickerConfig config)
+    {
+        Locale locale = Locale.getDefault();
+
+        if (config.isClientSpecified24HourTime())
+        {
+            return TimeLabels.forPattern(config.is24HourTime() ?
+                    TimeLabels.PATTERN_24_HOUR :
+                    TimeLabels.PATTERN_12_HOUR, locale);
+        }
+        else  // display time using the device's default 12/24 hour format preference
+        {
+            return TimeLabels.forFormat(DateFormat.getTimeFormat(context), locale);
+        }
+    }
+}
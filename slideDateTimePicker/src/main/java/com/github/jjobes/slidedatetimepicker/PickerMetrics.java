@@ -0,0 +1,86 @@
+package com.github.jjobes.slidedatetimepicker;
+
+/**
+ * <p>Receives timings and counters from a {@code SlideDateTimePicker}
+ * dialog, so that the client can feed them to its own telemetry. Set it
+ * with {@link SlideDateTimePicker.Builder#setMetrics(PickerMetrics)}.</p>
+ *
+ * <p>Every method is optional and does nothing by default. When no
+ * {@code PickerMetrics} is set, the dialog takes no timestamps at all.
+ * All times are in nanoseconds, as measured with {@code System.nanoTime()},
+ * since building a page or inflating a picker often takes less than a
+ * millisecond. The methods are called on the main thread, so they should return
+ * quickly.</p>
+ *
+ * @author jjobes
+ *
+ */
+public abstract class PickerMetrics
+{
+    public static final int PAGE_DATE = 0;
+    public static final int PAGE_TIME = 1;
+
+    /**
+     * Called once per dialog, just before its first frame is drawn.
+     *
+     * @param nanos  the time from {@code SlideDateTimePicker.show()}
+     *               to the first frame
+     */
+    public void onFirstFrame(long nanos)
+    {
+
+    }
+
+    /**
+     * Called each time a page builds its picker. A page is built when it
+     * is first shown or prefetched, and again after it was released
+     * under memory pressure.
+     *
+     * @param page  {@link #PAGE_DATE} or {@link #PAGE_TIME}
+     * @param nanos  the time taken to inflate and initialize the page
+     * @param wasPrewarmed  <tt>true</tt> if the page's layout came from
+     *                      {@code SlideDateTimePicker.prewarm()}, in which
+     *                      case {@link #onPickerInflated(int, long)} is
+     *                      not called for it
+     */
+    public void onPageBuilt(int page, long nanos, boolean wasPrewarmed)
+    {
+
+    }
+
+    /**
+     * Called each time the layout of a {@link CustomDatePicker} or
+     * {@link CustomTimePicker} is inflated for a page. This is the whole
+     * inflation, including the picker's constructor, its wheels and their
+     * selection dividers.
+     *
+     * @param page  {@link #PAGE_DATE} or {@link #PAGE_TIME}
+     * @param nanos  the time taken to inflate the picker
+     */
+    public void onPickerInflated(int page, long nanos)
+    {
+
+    }
+
+    /**
+     * Called once when the dialog is closed.
+     *
+     * @param isDateTimeSet  <tt>true</tt> if the user pressed OK,
+     *                       <tt>false</tt> if the dialog was cancelled
+     * @param openNanos  the time from {@code show()} until the dialog
+     *                   was closed
+     * @param dateChangeCount  the number of date change callbacks from the
+     *                         date picker
+     * @param timeChangeCount  the number of time change callbacks from the
+     *                         time picker
+     * @param tabUpdateCount  the number of times a tab's text was updated
+     * @param coalescedTabUpdateCount  the number of tab updates skipped
+     *                                 because an update of the same tab was
+     *                                 already pending for the next frame
+     */
+    public void onClosed(boolean isDateTimeSet, long openNanos, int dateChangeCount,
+            int timeChangeCount, int tabUpdateCount, int coalescedTabUpdateCount)
+    {
+
+    }
+}
@@ -0,0 +1,330 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import android.util.Log;
+
+/**
+ * <p>Holds the client's listener, metrics and availability provider for
+ * each open dialog, keyed by its request key, so that
+ * {@link SlideDateTimeDialogFragment} does not need static fields that
+ * outlive it. Dialogs with different request keys can be open at the
+ * same time, and each result goes only to the listener registered under
+ * its dialog's key.</p>
+ *
+ * <p>The dialog is retained across configuration changes, but the
+ * client's listener usually belongs to the activity that is being
+ * destroyed. So the listener is dropped when the dialog is detached from
+ * that activity, and the new activity binds a new one with
+ * {@link SlideDateTimePicker#rebindListener(String, SlideDateTimeListener)}.
+ * A result that arrives while no listener is bound is kept until one is,
+ * and logs a warning, since a client that never rebinds never gets it.
+ * An entry is removed once the dialog is destroyed and its result has
+ * been delivered.</p>
+ *
+ * <p>The number of entries is bounded by {@link #setCapacity(int)}. When a
+ * new entry would exceed it, the least recently used entries are evicted:
+ * first those whose dialog has closed with a result that was never
+ * collected, then, only if every entry has an open dialog, the dialogs'
+ * own. An evicted dialog stays on screen, but its result is dropped. An
+ * entry counts as used when it is registered, created, rebound or
+ * delivers a result, so the order of eviction only depends on the order
+ * of those calls.</p>
+ *
+ * <p>Only used on the main thread.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class PickerRegistry
+{
+    private static final String TAG = "SlideDateTimePicker";
+
+    private static final int RESULT_NONE = 0;
+    private static final int RESULT_SET = 1;
+    private static final int RESULT_CANCEL = 2;
+    private static final int RESULT_RANGE_SET = 3;
+
+    static final int DEFAULT_CAPACITY = 8;
+
+    // In order of least to most recently used
+    private static final LinkedHashMap<String, Entry> sEntries =
+            new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private static int sCapacity = DEFAULT_CAPACITY;
+
+    private PickerRegistry() {}
+
+    static final class Entry
+    {
+        private final String mRequestKey;
+        private SlideDateTimeListener mListener;
+        private final PickerMetrics mMetrics;
+        private final AvailabilityProvider mAvailabilityProvider;
+        private boolean mIsDialogAlive;
+        private int mPendingResult = RESULT_NONE;
+        private long mPendingMillis;
+        private long mPendingEndMillis;
+        // The last intermediate selection, while no listener is bound
+        private boolean mHasPendingSelection;
+        private boolean mIsPendingSelectionRange;
+        private long mPendingSelectionMillis;
+        private long mPendingSelectionEndMillis;
+
+        private Entry(String requestKey, SlideDateTimeListener listener, PickerMetrics metrics,
+                AvailabilityProvider availabilityProvider)
+        {
+            mRequestKey = requestKey;
+            mListener = listener;
+            mMetrics = metrics;
+            mAvailabilityProvider = availabilityProvider;
+        }
+
+        PickerMetrics getMetrics()
+        {
+            return mMetrics;
+        }
+
+        AvailabilityProvider getAvailabilityProvider()
+        {
+            return mAvailabilityProvider;
+        }
+
+        private boolean isRemovable()
+        {
+            return !mIsDialogAlive && mPendingResult == RESULT_NONE && !mHasPendingSelection;
+        }
+
+        private void deliverPendingResult()
+        {
+            if (mListener == null)
+                return;
+
+            // The last intermediate selection always comes before the
+            // result
+            if (mHasPendingSelection)
+            {
+                mHasPendingSelection = false;
+
+                if (mIsPendingSelectionRange)
+                    mListener.onRangeChanging(mPendingSelectionMillis, mPendingSelectionEndMillis);
+                else
+                    mListener.onSelectionChanging(mPendingSelectionMillis);
+            }
+
+            if (mPendingResult == RESULT_NONE)
+                return;
+
+            int result = mPendingResult;
+            mPendingResult = RESULT_NONE;
+
+            if (result == RESULT_SET)
+                mListener.onDateTimeSet(new Date(mPendingMillis));
+            else if (result == RESULT_RANGE_SET)
+                mListener.onDateTimeRangeSet(new Date(mPendingMillis), new Date(mPendingEndMillis));
+            else
+                mListener.onDateTimeCancel();
+        }
+    }
+
+    /**
+     * Set the maximum number of entries, evicting any over it.
+     *
+     * @param capacity  at least 1
+     */
+    static void setCapacity(int capacity)
+    {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Registry capacity must be at least 1: " + capacity);
+
+        sCapacity = capacity;
+        trimToCapacity();
+    }
+
+    /**
+     * Add or replace the entry for a dialog that is about to be shown.
+     */
+    static Entry register(String requestKey, SlideDateTimeListener listener,
+            PickerMetrics metrics, AvailabilityProvider availabilityProvider)
+    {
+        Entry entry = new Entry(requestKey, listener, metrics, availabilityProvider);
+        entry.mIsDialogAlive = true;
+        put(entry);
+
+        return entry;
+    }
+
+    private static void put(Entry entry)
+    {
+        Entry replaced = sEntries.put(entry.mRequestKey, entry);
+
+        // A dialog still showing under the replaced entry no longer
+        // reaches the client.
+        if (replaced != null)
+            replaced.mListener = null;
+
+        trimToCapacity();
+    }
+
+    /**
+     * Evict the least recently used entries over the capacity, those
+     * without an open dialog first.
+     */
+    private static void trimToCapacity()
+    {
+        for (int pass = 0; pass < 2 && sEntries.size() > sCapacity; pass++)
+        {
+            Iterator<Entry> iterator = sEntries.values().iterator();
+
+            while (sEntries.size() > sCapacity && iterator.hasNext())
+            {
+                Entry entry = iterator.next();
+
+                if (pass == 0 && entry.mIsDialogAlive)
+                    continue;
+
+                iterator.remove();
+                entry.mListener = null;
+                entry.mPendingResult = RESULT_NONE;
+                entry.mHasPendingSelection = false;
+            }
+        }
+    }
+
+    /**
+     * Called when a dialog is created, including after the process was
+     * restarted, in which case this creates an empty entry for the client
+     * to rebind its listener to.
+     *
+     * @return the dialog's entry, which it passes back with its results
+     */
+    static Entry onDialogCreated(String requestKey)
+    {
+        Entry entry = sEntries.get(requestKey);
+
+        if (entry == null)
+        {
+            entry = new Entry(requestKey, null, null, null);
+            put(entry);
+        }
+
+        entry.mIsDialogAlive = true;
+
+        return entry;
+    }
+
+    /**
+     * Bind the listener for a request key, and deliver the result to it if
+     * the dialog has already closed.
+     *
+     * @return <tt>true</tt> if a dialog with this key is open or has a
+     *         result waiting
+     */
+    static boolean rebindListener(String requestKey, SlideDateTimeListener listener)
+    {
+        Entry entry = sEntries.get(requestKey);
+
+        // A dialog restored after the process was restarted registers
+        // itself in onCreate(), before the activity can rebind.
+        if (entry == null)
+            return false;
+
+        entry.mListener = listener;
+        entry.deliverPendingResult();
+        removeIfDone(requestKey, entry);
+
+        return true;
+    }
+
+    /**
+     * Drop the listener while its activity is being recreated.
+     */
+    static void releaseListener(Entry entry)
+    {
+        entry.mListener = null;
+    }
+
+    /**
+     * Deliver an intermediate selection, or keep it until a listener is
+     * bound again, replacing any kept before.
+     */
+    static void deliverSelectionChanging(Entry entry, long millis)
+    {
+        entry.mHasPendingSelection = true;
+        entry.mIsPendingSelectionRange = false;
+        entry.mPendingSelectionMillis = millis;
+        deliver(entry);
+    }
+
+    /**
+     * Deliver both ends of an intermediate range, or keep them until a
+     * listener is bound again, replacing any selection kept before.
+     */
+    static void deliverRangeChanging(Entry entry, long startMillis, long endMillis)
+    {
+        entry.mHasPendingSelection = true;
+        entry.mIsPendingSelectionRange = true;
+        entry.mPendingSelectionMillis = startMillis;
+        entry.mPendingSelectionEndMillis = endMillis;
+        deliver(entry);
+    }
+
+    static void deliverDateTimeSet(Entry entry, long millis)
+    {
+        entry.mPendingResult = RESULT_SET;
+        entry.mPendingMillis = millis;
+        deliver(entry);
+    }
+
+    static void deliverDateTimeRangeSet(Entry entry, long startMillis, long endMillis)
+    {
+        entry.mPendingResult = RESULT_RANGE_SET;
+        entry.mPendingMillis = startMillis;
+        entry.mPendingEndMillis = endMillis;
+        deliver(entry);
+    }
+
+    static void deliverCancel(Entry entry)
+    {
+        entry.mPendingResult = RESULT_CANCEL;
+        deliver(entry);
+    }
+
+    private static void deliver(Entry entry)
+    {
+        // The result of a dialog that was evicted or replaced has nowhere
+        // to go.
+        if (sEntries.get(entry.mRequestKey) != entry)
+        {
+            entry.mPendingResult = RESULT_NONE;
+            entry.mHasPendingSelection = false;
+            return;
+        }
+
+        if (entry.mListener == null && entry.mPendingResult != RESULT_NONE)
+        {
+            Log.w(TAG, "The dialog with request key \"" + entry.mRequestKey + "\" has a result but no "
+                    + "listener, so it is kept until one is bound. After the activity is recreated, "
+                    + "call SlideDateTimePicker.rebindListener() from its onCreate().");
+        }
+
+        entry.deliverPendingResult();
+    }
+
+    /**
+     * Called when the dialog is destroyed for good. The entry is kept
+     * until a pending result has been delivered.
+     */
+    static void onDialogDestroyed(Entry entry)
+    {
+        entry.mIsDialogAlive = false;
+        removeIfDone(entry.mRequestKey, entry);
+    }
+
+    private static void removeIfDone(String requestKey, Entry entry)
+    {
+        if (entry.isRemovable() && sEntries.get(requestKey) == entry)
+            sEntries.remove(requestKey);
+    }
+}
@@ -0,0 +1,387 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.TimeZone;
+
+/**
+ * <p>The date and time being picked, or both ends of a range, along with
+ * everything that keeps it valid: the client's bounds, blacked out and
+ * unavailable days, minute interval and time zone.</p>
+ *
+ * <p>Shared by {@link SlideDateTimeDialogFragment} and
+ * {@link SlideDateTimeView}, whose pickers and tabs {@link PickerController}
+ * keeps in step with it. Each change reports which parts of the selection ended up
+ * different from what the user picked, so that the host knows which
+ * pickers to set again.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class PickerSelection
+{
+    /** The day differs from the one the user picked. */
+    static final int DATE_CHANGED = 1;
+    /** The time differs from the one the user picked. */
+    static final int TIME_CHANGED = 1 << 1;
+
+    // Years on either side of the initial date covered by the time zone's
+    // transition table when there is no minimum or maximum date
+    private static final int ZONE_TABLE_YEARS = 5;
+
+    private final int mMinuteInterval;
+    private final TimeZone mTimeZone;
+    private final boolean mIsClientSpecifiedTimeZone;
+    private final ZoneTransitions mZoneTransitions;
+    private final int mDstGapPolicy;
+    private final int mDstOverlapPolicy;
+    private final DateTimeConstraints mConstraints;
+    private final DateTimeState mStartState;
+    // Only used in range mode
+    private final DateTimeState mEndState;
+    // The selection the pickers edit: mStartState, or mEndState while
+    // the end of a range is selected
+    private DateTimeState mState;
+    private AvailabilityCache mAvailabilityCache;
+    // The last offset shown on the time tab and its text
+    private int mTimeTabOffset;
+    private String mTimeTabOffsetText;
+    // The whole time tab text, rebuilt only when the time, offset or
+    // labels change
+    private TimeLabels mTimeTabLabels;
+    private int mTimeTabMinuteOfDay;
+    private String mTimeTabText;
+
+    /**
+     * @param config  the client's options
+     * @param availabilityProvider  may be null
+     * @param onMonthLoadedListener  called when a month of availability
+     *                               has loaded, after which the host
+     *                               should call {@link #onMonthLoaded()}
+     */
+    PickerSelection(PickerConfig config, AvailabilityProvider availabilityProvider,
+            AvailabilityCache.OnMonthLoadedListener onMonthLoadedListener)
+    {
+        TimeZone timeZone = config.getTimeZone();
+        mIsClientSpecifiedTimeZone = timeZone != null;
+        mTimeZone = timeZone != null ? timeZone : TimeZone.getDefault();
+        mMinuteInterval = config.getMinuteInterval();
+        mDstGapPolicy = config.getDstGapPolicy();
+        mDstOverlapPolicy = config.getDstOverlapPolicy();
+
+        long[] blackoutIntervals = config.getBlackoutIntervals();
+        mConstraints = new DateTimeConstraints(config.getMinDate(), config.getMaxDate(), mTimeZone,
+                mMinuteInterval, blackoutIntervals != null ?
+                        new BlackoutDates(blackoutIntervals) :
+                        BlackoutDates.NONE);
+
+        mStartState = createState(config.getInitialDate().getTime());
+        mEndState = config.isRangeMode() ? createState(config.getInitialEndDate().getTime()) : null;
+        mState = mStartState;
+        orderRange();
+
+        // Only the years that can be reached without scrolling far are
+        // worth a table; the rest fall back to the TimeZone itself.
+        int startYear = mConstraints.hasMinDate() ?
+                DateTimeState.civilYear(DateTimeState.civilFromDays(mConstraints.getMinEpochDay())) :
+                Math.max(CustomDatePicker.DEFAULT_START_YEAR, mState.getYear() - ZONE_TABLE_YEARS);
+        int endYear = mConstraints.hasMaxDate() ?
+                DateTimeState.civilYear(DateTimeState.civilFromDays(mConstraints.getMaxEpochDay())) :
+                Math.min(CustomDatePicker.DEFAULT_END_YEAR, mState.getYear() + ZONE_TABLE_YEARS);
+
+        mZoneTransitions = ZoneTransitions.forZone(mTimeZone, startYear, Math.max(startYear, endYear));
+
+        if (availabilityProvider != null)
+        {
+            mAvailabilityCache = new AvailabilityCache(availabilityProvider, onMonthLoadedListener);
+            mAvailabilityCache.setCurrentMonth(mState.getYear(), mState.getMonth());
+            mConstraints.setDayAvailability(mAvailabilityCache);
+        }
+    }
+
+    private DateTimeState createState(long millis)
+    {
+        DateTimeState state = new DateTimeState();
+        state.setFromMillis(millis, mTimeZone);
+
+        if (mMinuteInterval > 1)
+            state.roundToMinuteInterval(mMinuteInterval);
+
+        mConstraints.clamp(state);
+
+        return state;
+    }
+
+    /**
+     * Stop loading availability. Called when the host goes away, or is
+     * detached until {@link #resume()}.
+     */
+    void release()
+    {
+        if (mAvailabilityCache != null)
+            mAvailabilityCache.cancelAll();
+    }
+
+    /**
+     * Load availability again after {@link #release()}, starting with the
+     * month of the selection. Months that had loaded are still cached.
+     */
+    void resume()
+    {
+        if (mAvailabilityCache != null)
+            mAvailabilityCache.setCurrentMonth(mState.getYear(), mState.getMonth());
+    }
+
+    /**
+     * Set the selection to one saved from {@link #getStartLocalMillis()}
+     * and {@link #getEndLocalMillis()}, moved within the current bounds.
+     *
+     * @param startLocalMillis
+     * @param endLocalMillis  ignored unless in range mode
+     * @param isEndSelected  <tt>true</tt> if the end of the range was
+     *                       being edited
+     */
+    void restore(long startLocalMillis, long endLocalMillis, boolean isEndSelected)
+    {
+        mStartState.setFromLocalMillis(startLocalMillis);
+        mConstraints.clamp(mStartState);
+
+        if (mEndState != null)
+        {
+            mEndState.setFromLocalMillis(endLocalMillis);
+            mConstraints.clamp(mEndState);
+        }
+
+        orderRange();
+        mState = isEndSelected && mEndState != null ? mEndState : mStartState;
+        resume();
+    }
+
+    /**
+     * @return the date and time the pickers edit: the selection, or the
+     *         end of the range being edited in range mode
+     */
+    DateTimeState getState()
+    {
+        return mState;
+    }
+
+    /**
+     * @return the minimum and maximum date and time the client allows
+     */
+    DateTimeConstraints getConstraints()
+    {
+        return mConstraints;
+    }
+
+    int getMinuteInterval()
+    {
+        return mMinuteInterval;
+    }
+
+    boolean isRangeMode()
+    {
+        return mEndState != null;
+    }
+
+    boolean isEndSelected()
+    {
+        return mState == mEndState;
+    }
+
+    /**
+     * Switch the pickers to editing the start or the end of the range.
+     *
+     * @return <tt>true</tt> if the selection the pickers edit changed
+     */
+    boolean selectEnd(boolean isEnd)
+    {
+        DateTimeState state = isEnd ? mEndState : mStartState;
+
+        if (state == null || state == mState)
+            return false;
+
+        mState = state;
+
+        if (mAvailabilityCache != null)
+            mAvailabilityCache.setCurrentMonth(mState.getYear(), mState.getMonth());
+
+        return true;
+    }
+
+    /**
+     * Set the date the user picked, then move it within the bounds and
+     * off unavailable days.
+     *
+     * @param year
+     * @param month  the month of the year, 0-11
+     * @param day  the day of the month, 1-31
+     * @return the {@code _CHANGED} flags of what had to be moved
+     */
+    int setDate(int year, int month, int day)
+    {
+        mState.setDate(year, month, day);
+
+        int changes = validate();
+
+        // Load the month the user is on and prefetch its neighbours
+        if (mAvailabilityCache != null)
+            mAvailabilityCache.setCurrentMonth(mState.getYear(), mState.getMonth());
+
+        return changes;
+    }
+
+    /**
+     * Set the time the user picked, then move it within the bounds.
+     *
+     * @param hour  the hour of the day, 0-23
+     * @param minute  the minute of the hour, 0-59
+     * @return the {@code _CHANGED} flags of what had to be moved
+     */
+    int setTime(int hour, int minute)
+    {
+        mState.setTime(hour, minute);
+
+        return validate();
+    }
+
+    /**
+     * Move the selection off a day that the month that was just loaded
+     * says is unavailable.
+     *
+     * @return the {@code _CHANGED} flags of what had to be moved
+     */
+    int onMonthLoaded()
+    {
+        // The end of the range that is not being edited only has to stay
+        // valid.
+        if (mEndState != null)
+            mConstraints.clamp(mState == mStartState ? mEndState : mStartState);
+
+        int changes = validate();
+
+        if ((changes & DATE_CHANGED) != 0)
+            mAvailabilityCache.setCurrentMonth(mState.getYear(), mState.getMonth());
+
+        return changes;
+    }
+
+    private int validate()
+    {
+        int epochDay = mState.getEpochDay();
+        int changes = 0;
+
+        if (mConstraints.clamp(mState))
+            changes |= TIME_CHANGED;
+
+        if (orderRange() && mState == mEndState)
+            changes |= TIME_CHANGED;
+
+        if (mState.getEpochDay() != epochDay)
+            changes |= DATE_CHANGED;
+
+        return changes;
+    }
+
+    /**
+     * Keep the end of the range at or after its start, by moving the end
+     * to the start. This is checked after every change, so the end
+     * follows the start forward, and cannot be moved before it.
+     *
+     * @return <tt>true</tt> if the end was moved
+     */
+    private boolean orderRange()
+    {
+        if (mEndState == null || mEndState.getLocalMillis() >= mStartState.getLocalMillis())
+            return false;
+
+        mEndState.copyFrom(mStartState);
+
+        return true;
+    }
+
+    /**
+     * @return the selection, or the start of the range, as a local
+     *         wall-clock time, to be saved and passed back to
+     *         {@link #restore(long, long, boolean)}
+     */
+    long getStartLocalMillis()
+    {
+        return mStartState.getLocalMillis();
+    }
+
+    /**
+     * @return the end of the range as a local wall-clock time, only
+     *         meaningful in range mode
+     */
+    long getEndLocalMillis()
+    {
+        return mEndState.getLocalMillis();
+    }
+
+    /**
+     * @return the selection, or the start of the range, as milliseconds
+     *         since the epoch
+     */
+    long getStartMillis()
+    {
+        return toMillis(mStartState);
+    }
+
+    /**
+     * @return the end of the range as milliseconds since the epoch, only
+     *         meaningful in range mode
+     */
+    long getEndMillis()
+    {
+        return toMillis(mEndState);
+    }
+
+    /**
+     * @return the selection the pickers edit as milliseconds since the
+     *         epoch
+     */
+    long getSelectedMillis()
+    {
+        return toMillis(mState);
+    }
+
+    private long toMillis(DateTimeState state)
+    {
+        return mConstraints.clampMillis(state.toMillis(mZoneTransitions, mDstGapPolicy, mDstOverlapPolicy));
+    }
+
+    /**
+     * Return the text of the time tab. If the client specified a time
+     * zone, this is the time as it will be returned, after any DST gap
+     * has been resolved, followed by the zone's offset at that time.
+     *
+     * @param timeLabels  the labels in the time format being shown
+     * @return
+     */
+    String getTimeTabText(TimeLabels timeLabels)
+    {
+        if (!mIsClientSpecifiedTimeZone)
+            return timeLabels.get(mState.getMinuteOfDay());
+
+        long millis = mState.toMillis(mZoneTransitions, mDstGapPolicy, mDstOverlapPolicy);
+        int offset = mZoneTransitions.getOffset(millis);
+        long localMinute = DateTimeState.floorDiv(millis + offset, DateTimeState.MILLIS_PER_MINUTE);
+        int minuteOfDay = (int) (localMinute - DateTimeState.floorDiv(localMinute, DateTimeState.MINUTES_PER_DAY)
+                * DateTimeState.MINUTES_PER_DAY);
+
+        if (mTimeTabText != null && offset == mTimeTabOffset &&
+                minuteOfDay == mTimeTabMinuteOfDay && timeLabels == mTimeTabLabels)
+            return mTimeTabText;
+
+        if (mTimeTabOffsetText == null || offset != mTimeTabOffset)
+        {
+            mTimeTabOffset = offset;
+            mTimeTabOffsetText = ZoneTransitions.formatOffset(offset);
+        }
+
+        mTimeTabLabels = timeLabels;
+        mTimeTabMinuteOfDay = minuteOfDay;
+        mTimeTabText = timeLabels.get(minuteOfDay) + " " + mTimeTabOffsetText;
+
+        return mTimeTabText;
+    }
+}
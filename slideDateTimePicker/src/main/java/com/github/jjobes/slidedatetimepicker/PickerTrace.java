@@ -0,0 +1,108 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * <p>Marks the steps of showing the dialog as named sections for
+ * systrace, so that the time spent in {@code show()}, in each
+ * {@code onCreateView()} and in building the pickers can be measured on
+ * a device.</p>
+ *
+ * <p>{@code android.os.Trace} exists from API 18 on. Below that, each
+ * call is only a version check. Sections must be ended on the thread
+ * that began them, in reverse order.</p>
+ *
+ * <p>The show latency harness in the library's tests also times each
+ * section on the JVM, through a {@link Recorder}. No timestamps are taken
+ * unless one is set.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class PickerTrace
+{
+    static final String SHOW = "SlideDateTimePicker.show";
+    static final String PREWARM = "SlideDateTimePicker.prewarm";
+    static final String DIALOG_CREATE_VIEW = "SlideDateTimeDialogFragment.onCreateView";
+    static final String DATE_PAGE_BUILD = "DateFragment.buildPicker";
+    static final String TIME_PAGE_BUILD = "TimeFragment.buildPicker";
+    static final String DATE_PICKER_INIT = "CustomDatePicker.<init>";
+    static final String TIME_PICKER_INIT = "CustomTimePicker.<init>";
+
+    /**
+     * Receives the duration of each section as it ends.
+     */
+    interface Recorder
+    {
+        void onSection(String sectionName, long nanos);
+    }
+
+    private static final boolean IS_SUPPORTED =
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    // Deeper sections than this are not recorded
+    private static final int MAX_RECORDED_DEPTH = 8;
+
+    private static Recorder sRecorder;
+    private static final String[] sSectionNames = new String[MAX_RECORDED_DEPTH];
+    private static final long[] sSectionStartNanos = new long[MAX_RECORDED_DEPTH];
+    private static int sDepth;
+
+    private PickerTrace() {}
+
+    /**
+     * Set the recorder that times the sections that begin from now on, or
+     * null to stop timing them.
+     */
+    static void setRecorder(Recorder recorder)
+    {
+        sRecorder = recorder;
+        sDepth = 0;
+    }
+
+    static void begin(String sectionName)
+    {
+        if (IS_SUPPORTED)
+            beginSection(sectionName);
+
+        if (sRecorder != null)
+        {
+            if (sDepth < MAX_RECORDED_DEPTH)
+            {
+                sSectionNames[sDepth] = sectionName;
+                sSectionStartNanos[sDepth] = System.nanoTime();
+            }
+
+            sDepth++;
+        }
+    }
+
+    static void end()
+    {
+        // A section that began before the recorder was set has no depth
+        if (sRecorder != null && sDepth > 0)
+        {
+            sDepth--;
+
+            if (sDepth < MAX_RECORDED_DEPTH)
+                sRecorder.onSection(sSectionNames[sDepth], System.nanoTime() - sSectionStartNanos[sDepth]);
+        }
+
+        if (IS_SUPPORTED)
+            endSection();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void beginSection(String sectionName)
+    {
+        Trace.beginSection(sectionName);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void endSection()
+    {
+        Trace.endSection();
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import android.os.Handler;
+
+/**
+ * <p>Throttles the selections reported to
+ * {@link SlideDateTimeListener#onSelectionChanging(long)}, or to
+ * {@link SlideDateTimeListener#onRangeChanging(long, long)} in range mode,
+ * while the user scrolls the pickers.</p>
+ *
+ * <p>Each change only stores the latest value, as primitives, and
+ * schedules a delivery if none is pending. With
+ * {@link #STREAM_PER_FRAME} the value is delivered on the next frame, so a
+ * fling that changes the selection several times within a vsync reports
+ * it once. With {@link #STREAM_TRAILING_DEBOUNCE} it is delivered once the
+ * selection has not changed for the given delay. Either way, a value is
+ * only delivered if it differs from the one delivered before it.</p>
+ *
+ * <p>The latest value is never dropped: {@link #flush()} delivers it right
+ * away, and is called before the final result and when the picker goes
+ * away.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class SelectionStream
+{
+    static final int STREAM_NONE = 0;
+    static final int STREAM_PER_FRAME = 1;
+    static final int STREAM_TRAILING_DEBOUNCE = 2;
+
+    /**
+     * Receives the throttled selections.
+     */
+    interface Sink
+    {
+        void onSelectionChanging(long epochMillis);
+
+        void onRangeChanging(long startMillis, long endMillis);
+    }
+
+    private final int mPolicy;
+    private final int mDebounceMillis;
+    private final Sink mSink;
+    private final Runnable mDeliver = new Runnable() {
+
+        @Override
+        public void run()
+        {
+            mIsScheduled = false;
+            flush();
+        }
+    };
+    // Only one of these is used, depending on mPolicy
+    private TabUpdateScheduler.FrameCallbackCompat mFrameCallback;
+    private Handler mHandler;
+    private boolean mIsScheduled;
+    private boolean mHasPendingValue;
+    private boolean mIsPendingRange;
+    private long mPendingMillis;
+    private long mPendingEndMillis;
+    private boolean mHasDeliveredValue;
+    private long mDeliveredMillis;
+    private long mDeliveredEndMillis;
+
+    /**
+     * @param policy  {@link #STREAM_PER_FRAME} or
+     *                {@link #STREAM_TRAILING_DEBOUNCE}
+     * @param debounceMillis  the delay of {@link #STREAM_TRAILING_DEBOUNCE}
+     * @param sink
+     */
+    SelectionStream(int policy, int debounceMillis, Sink sink)
+    {
+        mPolicy = policy;
+        mDebounceMillis = debounceMillis;
+        mSink = sink;
+
+        if (policy == STREAM_PER_FRAME)
+            mFrameCallback = TabUpdateScheduler.newFrameCallback(mDeliver);
+        else
+            mHandler = new Handler();
+    }
+
+    static boolean isValidPolicy(int policy)
+    {
+        return policy == STREAM_NONE || policy == STREAM_PER_FRAME || policy == STREAM_TRAILING_DEBOUNCE;
+    }
+
+    /**
+     * Report the selection after a change by the user.
+     *
+     * @param epochMillis
+     */
+    void onSelectionChanged(long epochMillis)
+    {
+        mPendingMillis = epochMillis;
+        mIsPendingRange = false;
+        schedule();
+    }
+
+    /**
+     * Report both ends of the range after a change by the user, since a
+     * change to one end can also move the other.
+     *
+     * @param startMillis
+     * @param endMillis
+     */
+    void onRangeChanged(long startMillis, long endMillis)
+    {
+        mPendingMillis = startMillis;
+        mPendingEndMillis = endMillis;
+        mIsPendingRange = true;
+        schedule();
+    }
+
+    private void schedule()
+    {
+        mHasPendingValue = true;
+
+        if (mPolicy == STREAM_TRAILING_DEBOUNCE)
+        {
+            // Every change pushes the delivery back
+            mHandler.removeCallbacks(mDeliver);
+            mHandler.postDelayed(mDeliver, mDebounceMillis);
+            mIsScheduled = true;
+        }
+        else if (!mIsScheduled)
+        {
+            mFrameCallback.post();
+            mIsScheduled = true;
+        }
+    }
+
+    /**
+     * Deliver the pending selection now, if it differs from the last one
+     * delivered.
+     */
+    void flush()
+    {
+        if (mIsScheduled)
+        {
+            if (mPolicy == STREAM_TRAILING_DEBOUNCE)
+                mHandler.removeCallbacks(mDeliver);
+            else
+                mFrameCallback.remove();
+
+            mIsScheduled = false;
+        }
+
+        if (!mHasPendingValue)
+            return;
+
+        mHasPendingValue = false;
+
+        if (mHasDeliveredValue && mPendingMillis == mDeliveredMillis &&
+                (!mIsPendingRange || mPendingEndMillis == mDeliveredEndMillis))
+            return;
+
+        mHasDeliveredValue = true;
+        mDeliveredMillis = mPendingMillis;
+        mDeliveredEndMillis = mPendingEndMillis;
+
+        if (mIsPendingRange)
+            mSink.onRangeChanging(mPendingMillis, mPendingEndMillis);
+        else
+            mSink.onSelectionChanging(mPendingMillis);
+    }
+}
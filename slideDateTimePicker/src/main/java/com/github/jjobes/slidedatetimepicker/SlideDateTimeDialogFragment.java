@@ -1,31 +1,37 @@
 package com.github.jjobes.slidedatetimepicker;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-
-import android.annotation.SuppressLint;
-import android.app.Activity;
-import android.content.Context;
+import android.content.ComponentCallbacks2;
 import android.content.DialogInterface;
+import android.content.res.Configuration;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.v4.app.DialogFragment;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentManager;
 import android.support.v4.app.FragmentPagerAdapter;
-import android.text.format.DateFormat;
-import android.text.format.DateUtils;
+import android.support.v4.view.ViewPager;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.View.OnClickListener;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.Button;
 
 /**
  * <p>The {@code DialogFragment} that contains the {@link SlidingTabLayout}
  * and {@link CustomViewPager}.</p>
  *
- * <p>The {@code CustomViewPager} contains the {@link DateFragment} and {@link TimeFragment}.</p>
+ * <p>The {@code CustomViewPager} contains the {@link DateFragment} and {@link TimeFragment}.
+ * Only the page being shown has its picker built when the dialog opens. The
+ * other page is built once the main thread is idle, or as soon as the user
+ * starts to swipe to it, whichever comes first. Each picker is built from
+ * {@link DateTimeState}, so an off-screen page can also be released when
+ * memory runs low and rebuilt later.</p>
+ *
+ * <p>In range mode, a selector above the tabs switches both pages between
+ * the start and the end of the range, so a range is picked with a single
+ * dialog.</p>
  *
  * <p>This {@code DialogFragment} is managed by {@link SlideDateTimePicker}.</p>
  *
@@ -35,11 +41,22 @@ import android.widget.Button;
 public class SlideDateTimeDialogFragment extends DialogFragment implements DateFragment.DateChangedListener,
                                                                            TimeFragment.TimeChangedListener
 {
+    /**
+     * The prefix of each dialog's fragment tag, which is followed by
+     * {@code ':'} and the dialog's request key.
+     */
     public static final String TAG_SLIDE_DATE_TIME_DIALOG_FRAGMENT = "tagSlideDateTimeDialogFragment";
 
-    private static SlideDateTimeListener mListener;
+    static final int DATE_PAGE = 0;
+    static final int TIME_PAGE = 1;
 
-    private Context mContext;
+    // The client's listener is looked up in PickerRegistry by this key
+    // rather than held here, since this fragment outlives its activity.
+    private String mRequestKey;
+    // This dialog's entry in PickerRegistry, which its results go to
+    private PickerRegistry.Entry mRegistryEntry;
+    private PickerConfig mConfig;
+    private PickerMetrics mMetrics;
     private CustomViewPager mViewPager;
     private ViewPagerAdapter mViewPagerAdapter;
     private SlidingTabLayout mSlidingTabLayout;
@@ -47,18 +64,26 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
     private View mButtonVerticalDivider;
     private Button mOkButton;
     private Button mCancelButton;
-    private Date mInitialDate;
+    private View mRangeSelector;
+    private Button mRangeStartButton;
+    private Button mRangeEndButton;
     private int mTheme;
     private int mIndicatorColor;
-    private Date mMinDate;
-    private Date mMaxDate;
-    private boolean mIsClientSpecified24HourTime;
-    private boolean mIs24HourTime;
-    private Calendar mCalendar;
-    private int mDateFlags =
-        DateUtils.FORMAT_SHOW_WEEKDAY |
-        DateUtils.FORMAT_SHOW_DATE |
-        DateUtils.FORMAT_ABBREV_ALL;
+    private boolean mTrimOffscreenPage;
+    private DateFragment mDateFragment;
+    private TimeFragment mTimeFragment;
+    private PickerController mController;
+    private PickerSelection mSelection;
+    private TimeLabels mTimeLabels;
+    private TabUpdateScheduler mTabUpdateScheduler;
+    // Only used when a PickerMetrics is set
+    private long mShowNanos;
+    private boolean mIsFirstFrameReported;
+    private boolean mIsClosedReported;
+    private int mDateChangeCount;
+    private int mTimeChangeCount;
+    private int mTabUpdateCount;
+    private int mPastCoalescedTabUpdateCount;
 
     public SlideDateTimeDialogFragment()
     {
@@ -66,53 +91,28 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
     }
 
     /**
-     * <p>Return a new instance of {@code SlideDateTimeDialogFragment} with its bundle
-     * filled with the incoming arguments.</p>
+     * <p>Return a new instance of {@code SlideDateTimeDialogFragment} with
+     * the client's options in its bundle.</p>
      *
      * <p>Called by {@link SlideDateTimePicker#show()}.</p>
      *
-     * @param listener
-     * @param initialDate
-     * @param minDate
-     * @param maxDate
-     * @param isClientSpecified24HourTime
-     * @param is24HourTime
-     * @param theme
-     * @param indicatorColor
+     * @param config
      * @return
      */
-    public static SlideDateTimeDialogFragment newInstance(SlideDateTimeListener listener,
-            Date initialDate, Date minDate, Date maxDate, boolean isClientSpecified24HourTime,
-            boolean is24HourTime, int theme, int indicatorColor)
+    public static SlideDateTimeDialogFragment newInstance(PickerConfig config)
     {
-        mListener = listener;
-
         // Create a new instance of SlideDateTimeDialogFragment
         SlideDateTimeDialogFragment dialogFragment = new SlideDateTimeDialogFragment();
 
         // Store the arguments and attach the bundle to the fragment
         Bundle bundle = new Bundle();
-        bundle.putSerializable("initialDate", initialDate);
-        bundle.putSerializable("minDate", minDate);
-        bundle.putSerializable("maxDate", maxDate);
-        bundle.putBoolean("isClientSpecified24HourTime", isClientSpecified24HourTime);
-        bundle.putBoolean("is24HourTime", is24HourTime);
-        bundle.putInt("theme", theme);
-        bundle.putInt("indicatorColor", indicatorColor);
+        bundle.putParcelable("config", config);
         dialogFragment.setArguments(bundle);
 
         // Return the fragment with its bundle
         return dialogFragment;
     }
 
-    @Override
-    public void onAttach(Activity activity)
-    {
-        super.onAttach(activity);
-
-        mContext = activity;
-    }
-
     @Override
     public void onCreate(Bundle savedInstanceState)
     {
@@ -122,39 +122,165 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
 
         unpackBundle();
 
-        mCalendar = Calendar.getInstance();
-        mCalendar.setTime(mInitialDate);
+        // After the process was restarted, this creates an empty entry
+        // for the client to rebind its listener to. The metrics and
+        // availability provider are gone.
+        mRegistryEntry = PickerRegistry.onDialogCreated(mRequestKey);
+        AvailabilityProvider availabilityProvider = mRegistryEntry.getAvailabilityProvider();
+        mMetrics = mRegistryEntry.getMetrics();
 
-        switch (mTheme)
+        mController = new PickerController(mConfig, availabilityProvider, new SelectionStream.Sink() {
+
+            @Override
+            public void onSelectionChanging(long epochMillis)
+            {
+                PickerRegistry.deliverSelectionChanging(mRegistryEntry, epochMillis);
+            }
+
+            @Override
+            public void onRangeChanging(long startMillis, long endMillis)
+            {
+                PickerRegistry.deliverRangeChanging(mRegistryEntry, startMillis, endMillis);
+            }
+        }, mPickerHost);
+        mSelection = mController.getSelection();
+
+        setStyle(DialogFragment.STYLE_NO_TITLE, getDialogStyle(mTheme));
+    }
+
+    /**
+     * Return the fragment tag of the dialog shown with the given request
+     * key.
+     */
+    static String getFragmentTag(String requestKey)
+    {
+        return TAG_SLIDE_DATE_TIME_DIALOG_FRAGMENT + ":" + requestKey;
+    }
+
+    /**
+     * Return the dialog style for the given {@code SlideDateTimePicker} theme.
+     */
+    static int getDialogStyle(int theme)
+    {
+        switch (theme)
         {
         case SlideDateTimePicker.HOLO_DARK:
-            setStyle(DialogFragment.STYLE_NO_TITLE, android.R.style.Theme_Holo_Dialog_NoActionBar);
-            break;
+            return android.R.style.Theme_Holo_Dialog_NoActionBar;
         case SlideDateTimePicker.HOLO_LIGHT:
-            setStyle(DialogFragment.STYLE_NO_TITLE, android.R.style.Theme_Holo_Light_Dialog_NoActionBar);
-            break;
+            return android.R.style.Theme_Holo_Light_Dialog_NoActionBar;
         default:  // if no theme was specified, default to holo light
-            setStyle(DialogFragment.STYLE_NO_TITLE, android.R.style.Theme_Holo_Light_Dialog_NoActionBar);
+            return android.R.style.Theme_Holo_Light_Dialog_NoActionBar;
         }
     }
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState)
     {
-        View view = inflater.inflate(R.layout.slide_date_time_picker, container);
+        PickerTrace.begin(PickerTrace.DIALOG_CREATE_VIEW);
+
+        try
+        {
+            // Use the layout inflated by SlideDateTimePicker.prewarm() if
+            // there is one.
+            View view = DialogPrewarmer.takeDialogView(getActivity(), mTheme);
+
+            if (view == null)
+                view = inflater.inflate(R.layout.slide_date_time_picker, container);
+
+            // Resolved here rather than in onCreate() since this fragment is
+            // retained, and the locale may have changed since it was created.
+            mTimeLabels = PickerController.resolveTimeLabels(getActivity(), mConfig);
+            mTabUpdateScheduler = new TabUpdateScheduler(new TabUpdateScheduler.TabRenderer() {
+
+                @Override
+                public void renderDateTab()
+                {
+                    updateDateTab();
+                }
+
+                @Override
+                public void renderTimeTab()
+                {
+                    updateTimeTab();
+                }
+            });
+
+            setupViews(view);
+            customizeViews();
+            initViewPager();
+            initTabs();
+            initButtons();
+
+            // The page being shown builds its picker as soon as its view is
+            // created. Build the other one after the dialog's first frame.
+            Looper.myQueue().addIdleHandler(mPagePrefetcher);
+
+            if (mTrimOffscreenPage)
+                getActivity().registerComponentCallbacks(mMemoryCallbacks);
+
+            if (mMetrics != null && !mIsFirstFrameReported)
+                observeFirstFrame(view);
+
+            return view;
+        }
+        finally
+        {
+            PickerTrace.end();
+        }
+    }
+
+    @Override
+    public void onDestroy()
+    {
+        mController.release();
 
-        setupViews(view);
-        customizeViews();
-        initViewPager();
-        initTabs();
-        initButtons();
+        PickerRegistry.onDialogDestroyed(mRegistryEntry);
+
+        super.onDestroy();
+    }
+
+    /**
+     * Drop the client's listener along with the activity it most likely
+     * belongs to. If the activity is only being recreated, the new one
+     * binds its listener with
+     * {@link SlideDateTimePicker#rebindListener(String, SlideDateTimeListener)}.
+     */
+    @Override
+    public void onDetach()
+    {
+        PickerRegistry.releaseListener(mRegistryEntry);
 
-        return view;
+        super.onDetach();
     }
 
     @Override
     public void onDestroyView()
     {
+        // Keep the count across the views created for each configuration
+        mPastCoalescedTabUpdateCount += mTabUpdateScheduler.getCoalescedUpdateCount();
+        mTabUpdateScheduler.cancel();
+        mController.detachViews();
+        Looper.myQueue().removeIdleHandler(mPagePrefetcher);
+
+        if (mTrimOffscreenPage)
+            getActivity().unregisterComponentCallbacks(mMemoryCallbacks);
+
+        mDateFragment = null;
+        mTimeFragment = null;
+
+        // This fragment is retained, so drop the views of the activity
+        // that is going away.
+        mViewPager = null;
+        mViewPagerAdapter = null;
+        mSlidingTabLayout = null;
+        mButtonHorizontalDivider = null;
+        mButtonVerticalDivider = null;
+        mOkButton = null;
+        mCancelButton = null;
+        mRangeSelector = null;
+        mRangeStartButton = null;
+        mRangeEndButton = null;
+
         // Workaround for a bug in the compatibility library where calling
         // setRetainInstance(true) does not retain the instance across
         // orientation changes.
@@ -168,15 +294,13 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
 
     private void unpackBundle()
     {
-        Bundle args = getArguments();
-
-        mInitialDate = (Date) args.getSerializable("initialDate");
-        mMinDate = (Date) args.getSerializable("minDate");
-        mMaxDate = (Date) args.getSerializable("maxDate");
-        mIsClientSpecified24HourTime = args.getBoolean("isClientSpecified24HourTime");
-        mIs24HourTime = args.getBoolean("is24HourTime");
-        mTheme = args.getInt("theme");
-        mIndicatorColor = args.getInt("indicatorColor");
+        mConfig = getArguments().getParcelable("config");
+
+        mRequestKey = mConfig.getRequestKey();
+        mTheme = mConfig.getTheme();
+        mIndicatorColor = mConfig.getIndicatorColor();
+        mTrimOffscreenPage = mConfig.isTrimOffscreenPage();
+        mShowNanos = mConfig.getShowNanos();
     }
 
     private void setupViews(View v)
@@ -187,6 +311,9 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
         mButtonVerticalDivider = v.findViewById(R.id.buttonVerticalDivider);
         mOkButton = (Button) v.findViewById(R.id.okButton);
         mCancelButton = (Button) v.findViewById(R.id.cancelButton);
+        mRangeSelector = v.findViewById(R.id.rangeSelector);
+        mRangeStartButton = (Button) v.findViewById(R.id.rangeStartButton);
+        mRangeEndButton = (Button) v.findViewById(R.id.rangeEndButton);
     }
 
     private void customizeViews()
@@ -224,6 +351,26 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
         // fill all available horizontal space.
         mSlidingTabLayout.setCustomTabView(R.layout.custom_tab, R.id.tabText);
         mSlidingTabLayout.setViewPager(mViewPager);
+
+        // Build a page that was not built yet (or was released) as soon
+        // as the user starts to swipe or jump to it.
+        mSlidingTabLayout.setOnPageChangeListener(new ViewPager.SimpleOnPageChangeListener() {
+
+            @Override
+            public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels)
+            {
+                buildPage(position);
+
+                if (positionOffset > 0)
+                    buildPage(position + 1);
+            }
+
+            @Override
+            public void onPageSelected(int position)
+            {
+                buildPage(position);
+            }
+        });
     }
 
     private void initTabs()
@@ -242,13 +389,19 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
             @Override
             public void onClick(View v)
             {
-                if (mListener == null)
+                mController.flushSelectionStream();
+
+                if (mSelection.isRangeMode())
                 {
-                    throw new NullPointerException(
-                            "Listener no longer exists for mOkButton");
+                    PickerRegistry.deliverDateTimeRangeSet(mRegistryEntry,
+                            mSelection.getStartMillis(), mSelection.getEndMillis());
+                }
+                else
+                {
+                    PickerRegistry.deliverDateTimeSet(mRegistryEntry, mSelection.getStartMillis());
                 }
 
-                mListener.onDateTimeSet(new Date(mCalendar.getTimeInMillis()));
+                reportClosed(true);
 
                 dismiss();
             }
@@ -259,24 +412,25 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
             @Override
             public void onClick(View v)
             {
-                if (mListener == null)
-                {
-                    throw new NullPointerException(
-                            "Listener no longer exists for mCancelButton");
-                }
-
-                mListener.onDateTimeCancel();
+                mController.flushSelectionStream();
+                PickerRegistry.deliverCancel(mRegistryEntry);
+                reportClosed(false);
 
                 dismiss();
             }
         });
+
+        mController.attachViews(mTabUpdateScheduler, mRangeSelector, mRangeStartButton, mRangeEndButton);
     }
 
     /**
-     * <p>The callback used by the DatePicker to update {@code mCalendar} as
-     * the user changes the date. Each time this is called, we also update
-     * the text on the date tab to reflect the date the user has currenly
-     * selected.</p>
+     * <p>The callback used by the DatePicker to update the selection as
+     * the user changes the date. Each time this is called, we also mark
+     * the date tab dirty so that its text is updated on the next frame to
+     * reflect the date the user has currently selected.</p>
+     *
+     * <p>The time allowed can differ on the new day, so the time is
+     * clamped to the bounds and the time page is limited to them.</p>
      *
      * <p>Implements the {@link DateFragment.DateChangedListener}
      * interface.</p>
@@ -284,16 +438,19 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
     @Override
     public void onDateChanged(int year, int month, int day)
     {
-        mCalendar.set(year, month, day);
-
-        updateDateTab();
+        mDateChangeCount++;
+        mController.onDateChanged(year, month, day);
     }
 
     /**
-     * <p>The callback used by the TimePicker to update {@code mCalendar} as
-     * the user changes the time. Each time this is called, we also update
-     * the text on the time tab to reflect the time the user has currenly
-     * selected.</p>
+     * <p>The callback used by the TimePicker to update the selection as
+     * the user changes the time. Each time this is called, we also mark
+     * the time tab dirty so that its text is updated on the next frame to
+     * reflect the time the user has currently selected.</p>
+     *
+     * <p>The time picker is already limited to the times allowed on the
+     * selected day, but the time is clamped here as well so that the
+     * selection can never leave the bounds.</p>
      *
      * <p>Implements the {@link TimeFragment.TimeChangedListener}
      * interface.</p>
@@ -301,41 +458,208 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
     @Override
     public void onTimeChanged(int hour, int minute)
     {
-        mCalendar.set(Calendar.HOUR_OF_DAY, hour);
-        mCalendar.set(Calendar.MINUTE, minute);
+        mTimeChangeCount++;
+        mController.onTimeChanged(hour, minute);
+    }
 
-        updateTimeTab();
+    /**
+     * @return the date and time currently selected in the dialog, or the
+     *         end of the range being edited in range mode, from which the
+     *         pages build their pickers
+     */
+    DateTimeState getState()
+    {
+        return mSelection.getState();
     }
 
-    private void updateDateTab()
+    /**
+     * @return the client's options, which the pages read instead of
+     *         having bundles of their own
+     */
+    PickerConfig getConfig()
     {
-        mSlidingTabLayout.setTabText(0, DateUtils.formatDateTime(
-                mContext, mCalendar.getTimeInMillis(), mDateFlags));
+        return mConfig;
     }
 
-    @SuppressLint("SimpleDateFormat")
-    private void updateTimeTab()
+    /**
+     * @return the minimum and maximum date and time the client allows
+     */
+    DateTimeConstraints getConstraints()
     {
-        if (mIsClientSpecified24HourTime)
+        return mSelection.getConstraints();
+    }
+
+    /**
+     * @return <tt>true</tt> if the given page is the one being shown
+     */
+    boolean isCurrentPage(int position)
+    {
+        return mViewPager != null && mViewPager.getCurrentItem() == position;
+    }
+
+    /**
+     * Build the picker of the given page if the page has a view and its
+     * picker is not built yet.
+     *
+     * @return <tt>true</tt> if the page now holds its picker
+     */
+    private boolean buildPage(int position)
+    {
+        switch (position)
         {
-            SimpleDateFormat formatter;
+        case DATE_PAGE:
+            return mDateFragment != null && mDateFragment.buildPicker();
+        case TIME_PAGE:
+            return mTimeFragment != null && mTimeFragment.buildPicker();
+        default:
+            return false;
+        }
+    }
 
-            if (mIs24HourTime)
-            {
-                formatter = new SimpleDateFormat("HH:mm");
-                mSlidingTabLayout.setTabText(1, formatter.format(mCalendar.getTime()));
-            }
-            else
-            {
-                formatter = new SimpleDateFormat("h:mm aa");
-                mSlidingTabLayout.setTabText(1, formatter.format(mCalendar.getTime()));
-            }
+    /**
+     * Release the picker of the page that is not being shown.
+     */
+    private void releaseOffscreenPage()
+    {
+        if (mDateFragment != null && !isCurrentPage(DATE_PAGE))
+            mDateFragment.releasePicker();
+
+        if (mTimeFragment != null && !isCurrentPage(TIME_PAGE))
+            mTimeFragment.releasePicker();
+    }
+
+    /**
+     * Builds the pages that are not built yet once the main thread is idle.
+     * The pages only get their views during the dialog's first layout, so
+     * until then this stays registered and waits for the next idle time.
+     */
+    private final MessageQueue.IdleHandler mPagePrefetcher = new MessageQueue.IdleHandler() {
+
+        @Override
+        public boolean queueIdle()
+        {
+            boolean isDatePageBuilt = buildPage(DATE_PAGE);
+            boolean isTimePageBuilt = buildPage(TIME_PAGE);
+
+            return !(isDatePageBuilt && isTimePageBuilt);
+        }
+    };
+
+    /**
+     * Sets the pages' pickers again when the selection was moved. The
+     * pages keep their pickers.
+     */
+    private final PickerController.Host mPickerHost = new PickerController.Host() {
+
+        @Override
+        public void updateDatePicker()
+        {
+            if (mDateFragment != null)
+                mDateFragment.updatePicker();
         }
-        else  // display time using the device's default 12/24 hour format preference
+
+        @Override
+        public void updateTimePicker()
+        {
+            if (mTimeFragment != null)
+                mTimeFragment.updatePicker();
+        }
+    };
+
+    /**
+     * Registered while the dialog is showing if the client asked for the
+     * off-screen page to be released under memory pressure.
+     */
+    private final ComponentCallbacks2 mMemoryCallbacks = new ComponentCallbacks2() {
+
+        @Override
+        public void onTrimMemory(int level)
+        {
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+                releaseOffscreenPage();
+        }
+
+        @Override
+        public void onLowMemory()
         {
-            mSlidingTabLayout.setTabText(1, DateFormat.getTimeFormat(
-                    mContext).format(mCalendar.getTimeInMillis()));
+            releaseOffscreenPage();
         }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {}
+    };
+
+    /**
+     * @return the number of tab text updates that were skipped because
+     *         an update for the same tab was already pending in the
+     *         current frame
+     */
+    int getCoalescedTabUpdateCount()
+    {
+        int count = mPastCoalescedTabUpdateCount;
+
+        if (mTabUpdateScheduler != null)
+            count += mTabUpdateScheduler.getCoalescedUpdateCount();
+
+        return count;
+    }
+
+    /**
+     * @return the client's metrics listener, or null if none was set
+     */
+    PickerMetrics getMetrics()
+    {
+        return mMetrics;
+    }
+
+    /**
+     * Report the time from {@code show()} to the dialog's first frame.
+     */
+    private void observeFirstFrame(final View view)
+    {
+        view.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+
+            @Override
+            public boolean onPreDraw()
+            {
+                view.getViewTreeObserver().removeOnPreDrawListener(this);
+
+                if (mMetrics != null && !mIsFirstFrameReported)
+                {
+                    mIsFirstFrameReported = true;
+                    mMetrics.onFirstFrame(System.nanoTime() - mShowNanos);
+                }
+
+                return true;
+            }
+        });
+    }
+
+    private void reportClosed(boolean isDateTimeSet)
+    {
+        if (mMetrics == null || mIsClosedReported)
+            return;
+
+        mIsClosedReported = true;
+        mMetrics.onClosed(
+                isDateTimeSet,
+                System.nanoTime() - mShowNanos,
+                mDateChangeCount,
+                mTimeChangeCount,
+                mTabUpdateCount,
+                getCoalescedTabUpdateCount());
+    }
+
+    private void updateDateTab()
+    {
+        mTabUpdateCount++;
+        mSlidingTabLayout.setTabText(0, mController.getDateTabText(getActivity()));
+    }
+
+    private void updateTimeTab()
+    {
+        mTabUpdateCount++;
+        mSlidingTabLayout.setTabText(1, mSelection.getTimeTabText(mTimeLabels));
     }
 
     /**
@@ -350,13 +674,9 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
     {
         super.onCancel(dialog);
 
-        if (mListener == null)
-        {
-            throw new NullPointerException(
-                    "Listener no longer exists in onCancel()");
-        }
-
-        mListener.onDateTimeCancel();
+        mController.flushSelectionStream();
+        PickerRegistry.deliverCancel(mRegistryEntry);
+        reportClosed(false);
     }
 
     private class ViewPagerAdapter extends FragmentPagerAdapter
@@ -371,23 +691,12 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
         {
             switch (position)
             {
-            case 0:
-                DateFragment dateFragment = DateFragment.newInstance(
-                    mTheme,
-                    mCalendar.get(Calendar.YEAR),
-                    mCalendar.get(Calendar.MONTH),
-                    mCalendar.get(Calendar.DAY_OF_MONTH),
-                    mMinDate,
-                    mMaxDate);
+            case DATE_PAGE:
+                DateFragment dateFragment = DateFragment.newInstance();
                 dateFragment.setTargetFragment(SlideDateTimeDialogFragment.this, 100);
                 return dateFragment;
-            case 1:
-                TimeFragment timeFragment = TimeFragment.newInstance(
-                    mTheme,
-                    mCalendar.get(Calendar.HOUR_OF_DAY),
-                    mCalendar.get(Calendar.MINUTE),
-                    mIsClientSpecified24HourTime,
-                    mIs24HourTime);
+            case TIME_PAGE:
+                TimeFragment timeFragment = TimeFragment.newInstance();
                 timeFragment.setTargetFragment(SlideDateTimeDialogFragment.this, 200);
                 return timeFragment;
             default:
@@ -395,6 +704,24 @@ public class SlideDateTimeDialogFragment extends DialogFragment implements DateF
             }
         }
 
+        /**
+         * Keep a reference to each page, including the ones the
+         * {@code FragmentManager} restored without calling
+         * {@link #getItem(int)}.
+         */
+        @Override
+        public Object instantiateItem(ViewGroup container, int position)
+        {
+            Fragment fragment = (Fragment) super.instantiateItem(container, position);
+
+            if (position == DATE_PAGE)
+                mDateFragment = (DateFragment) fragment;
+            else if (position == TIME_PAGE)
+                mTimeFragment = (TimeFragment) fragment;
+
+            return fragment;
+        }
+
         @Override
         public int getCount()
         {
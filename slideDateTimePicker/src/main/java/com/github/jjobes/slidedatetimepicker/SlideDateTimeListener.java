@@ -11,6 +11,14 @@ import java.util.Date;
  * This is called when the user presses the dialog's Cancel button,
  * touches outside the dialog or presses the device's Back button.</p>
  *
+ * <p>In range mode, {@code onDateTimeRangeSet()} is called instead of
+ * {@code onDateTimeSet()}.</p>
+ *
+ * <p>Overriding {@code onSelectionChanging()} is also optional, and only
+ * has an effect once {@link SlideDateTimePicker#setStreamPolicy(int, int)}
+ * has been called. In range mode, {@code onRangeChanging()} is called
+ * instead.</p>
+ *
  * @author jjobes
  *
  */
@@ -25,6 +33,51 @@ public abstract class SlideDateTimeListener
      */
     public abstract void onDateTimeSet(Date date);
 
+    /**
+     * Informs the client when the user presses "OK" in range mode.
+     * This override is only needed for
+     * {@link SlideDateTimePicker#setRangeMode(boolean)}.
+     *
+     * @param start  The start of the range the user has selected.
+     * @param end  The end of the range, never before {@code start}.
+     */
+    public void onDateTimeRangeSet(Date start, Date end)
+    {
+
+    }
+
+    /**
+     * Informs the client of the selection while the user is still
+     * changing it, as often as the stream policy passed to
+     * {@link SlideDateTimePicker#setStreamPolicy(int, int)} allows. The
+     * last selection is always reported, before {@code onDateTimeSet()}
+     * or {@code onDateTimeCancel()}. In range mode,
+     * {@link #onRangeChanging(long, long)} is called instead.
+     *
+     * @param epochMillis  The selection in milliseconds since the epoch,
+     *                     as it would be returned by {@code onDateTimeSet()}.
+     */
+    public void onSelectionChanging(long epochMillis)
+    {
+
+    }
+
+    /**
+     * Informs the client of both ends of the range while the user is
+     * still changing it, in range mode, as {@code onSelectionChanging()}
+     * does otherwise. Both ends are always reported, since moving the
+     * start past the end also moves the end.
+     *
+     * @param startMillis  The start of the range in milliseconds since
+     *                     the epoch.
+     * @param endMillis  The end of the range, never before
+     *                   {@code startMillis}.
+     */
+    public void onRangeChanging(long startMillis, long endMillis)
+    {
+
+    }
+
     /**
      * Informs the client when the user cancels the
      * dialog by pressing Cancel, touching outside
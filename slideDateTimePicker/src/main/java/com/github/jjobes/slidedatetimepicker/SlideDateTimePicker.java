@@ -1,7 +1,10 @@
 package com.github.jjobes.slidedatetimepicker;
 
 import java.util.Date;
+import java.util.TimeZone;
 
+import android.app.Activity;
+import android.content.Context;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentManager;
 import android.support.v4.app.FragmentTransaction;
@@ -13,6 +16,15 @@ import android.support.v4.app.FragmentTransaction;
  * <p>It also implements a Builder API that offers more convenient
  * object creation.</p>
  *
+ * <p>The dialog survives rotation, but it does not keep the listener set
+ * with {@link #setListener(SlideDateTimeListener)}, since that listener
+ * usually belongs to the activity being destroyed. A client that shows
+ * the dialog must call
+ * {@link #rebindListener(String, SlideDateTimeListener)} with the same
+ * request key from its activity's {@code onCreate()}. Otherwise a result
+ * picked after a rotation is never delivered, and only a warning is
+ * logged.</p>
+ *
  * @author jjobes
  *
  */
@@ -21,35 +33,84 @@ public class SlideDateTimePicker
     public static final int HOLO_DARK = 1;
     public static final int HOLO_LIGHT = 2;
 
+    /**
+     * A time skipped when the clocks go forward is moved forward by the
+     * length of the gap, so 2:30 becomes 3:30. This is what a lenient
+     * {@code Calendar} does, and the default.
+     */
+    public static final int DST_GAP_SHIFT_FORWARD = ZoneTransitions.DST_GAP_SHIFT_FORWARD;
+    /**
+     * A time skipped when the clocks go forward is moved to the first
+     * time after the gap, so 2:30 becomes 3:00.
+     */
+    public static final int DST_GAP_NEXT_VALID_TIME = ZoneTransitions.DST_GAP_NEXT_VALID_TIME;
+    /**
+     * A time repeated when the clocks go back resolves to its first
+     * occurrence, before the change. This is what a lenient
+     * {@code Calendar} does, and the default.
+     */
+    public static final int DST_OVERLAP_EARLIER = ZoneTransitions.DST_OVERLAP_EARLIER;
+    /**
+     * A time repeated when the clocks go back resolves to its second
+     * occurrence, after the change.
+     */
+    public static final int DST_OVERLAP_LATER = ZoneTransitions.DST_OVERLAP_LATER;
+
+    /**
+     * {@link SlideDateTimeListener#onSelectionChanging(long)} is not
+     * called. The default.
+     */
+    public static final int STREAM_NONE = SelectionStream.STREAM_NONE;
+    /**
+     * {@link SlideDateTimeListener#onSelectionChanging(long)} is called at
+     * most once per frame while the selection changes.
+     */
+    public static final int STREAM_PER_FRAME = SelectionStream.STREAM_PER_FRAME;
+    /**
+     * {@link SlideDateTimeListener#onSelectionChanging(long)} is called once
+     * the selection has not changed for the given number of milliseconds.
+     */
+    public static final int STREAM_TRAILING_DEBOUNCE = SelectionStream.STREAM_TRAILING_DEBOUNCE;
+
+    /**
+     * The request key used when the client does not set one.
+     */
+    public static final String DEFAULT_REQUEST_KEY = "SlideDateTimePicker";
+
     private FragmentManager mFragmentManager;
     private SlideDateTimeListener mListener;
+    private String mRequestKey = DEFAULT_REQUEST_KEY;
     private Date mInitialDate;
+    private Date mInitialEndDate;
+    private boolean mIsRangeMode;
     private Date mMinDate;
     private Date mMaxDate;
     private boolean mIsClientSpecified24HourTime;
     private boolean mIs24HourTime;
     private int mTheme;
     private int mIndicatorColor;
+    private boolean mTrimOffscreenPage;
+    private int mMinuteInterval = 1;
+    private TimeZone mTimeZone;
+    private int mDstGapPolicy = DST_GAP_SHIFT_FORWARD;
+    private int mDstOverlapPolicy = DST_OVERLAP_EARLIER;
+    private int mStreamPolicy = STREAM_NONE;
+    private int mStreamDebounceMillis;
+    private PickerMetrics mMetrics;
+    private AvailabilityProvider mAvailabilityProvider;
+    // [start, end] pairs of milliseconds since the epoch
+    private long[] mBlackoutRanges;
+    private int mBlackoutRangeCount;
 
     /**
      * Creates a new instance of {@code SlideDateTimePicker}.
      *
      * @param fm  The {@code FragmentManager} from the calling activity that is used
-     *            internally to show the {@code DialogFragment}.
+     *            internally to show the {@code DialogFragment}, or null if the
+     *            picker is only bound to a {@link SlideDateTimeView}.
      */
     public SlideDateTimePicker(FragmentManager fm)
     {
-        // See if there are any DialogFragments from the FragmentManager
-        FragmentTransaction ft = fm.beginTransaction();
-        Fragment prev = fm.findFragmentByTag(SlideDateTimeDialogFragment.TAG_SLIDE_DATE_TIME_DIALOG_FRAGMENT);
-
-        // Remove if found
-        if (prev != null)
-        {
-            ft.remove(prev);
-            ft.commit();
-        }
-
         mFragmentManager = fm;
     }
 
@@ -57,7 +118,10 @@ public class SlideDateTimePicker
      * <p>Sets the listener that is used to inform the client when
      * the user selects a new date and time.</p>
      *
-     * <p>This must be called before {@link #show()}.</p>
+     * <p>This must be called before {@link #show()}. The dialog drops
+     * this listener when its activity is recreated, so also bind it again
+     * with {@link #rebindListener(String, SlideDateTimeListener)} from
+     * the activity's {@code onCreate()}.</p>
      *
      * @param listener
      */
@@ -66,6 +130,29 @@ public class SlideDateTimePicker
         mListener = listener;
     }
 
+    /**
+     * <p>Sets the key that identifies this dialog when its listener is
+     * bound again with {@link #rebindListener(String, SlideDateTimeListener)}.</p>
+     *
+     * <p>Optional. Dialogs with different keys can be open at the same
+     * time, for example one for each field of a form, and each result
+     * goes to the listener of the dialog it came from. Showing a dialog
+     * replaces any dialog already showing with the same key. Defaults to
+     * {@link #DEFAULT_REQUEST_KEY}.</p>
+     *
+     * @param requestKey
+     */
+    public void setRequestKey(String requestKey)
+    {
+        if (requestKey == null)
+        {
+            throw new NullPointerException(
+                    "Attempting to set a null request key on SlideDateTimePicker");
+        }
+
+        mRequestKey = requestKey;
+    }
+
     /**
      * <p>Sets the initial date and time to display in the date
      * and time pickers.</p>
@@ -81,6 +168,37 @@ public class SlideDateTimePicker
         mInitialDate = initialDate;
     }
 
+    /**
+     * <p>Lets the user pick a start and an end date and time in the same
+     * dialog. A selector above the tabs switches the date and time pickers
+     * between the two. The end is kept at or after the start: it moves
+     * forward with the start, and cannot be moved before it.</p>
+     *
+     * <p>The result is passed to
+     * {@link SlideDateTimeListener#onDateTimeRangeSet(Date, Date)} instead
+     * of {@code onDateTimeSet()}. The initial date set with
+     * {@link #setInitialDate(Date)} is the initial start of the range.</p>
+     *
+     * @param isRangeMode
+     */
+    public void setRangeMode(boolean isRangeMode)
+    {
+        mIsRangeMode = isRangeMode;
+    }
+
+    /**
+     * <p>Sets the initial end of the range in range mode.</p>
+     *
+     * <p>If this method is not called, the range starts and ends on the
+     * initial date.</p>
+     *
+     * @param initialEndDate
+     */
+    public void setInitialEndDate(Date initialEndDate)
+    {
+        mInitialEndDate = initialEndDate;
+    }
+
     /**
      * <p>Sets the minimum date that the DatePicker should show.</p>
      *
@@ -105,6 +223,62 @@ public class SlideDateTimePicker
         mMaxDate = maxDate;
     }
 
+    /**
+     * <p>Prevents the user from selecting any day from the one containing
+     * {@code start} to the one containing {@code end}, inclusive. When the
+     * user scrolls onto a blacked out day, the DatePicker moves on to the
+     * next available day in the same direction. If the initial date is
+     * blacked out, the next available day is shown instead.</p>
+     *
+     * <p>Ranges may overlap and may be added in any order. They are
+     * stored as one interval per range rather than per day, so that many
+     * thousands of them can be added.</p>
+     *
+     * <p>This must be called before {@link #show()}.</p>
+     *
+     * @param start  the first blacked out instant
+     * @param end  the last blacked out instant, not before {@code start}
+     */
+    public void addBlackoutRange(Date start, Date end)
+    {
+        mBlackoutRanges = BlackoutDates.appendRange(mBlackoutRanges, mBlackoutRangeCount,
+                start.getTime(), end.getTime());
+        mBlackoutRangeCount++;
+    }
+
+    /**
+     * <p>Prevents the user from selecting the day containing {@code date}.</p>
+     *
+     * @param date
+     * @see #addBlackoutRange(Date, Date)
+     */
+    public void addBlackoutDate(Date date)
+    {
+        addBlackoutRange(date, date);
+    }
+
+    /**
+     * <p>Sets a provider that decides which days can be selected, a month
+     * at a time, in addition to the minimum, maximum and blackout dates.
+     * It is called on a background thread as the user scrolls, and the
+     * results are cached while the dialog is open. See
+     * {@link AvailabilityProvider}.</p>
+     *
+     * <p>This must be called before {@link #show()}.</p>
+     *
+     * @param availabilityProvider
+     */
+    public void setAvailabilityProvider(AvailabilityProvider availabilityProvider)
+    {
+        mAvailabilityProvider = availabilityProvider;
+    }
+
+    private void setBlackoutRanges(long[] blackoutRanges, int blackoutRangeCount)
+    {
+        mBlackoutRanges = blackoutRanges;
+        mBlackoutRangeCount = blackoutRangeCount;
+    }
+
     private void setIsClientSpecified24HourTime(boolean isClientSpecified24HourTime)
     {
         mIsClientSpecified24HourTime = isClientSpecified24HourTime;
@@ -153,11 +327,204 @@ public class SlideDateTimePicker
         mIndicatorColor = indicatorColor;
     }
 
+    /**
+     * <p>Sets whether the picker on the page that is not being shown
+     * (the TimePicker while the user is on the date tab, and vice versa)
+     * is released when the system is running low on memory. It is built
+     * again, with the current selection, when the user swipes back to
+     * it.</p>
+     *
+     * <p>Defaults to <tt>false</tt>.</p>
+     *
+     * @param trimOffscreenPage  <tt>true</tt> to release the off-screen
+     *                           page under memory pressure
+     */
+    public void setTrimOffscreenPage(boolean trimOffscreenPage)
+    {
+        mTrimOffscreenPage = trimOffscreenPage;
+    }
+
+    /**
+     * <p>Sets the interval between the minutes that the TimePicker
+     * offers, for example 15 to only offer :00, :15, :30 and :45.</p>
+     *
+     * <p>The initial date is rounded to the nearest multiple of the
+     * interval, and the {@code Date} passed to
+     * {@link SlideDateTimeListener#onDateTimeSet(Date)} is always on one,
+     * with no seconds. The minimum and maximum dates are moved inwards
+     * onto the interval.</p>
+     *
+     * <p>Defaults to 1.</p>
+     *
+     * @param minuteInterval  a divisor of 60, such as 5, 10, 15 or 30
+     * @throws IllegalArgumentException  if the interval does not divide an
+     *                                   hour evenly
+     */
+    public void setMinuteInterval(int minuteInterval)
+    {
+        CustomTimePicker.checkMinuteInterval(minuteInterval);
+        mMinuteInterval = minuteInterval;
+    }
+
+    /**
+     * <p>Sets the time zone in which the date and time are displayed and
+     * chosen, for example the zone of a venue rather than the user's. The
+     * time tab then also shows the zone's offset from GMT.</p>
+     *
+     * <p>If this method is not called, the device's time zone is used.</p>
+     *
+     * @param timeZone
+     */
+    public void setTimeZone(TimeZone timeZone)
+    {
+        mTimeZone = timeZone;
+    }
+
+    /**
+     * <p>Sets how a time that does not exist in the time zone, because
+     * the clocks go forward over it, is turned into the {@code Date}
+     * returned to the listener.</p>
+     *
+     * @param dstGapPolicy  {@link #DST_GAP_SHIFT_FORWARD} (the default) or
+     *                      {@link #DST_GAP_NEXT_VALID_TIME}
+     */
+    public void setDstGapPolicy(int dstGapPolicy)
+    {
+        if (dstGapPolicy != DST_GAP_SHIFT_FORWARD && dstGapPolicy != DST_GAP_NEXT_VALID_TIME)
+            throw new IllegalArgumentException("Unknown DST gap policy: " + dstGapPolicy);
+
+        mDstGapPolicy = dstGapPolicy;
+    }
+
+    /**
+     * <p>Sets how a time that happens twice in the time zone, because the
+     * clocks go back over it, is turned into the {@code Date} returned to
+     * the listener.</p>
+     *
+     * @param dstOverlapPolicy  {@link #DST_OVERLAP_EARLIER} (the default) or
+     *                          {@link #DST_OVERLAP_LATER}
+     */
+    public void setDstOverlapPolicy(int dstOverlapPolicy)
+    {
+        if (dstOverlapPolicy != DST_OVERLAP_EARLIER && dstOverlapPolicy != DST_OVERLAP_LATER)
+            throw new IllegalArgumentException("Unknown DST overlap policy: " + dstOverlapPolicy);
+
+        mDstOverlapPolicy = dstOverlapPolicy;
+    }
+
+    /**
+     * <p>Sets how often the listener's
+     * {@link SlideDateTimeListener#onSelectionChanging(long)} is called
+     * while the user changes the selection, for example to update a
+     * preview as they scroll.</p>
+     *
+     * <p>Optional. Defaults to {@link #STREAM_NONE}. With
+     * {@link #STREAM_PER_FRAME} it is called at most once per frame, and
+     * with {@link #STREAM_TRAILING_DEBOUNCE} once the selection has been
+     * still for {@code debounceMillis}. Either way, the last selection is
+     * always delivered before the result. In range mode,
+     * {@link SlideDateTimeListener#onRangeChanging(long, long)} is called
+     * instead, with both ends of the range.</p>
+     *
+     * @param streamPolicy  {@link #STREAM_NONE}, {@link #STREAM_PER_FRAME}
+     *                      or {@link #STREAM_TRAILING_DEBOUNCE}
+     * @param debounceMillis  the delay of {@link #STREAM_TRAILING_DEBOUNCE},
+     *                        ignored by the other policies
+     * @throws IllegalArgumentException  if the policy is unknown or the
+     *                                   delay is negative
+     */
+    public void setStreamPolicy(int streamPolicy, int debounceMillis)
+    {
+        if (!SelectionStream.isValidPolicy(streamPolicy))
+            throw new IllegalArgumentException("Unknown stream policy: " + streamPolicy);
+
+        if (debounceMillis < 0)
+            throw new IllegalArgumentException("Negative debounce delay: " + debounceMillis);
+
+        mStreamPolicy = streamPolicy;
+        mStreamDebounceMillis = debounceMillis;
+    }
+
+    /**
+     * <p>Sets a listener that receives timings and counters from the
+     * dialog, such as the time to its first frame and the number of
+     * date and time changes. See {@link PickerMetrics}.</p>
+     *
+     * <p>Optional. When it is not set, the dialog does not measure
+     * anything.</p>
+     *
+     * @param metrics
+     */
+    public void setMetrics(PickerMetrics metrics)
+    {
+        mMetrics = metrics;
+    }
+
     /**
      * Shows the dialog to the user. Make sure to call
      * {@link #setListener()} before calling this.
      */
     public void show()
+    {
+        if (mFragmentManager == null)
+        {
+            throw new IllegalStateException(
+                    "Attempting to show SlideDateTimePicker without a FragmentManager");
+        }
+
+        checkListener();
+
+        PickerTrace.begin(PickerTrace.SHOW);
+
+        try
+        {
+            String tag = SlideDateTimeDialogFragment.getFragmentTag(mRequestKey);
+
+            // Remove a dialog already showing with the same request key
+            Fragment prev = mFragmentManager.findFragmentByTag(tag);
+
+            if (prev != null)
+            {
+                FragmentTransaction ft = mFragmentManager.beginTransaction();
+                ft.remove(prev);
+                ft.commit();
+            }
+
+            // The dialog only holds on to the request key, so that it does
+            // not keep the activity behind the listener alive.
+            PickerRegistry.register(mRequestKey, mListener, mMetrics, mAvailabilityProvider);
+
+            SlideDateTimeDialogFragment dialogFragment =
+                    SlideDateTimeDialogFragment.newInstance(createConfig(
+                            mMetrics != null ? System.nanoTime() : 0));
+
+            dialogFragment.show(mFragmentManager, tag);
+        }
+        finally
+        {
+            PickerTrace.end();
+        }
+    }
+
+    /**
+     * <p>Sets up the given view with this picker's options, so that the
+     * user picks the date and time in the view instead of in a dialog.
+     * The listener is called when the view's OK or Cancel button is
+     * pressed.</p>
+     *
+     * <p>This does not need a {@code FragmentManager}. The request key and
+     * metrics are not used, as the view holds the listener itself.</p>
+     *
+     * @param view
+     */
+    public void bindView(SlideDateTimeView view)
+    {
+        checkListener();
+
+        view.setup(createConfig(0), mListener, mAvailabilityProvider);
+    }
+
+    private void checkListener()
     {
         if (mListener == null)
         {
@@ -169,20 +536,111 @@ public class SlideDateTimePicker
         {
             setInitialDate(new Date());
         }
+    }
+
+    private PickerConfig createConfig(long showNanos)
+    {
+        return new PickerConfig(
+                mRequestKey,
+                mInitialDate,
+                mInitialEndDate,
+                mIsRangeMode,
+                mMinDate,
+                mMaxDate,
+                mIsClientSpecified24HourTime,
+                mIs24HourTime,
+                mTheme,
+                mIndicatorColor,
+                mTrimOffscreenPage,
+                mMinuteInterval,
+                mTimeZone,
+                mDstGapPolicy,
+                mDstOverlapPolicy,
+                BlackoutDates.toIntervals(mBlackoutRanges, mBlackoutRangeCount,
+                        mTimeZone != null ? mTimeZone : TimeZone.getDefault()),
+                mStreamPolicy,
+                mStreamDebounceMillis,
+                showNanos);
+    }
+
+    /**
+     * <p>Binds a listener to the dialog shown with the given request key,
+     * after the activity that showed it has been recreated, for example
+     * on rotation. Call this from the new activity's {@code onCreate()}.</p>
+     *
+     * <p>The dialog drops its listener when it is detached from the old
+     * activity, so that the activity can be garbage collected. A result
+     * that arrives while no listener is bound is delivered by this
+     * call.</p>
+     *
+     * @param requestKey  the key passed to {@link #setRequestKey(String)},
+     *                    or {@link #DEFAULT_REQUEST_KEY}
+     * @param listener
+     * @return <tt>true</tt> if a dialog with this key is showing, or had
+     *         a result waiting for the listener
+     */
+    public static boolean rebindListener(String requestKey, SlideDateTimeListener listener)
+    {
+        return PickerRegistry.rebindListener(requestKey, listener);
+    }
 
-        SlideDateTimeDialogFragment dialogFragment =
-                SlideDateTimeDialogFragment.newInstance(
-                        mListener,
-                        mInitialDate,
-                        mMinDate,
-                        mMaxDate,
-                        mIsClientSpecified24HourTime,
-                        mIs24HourTime,
-                        mTheme,
-                        mIndicatorColor);
+    /**
+     * <p>Sets the number of request keys whose listeners are kept at once,
+     * counting both open dialogs and closed dialogs whose result is waiting
+     * for {@link #rebindListener(String, SlideDateTimeListener)}.</p>
+     *
+     * <p>When showing a dialog would go over it, the least recently used
+     * keys are dropped, those without an open dialog first. A dropped
+     * dialog's result is not delivered. Defaults to 8.</p>
+     *
+     * @param capacity  at least 1
+     * @throws IllegalArgumentException  if the capacity is less than 1
+     */
+    public static void setRegistryCapacity(int capacity)
+    {
+        PickerRegistry.setCapacity(capacity);
+    }
 
-        dialogFragment.show(mFragmentManager,
-                SlideDateTimeDialogFragment.TAG_SLIDE_DATE_TIME_DIALOG_FRAGMENT);
+    /**
+     * <p>Inflates the dialog and its date and time pages right away so
+     * that the next call to {@link #show()} from the same activity does
+     * not have to. This moves the cost of inflating the layouts and
+     * setting up the pickers out of the user's tap.</p>
+     *
+     * <p>The prepared views are discarded when they are used, when the
+     * activity is destroyed, when the configuration changes or when the
+     * system asks the app to trim its memory.</p>
+     *
+     * <p>Must be called from the main thread.</p>
+     *
+     * @param activity  the activity that will show the dialog
+     * @param theme  the theme that will be passed to {@link #setTheme(int)}
+     */
+    public static void prewarm(Activity activity, int theme)
+    {
+        DialogPrewarmer.prewarm(activity, theme);
+    }
+
+    /**
+     * Same as {@link #prewarm(Activity, int)}, but the work is deferred
+     * until the main thread is next idle, for example once the calling
+     * activity has finished drawing its first frame.
+     *
+     * @param activity  the activity that will show the dialog
+     * @param theme  the theme that will be passed to {@link #setTheme(int)}
+     */
+    public static void prewarmWhenIdle(Activity activity, int theme)
+    {
+        DialogPrewarmer.prewarmWhenIdle(activity, theme);
+    }
+
+    /**
+     * @return the total inflation time, in milliseconds, that prewarming
+     *         has moved out of {@link #show()} in this process
+     */
+    public static long getPrewarmSavedMillis()
+    {
+        return DialogPrewarmer.getSavedNanos() / 1000000;
     }
 
     /*
@@ -196,19 +654,42 @@ public class SlideDateTimePicker
         private SlideDateTimeListener listener;
 
         // Optional
+        private String requestKey = DEFAULT_REQUEST_KEY;
         private Date initialDate;
+        private Date initialEndDate;
+        private boolean isRangeMode;
         private Date minDate;
         private Date maxDate;
         private boolean isClientSpecified24HourTime;
         private boolean is24HourTime;
         private int theme;
         private int indicatorColor;
+        private boolean trimOffscreenPage;
+        private int minuteInterval = 1;
+        private TimeZone timeZone;
+        private int dstGapPolicy = DST_GAP_SHIFT_FORWARD;
+        private int dstOverlapPolicy = DST_OVERLAP_EARLIER;
+        private int streamPolicy = STREAM_NONE;
+        private int streamDebounceMillis;
+        private PickerMetrics metrics;
+        private AvailabilityProvider availabilityProvider;
+        private long[] blackoutRanges;
+        private int blackoutRangeCount;
 
         public Builder(FragmentManager fm)
         {
             this.fm = fm;
         }
 
+        /**
+         * Use this constructor when the picker will only be shown in a
+         * {@link SlideDateTimeView}, with {@link #buildView(Context)}.
+         */
+        public Builder()
+        {
+            this(null);
+        }
+
         /**
          * @see SlideDateTimePicker#setListener(SlideDateTimeListener)
          */
@@ -218,6 +699,15 @@ public class SlideDateTimePicker
             return this;
         }
 
+        /**
+         * @see SlideDateTimePicker#setRequestKey(String)
+         */
+        public Builder setRequestKey(String requestKey)
+        {
+            this.requestKey = requestKey;
+            return this;
+        }
+
         /**
          * @see SlideDateTimePicker#setInitialDate(Date)
          */
@@ -227,6 +717,24 @@ public class SlideDateTimePicker
             return this;
         }
 
+        /**
+         * @see SlideDateTimePicker#setRangeMode(boolean)
+         */
+        public Builder setRangeMode(boolean isRangeMode)
+        {
+            this.isRangeMode = isRangeMode;
+            return this;
+        }
+
+        /**
+         * @see SlideDateTimePicker#setInitialEndDate(Date)
+         */
+        public Builder setInitialEndDate(Date initialEndDate)
+        {
+            this.initialEndDate = initialEndDate;
+            return this;
+        }
+
         /**
          * @see SlideDateTimePicker#setMinDate(Date)
          */
@@ -245,6 +753,34 @@ public class SlideDateTimePicker
             return this;
         }
 
+        /**
+         * @see SlideDateTimePicker#addBlackoutRange(Date, Date)
+         */
+        public Builder addBlackoutRange(Date start, Date end)
+        {
+            this.blackoutRanges = BlackoutDates.appendRange(blackoutRanges, blackoutRangeCount,
+                    start.getTime(), end.getTime());
+            this.blackoutRangeCount++;
+            return this;
+        }
+
+        /**
+         * @see SlideDateTimePicker#addBlackoutDate(Date)
+         */
+        public Builder addBlackoutDate(Date date)
+        {
+            return addBlackoutRange(date, date);
+        }
+
+        /**
+         * @see SlideDateTimePicker#setAvailabilityProvider(AvailabilityProvider)
+         */
+        public Builder setAvailabilityProvider(AvailabilityProvider availabilityProvider)
+        {
+            this.availabilityProvider = availabilityProvider;
+            return this;
+        }
+
         /**
          * @see SlideDateTimePicker#setIs24HourTime(boolean)
          */
@@ -273,6 +809,85 @@ public class SlideDateTimePicker
             return this;
         }
 
+        /**
+         * @see SlideDateTimePicker#setTrimOffscreenPage(boolean)
+         */
+        public Builder setTrimOffscreenPage(boolean trimOffscreenPage)
+        {
+            this.trimOffscreenPage = trimOffscreenPage;
+            return this;
+        }
+
+        /**
+         * @see SlideDateTimePicker#setMinuteInterval(int)
+         */
+        public Builder setMinuteInterval(int minuteInterval)
+        {
+            CustomTimePicker.checkMinuteInterval(minuteInterval);
+            this.minuteInterval = minuteInterval;
+            return this;
+        }
+
+        /**
+         * @see SlideDateTimePicker#setTimeZone(TimeZone)
+         */
+        public Builder setTimeZone(TimeZone timeZone)
+        {
+            this.timeZone = timeZone;
+            return this;
+        }
+
+        /**
+         * @see SlideDateTimePicker#setDstGapPolicy(int)
+         */
+        public Builder setDstGapPolicy(int dstGapPolicy)
+        {
+            this.dstGapPolicy = dstGapPolicy;
+            return this;
+        }
+
+        /**
+         * @see SlideDateTimePicker#setDstOverlapPolicy(int)
+         */
+        public Builder setDstOverlapPolicy(int dstOverlapPolicy)
+        {
+            this.dstOverlapPolicy = dstOverlapPolicy;
+            return this;
+        }
+
+        /**
+         * @see SlideDateTimePicker#setStreamPolicy(int, int)
+         */
+        public Builder setStreamPolicy(int streamPolicy, int debounceMillis)
+        {
+            this.streamPolicy = streamPolicy;
+            this.streamDebounceMillis = debounceMillis;
+            return this;
+        }
+
+        /**
+         * @see SlideDateTimePicker#setMetrics(PickerMetrics)
+         */
+        public Builder setMetrics(PickerMetrics metrics)
+        {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * <p>Hint that the dialog will be shown from the given activity soon,
+         * so that its layouts are inflated the next time the main thread is
+         * idle. Call this after {@link #setTheme(int)}, and keep this
+         * {@code Builder} around until the dialog is shown.</p>
+         *
+         * @see SlideDateTimePicker#prewarmWhenIdle(Activity, int)
+         */
+        public Builder prewarm(Activity activity)
+        {
+            SlideDateTimePicker.prewarmWhenIdle(activity, theme);
+            return this;
+        }
+
         /**
          * <p>Build and return a {@code SlideDateTimePicker} object based on the previously
          * supplied parameters.</p>
@@ -285,15 +900,42 @@ public class SlideDateTimePicker
         {
             SlideDateTimePicker picker = new SlideDateTimePicker(fm);
             picker.setListener(listener);
+            picker.setRequestKey(requestKey);
             picker.setInitialDate(initialDate);
+            picker.setInitialEndDate(initialEndDate);
+            picker.setRangeMode(isRangeMode);
             picker.setMinDate(minDate);
             picker.setMaxDate(maxDate);
             picker.setIsClientSpecified24HourTime(isClientSpecified24HourTime);
             picker.setIs24HourTime(is24HourTime);
             picker.setTheme(theme);
             picker.setIndicatorColor(indicatorColor);
+            picker.setTrimOffscreenPage(trimOffscreenPage);
+            picker.setMinuteInterval(minuteInterval);
+            picker.setTimeZone(timeZone);
+            picker.setDstGapPolicy(dstGapPolicy);
+            picker.setDstOverlapPolicy(dstOverlapPolicy);
+            picker.setStreamPolicy(streamPolicy, streamDebounceMillis);
+            picker.setMetrics(metrics);
+            picker.setBlackoutRanges(blackoutRanges, blackoutRangeCount);
+            picker.setAvailabilityProvider(availabilityProvider);
 
             return picker;
         }
+
+        /**
+         * <p>Build a {@link SlideDateTimeView} based on the previously
+         * supplied parameters, to be added to the client's own layout.</p>
+         *
+         * @param context
+         * @return
+         */
+        public SlideDateTimeView buildView(Context context)
+        {
+            SlideDateTimeView view = new SlideDateTimeView(context);
+            build().bindView(view);
+
+            return view;
+        }
     }
 }
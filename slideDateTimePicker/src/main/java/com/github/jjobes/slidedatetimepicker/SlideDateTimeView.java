@@ -0,0 +1,488 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.Date;
+
+import android.content.Context;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.v4.view.PagerAdapter;
+import android.util.AttributeSet;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.FrameLayout;
+
+/**
+ * <p>The same tabs, pages and buttons as the {@code SlideDateTimePicker}
+ * dialog, as a plain view that can be placed in any layout, such as a
+ * form or a bottom sheet. It needs no {@code FragmentManager} and opens
+ * no window of its own.</p>
+ *
+ * <p>Configure it with {@link SlideDateTimePicker#bindView(SlideDateTimeView)},
+ * or create one with {@link SlideDateTimePicker.Builder#buildView(Context)}.
+ * The listener is called as it is for the dialog: {@code onDateTimeSet()}
+ * (or {@code onDateTimeRangeSet()} in range mode) when the user presses
+ * OK, and {@code onDateTimeCancel()} when they press Cancel. The selection
+ * can also be read at any time with {@link #getDate()}.</p>
+ *
+ * <p>The view holds its listener directly, so unlike the dialog it does
+ * not need to be rebound after a configuration change; it is recreated
+ * along with the rest of the layout, and should be configured again.
+ * If it has an id, it saves its selection, including which end of a
+ * range is being edited, and the selection is restored once it has been
+ * configured again.</p>
+ *
+ * @author jjobes
+ *
+ */
+public class SlideDateTimeView extends FrameLayout
+{
+    private SlideDateTimeListener mListener;
+    private PickerConfig mConfig;
+    private PickerController mController;
+    private PickerSelection mSelection;
+    private LayoutInflater mInflater;
+    private CustomViewPager mViewPager;
+    private SlidingTabLayout mSlidingTabLayout;
+    private CustomDatePicker mDatePicker;
+    private CustomTimePicker mTimePicker;
+    private TimeLabels mTimeLabels;
+    private TabUpdateScheduler mTabUpdateScheduler;
+    // A saved selection restored before the view was configured
+    private SavedState mPendingSavedState;
+
+    public SlideDateTimeView(Context context)
+    {
+        super(context);
+    }
+
+    public SlideDateTimeView(Context context, AttributeSet attrs)
+    {
+        super(context, attrs);
+    }
+
+    public SlideDateTimeView(Context context, AttributeSet attrs, int defStyle)
+    {
+        super(context, attrs, defStyle);
+    }
+
+    /**
+     * Build the tabs and pages for the client's options, replacing any
+     * that were built before. Called by
+     * {@link SlideDateTimePicker#bindView(SlideDateTimeView)}.
+     *
+     * @param config
+     * @param listener
+     * @param availabilityProvider  may be null
+     */
+    void setup(PickerConfig config, SlideDateTimeListener listener,
+            AvailabilityProvider availabilityProvider)
+    {
+        release();
+        removeAllViews();
+
+        mListener = listener;
+        mConfig = config;
+        mController = new PickerController(config, availabilityProvider, new SelectionStream.Sink() {
+
+            @Override
+            public void onSelectionChanging(long epochMillis)
+            {
+                mListener.onSelectionChanging(epochMillis);
+            }
+
+            @Override
+            public void onRangeChanging(long startMillis, long endMillis)
+            {
+                mListener.onRangeChanging(startMillis, endMillis);
+            }
+        }, mPickerHost);
+        mSelection = mController.getSelection();
+        mTimeLabels = PickerController.resolveTimeLabels(getContext(), config);
+        mTabUpdateScheduler = new TabUpdateScheduler(new TabUpdateScheduler.TabRenderer() {
+
+            @Override
+            public void renderDateTab()
+            {
+                updateDateTab();
+            }
+
+            @Override
+            public void renderTimeTab()
+            {
+                updateTimeTab();
+            }
+        });
+
+        // Inflate with a Holo theme, as the dialog does, so that the
+        // pickers look the same whatever the host's theme is.
+        int theme = config.getTheme();
+        mInflater = LayoutInflater.from(getContext()).cloneInContext(
+                new ContextThemeWrapper(getContext(), ThemedInflaterCache.getPageTheme(theme)));
+
+        View view = mInflater.inflate(R.layout.slide_date_time_picker, this, false);
+        addView(view);
+
+        mViewPager = (CustomViewPager) view.findViewById(R.id.viewPager);
+        mSlidingTabLayout = (SlidingTabLayout) view.findViewById(R.id.slidingTabLayout);
+
+        int lineColor = getResources().getColor(theme == SlideDateTimePicker.HOLO_DARK ?
+                R.color.gray_holo_dark :
+                R.color.gray_holo_light);
+        view.findViewById(R.id.buttonHorizontalDivider).setBackgroundColor(lineColor);
+        view.findViewById(R.id.buttonVerticalDivider).setBackgroundColor(lineColor);
+
+        if (config.getIndicatorColor() != 0)
+            mSlidingTabLayout.setSelectedIndicatorColors(config.getIndicatorColor());
+
+        mViewPager.setAdapter(new ViewPagerAdapter());
+        mSlidingTabLayout.setCustomTabView(R.layout.custom_tab, R.id.tabText);
+        mSlidingTabLayout.setViewPager(mViewPager);
+
+        updateDateTab();
+        updateTimeTab();
+
+        initButtons(view);
+
+        if (mPendingSavedState != null)
+        {
+            restore(mPendingSavedState);
+            mPendingSavedState = null;
+        }
+    }
+
+    private void initButtons(View view)
+    {
+        view.findViewById(R.id.okButton).setOnClickListener(new OnClickListener() {
+
+            @Override
+            public void onClick(View v)
+            {
+                mController.flushSelectionStream();
+
+                if (mSelection.isRangeMode())
+                {
+                    mListener.onDateTimeRangeSet(
+                            new Date(mSelection.getStartMillis()),
+                            new Date(mSelection.getEndMillis()));
+                }
+                else
+                {
+                    mListener.onDateTimeSet(new Date(mSelection.getStartMillis()));
+                }
+            }
+        });
+
+        view.findViewById(R.id.cancelButton).setOnClickListener(new OnClickListener() {
+
+            @Override
+            public void onClick(View v)
+            {
+                mController.flushSelectionStream();
+                mListener.onDateTimeCancel();
+            }
+        });
+
+        mController.attachViews(mTabUpdateScheduler,
+                view.findViewById(R.id.rangeSelector),
+                (Button) view.findViewById(R.id.rangeStartButton),
+                (Button) view.findViewById(R.id.rangeEndButton));
+    }
+
+    /**
+     * Load the availability that was cancelled when the view was
+     * detached, and bring the tabs up to date with any change that was
+     * dropped meanwhile.
+     */
+    @Override
+    protected void onAttachedToWindow()
+    {
+        super.onAttachedToWindow();
+
+        if (mController != null)
+        {
+            mController.resume();
+            updateDateTab();
+            updateTimeTab();
+        }
+    }
+
+    /**
+     * Stop loading availability and updating the tabs while the view is
+     * not attached, and deliver the last selection held back by the
+     * stream policy.
+     */
+    @Override
+    protected void onDetachedFromWindow()
+    {
+        release();
+
+        super.onDetachedFromWindow();
+    }
+
+    private void release()
+    {
+        if (mController != null)
+            mController.release();
+
+        if (mTabUpdateScheduler != null)
+            mTabUpdateScheduler.cancel();
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState()
+    {
+        Parcelable superState = super.onSaveInstanceState();
+
+        if (mSelection == null)
+            return superState;
+
+        SavedState savedState = new SavedState(superState);
+        savedState.mStartLocalMillis = mSelection.getStartLocalMillis();
+        savedState.mEndLocalMillis = mSelection.isRangeMode() ? mSelection.getEndLocalMillis() : 0;
+        savedState.mIsEndSelected = mSelection.isEndSelected();
+
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state)
+    {
+        if (!(state instanceof SavedState))
+        {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+
+        // The client usually configures the view again in onCreate(),
+        // before its state is restored, but it may do so later.
+        if (mController != null)
+            restore(savedState);
+        else
+            mPendingSavedState = savedState;
+    }
+
+    private void restore(SavedState savedState)
+    {
+        mController.restore(savedState.mStartLocalMillis, savedState.mEndLocalMillis,
+                savedState.mIsEndSelected);
+    }
+
+    /**
+     * @return the selected date and time, or the start of the range in
+     *         range mode, or null if the view has not been set up
+     */
+    public Date getDate()
+    {
+        return mSelection != null ? new Date(mSelection.getStartMillis()) : null;
+    }
+
+    /**
+     * @return the end of the range, or null if the view is not in range
+     *         mode
+     */
+    public Date getEndDate()
+    {
+        return mSelection != null && mSelection.isRangeMode() ?
+                new Date(mSelection.getEndMillis()) :
+                null;
+    }
+
+    private CustomDatePicker createDatePicker(ViewGroup container)
+    {
+        DateTimeState state = mSelection.getState();
+        DateTimeConstraints constraints = mSelection.getConstraints();
+
+        CustomDatePicker datePicker = (CustomDatePicker) mInflater.inflate(
+                R.layout.fragment_date, container, false);
+        datePicker.init(
+            state.getYear(),
+            state.getMonth(),
+            state.getDayOfMonth(),
+            new CustomDatePicker.OnDateChangedListener() {
+
+                @Override
+                public void onDateChanged(CustomDatePicker view, int year,
+                        int monthOfYear, int dayOfMonth)
+                {
+                    mController.onDateChanged(year, monthOfYear, dayOfMonth);
+                }
+            });
+
+        if (constraints.hasMinDate())
+            datePicker.setMinEpochDay(constraints.getMinEpochDay());
+
+        if (constraints.hasMaxDate())
+            datePicker.setMaxEpochDay(constraints.getMaxEpochDay());
+
+        datePicker.setDayConstraints(constraints);
+
+        return datePicker;
+    }
+
+    private CustomTimePicker createTimePicker(ViewGroup container)
+    {
+        CustomTimePicker timePicker = (CustomTimePicker) mInflater.inflate(
+                R.layout.fragment_time, container, false);
+        timePicker.setOnTimeChangedListener(new CustomTimePicker.OnTimeChangedListener() {
+
+            @Override
+            public void onTimeChanged(CustomTimePicker view, int hourOfDay, int minute)
+            {
+                mController.onTimeChanged(hourOfDay, minute);
+            }
+        });
+
+        timePicker.setIs24HourView(PickerController.is24HourView(getContext(), mConfig));
+        timePicker.setMinuteInterval(mSelection.getMinuteInterval());
+
+        return timePicker;
+    }
+
+    private void updateDatePicker()
+    {
+        if (mDatePicker != null)
+            mDatePicker.setEpochDay(mSelection.getState().getEpochDay());
+    }
+
+    /**
+     * Limit the TimePicker to the times allowed on the selected day, and
+     * set it to the selected time.
+     */
+    private void updateTimePicker()
+    {
+        if (mTimePicker != null)
+            PickerController.updateTimePicker(mTimePicker, mSelection.getState(), mSelection.getConstraints());
+    }
+
+    private final PickerController.Host mPickerHost = new PickerController.Host() {
+
+        @Override
+        public void updateDatePicker()
+        {
+            SlideDateTimeView.this.updateDatePicker();
+        }
+
+        @Override
+        public void updateTimePicker()
+        {
+            SlideDateTimeView.this.updateTimePicker();
+        }
+    };
+
+    private void updateDateTab()
+    {
+        mSlidingTabLayout.setTabText(0, mController.getDateTabText(getContext()));
+    }
+
+    private void updateTimeTab()
+    {
+        mSlidingTabLayout.setTabText(1, mSelection.getTimeTabText(mTimeLabels));
+    }
+
+    /**
+     * The selection, as local wall-clock times so that it is restored in
+     * the same time zone.
+     */
+    static class SavedState extends BaseSavedState
+    {
+        long mStartLocalMillis;
+        long mEndLocalMillis;
+        boolean mIsEndSelected;
+
+        SavedState(Parcelable superState)
+        {
+            super(superState);
+        }
+
+        private SavedState(Parcel in)
+        {
+            super(in);
+
+            mStartLocalMillis = in.readLong();
+            mEndLocalMillis = in.readLong();
+            mIsEndSelected = in.readInt() != 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags)
+        {
+            super.writeToParcel(out, flags);
+
+            out.writeLong(mStartLocalMillis);
+            out.writeLong(mEndLocalMillis);
+            out.writeInt(mIsEndSelected ? 1 : 0);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+
+            @Override
+            public SavedState createFromParcel(Parcel in)
+            {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size)
+            {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    /**
+     * Holds the two pickers directly as pages, with no fragments.
+     */
+    private class ViewPagerAdapter extends PagerAdapter
+    {
+        @Override
+        public Object instantiateItem(ViewGroup container, int position)
+        {
+            View page;
+
+            if (position == SlideDateTimeDialogFragment.DATE_PAGE)
+            {
+                mDatePicker = createDatePicker(container);
+                page = mDatePicker;
+            }
+            else
+            {
+                mTimePicker = createTimePicker(container);
+                updateTimePicker();
+                page = mTimePicker;
+            }
+
+            container.addView(page);
+
+            return page;
+        }
+
+        @Override
+        public void destroyItem(ViewGroup container, int position, Object object)
+        {
+            container.removeView((View) object);
+
+            if (object == mDatePicker)
+                mDatePicker = null;
+            else if (object == mTimePicker)
+                mTimePicker = null;
+        }
+
+        @Override
+        public boolean isViewFromObject(View view, Object object)
+        {
+            return view == object;
+        }
+
+        @Override
+        public int getCount()
+        {
+            return 2;
+        }
+    }
+}
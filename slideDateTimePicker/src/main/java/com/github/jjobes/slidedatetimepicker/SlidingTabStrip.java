@@ -56,6 +56,22 @@ class SlidingTabStrip extends LinearLayout {
     private SlidingTabLayout.TabColorizer mCustomTabColorizer;
     private final SimpleTabColorizer mDefaultTabColorizer;
 
+    // The colorizer's colors for each tab, resolved once rather than on
+    // every frame of a swipe.
+    private int[] mTabIndicatorColors;
+    private int[] mTabDividerColors;
+    private boolean mTabColorsDirty = true;
+
+    // The indicator's current bounds and color, updated when the pager
+    // scrolls and used to invalidate only the indicator band.
+    private int mIndicatorLeft;
+    private int mIndicatorRight;
+    private int mIndicatorColor;
+
+    // The x of the divider after each tab but the last, updated when the
+    // strip is laid out rather than read from the tabs on every frame.
+    private int[] mDividerPositions;
+
     SlidingTabStrip(Context context) {
         this(context, null);
     }
@@ -92,75 +108,165 @@ class SlidingTabStrip extends LinearLayout {
 
     void setCustomTabColorizer(SlidingTabLayout.TabColorizer customTabColorizer) {
         mCustomTabColorizer = customTabColorizer;
-        invalidate();
+        onTabColorsChanged();
     }
 
     void setSelectedIndicatorColors(int... colors) {
         // Make sure that the custom colorizer is removed
         mCustomTabColorizer = null;
         mDefaultTabColorizer.setIndicatorColors(colors);
-        invalidate();
+        onTabColorsChanged();
     }
 
     void setDividerColors(int... colors) {
         // Make sure that the custom colorizer is removed
         mCustomTabColorizer = null;
         mDefaultTabColorizer.setDividerColors(colors);
-        invalidate();
+        onTabColorsChanged();
     }
 
     void onViewPagerPageChanged(int position, float positionOffset) {
         mSelectedPosition = position;
         mSelectionOffset = positionOffset;
-        invalidate();
+
+        final int oldLeft = mIndicatorLeft;
+        final int oldRight = mIndicatorRight;
+        final int oldColor = mIndicatorColor;
+
+        updateIndicator();
+
+        if (mIndicatorLeft == oldLeft && mIndicatorRight == oldRight
+                && mIndicatorColor == oldColor) {
+            return;
+        }
+
+        // Only the band under the tabs that holds the old and new
+        // indicator needs to be repainted.
+        final int height = getHeight();
+        invalidate(Math.min(oldLeft, mIndicatorLeft), height - mSelectedIndicatorThickness,
+                Math.max(oldRight, mIndicatorRight), height);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+
+        updateDividerPositions();
+        updateIndicator();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         final int height = getHeight();
+
+        // Thick colored underline below the current selection
+        if (getChildCount() > 0) {
+            canvas.drawRect(mIndicatorLeft, height - mSelectedIndicatorThickness, mIndicatorRight,
+                    height, mSelectedIndicatorPaint);
+        }
+
+        // Thin underline along the entire bottom edge
+        canvas.drawRect(0, height - mBottomBorderThickness, getWidth(), height, mBottomBorderPaint);
+
+        // Vertical separators between the titles
+        if (mDividerPositions != null && mDividerPositions.length > 0) {
+            ensureTabColors();
+
+            final int dividerHeightPx = (int) (Math.min(Math.max(0f, mDividerHeight), 1f) * height);
+            final int separatorTop = (height - dividerHeightPx) / 2;
+            for (int i = 0; i < mDividerPositions.length; i++) {
+                final int x = mDividerPositions[i];
+                mDividerPaint.setColor(mTabDividerColors[i]);
+                canvas.drawLine(x, separatorTop, x, separatorTop + dividerHeightPx, mDividerPaint);
+            }
+        }
+    }
+
+    private void onTabColorsChanged() {
+        mTabColorsDirty = true;
+        updateIndicator();
+        invalidate();
+    }
+
+    /**
+     * Resolve the indicator and divider color of each tab from the
+     * current colorizer, if they are not resolved yet.
+     */
+    private void ensureTabColors() {
         final int childCount = getChildCount();
-        final int dividerHeightPx = (int) (Math.min(Math.max(0f, mDividerHeight), 1f) * height);
+
+        if (!mTabColorsDirty && mTabIndicatorColors != null
+                && mTabIndicatorColors.length == childCount) {
+            return;
+        }
+
         final SlidingTabLayout.TabColorizer tabColorizer = mCustomTabColorizer != null
                 ? mCustomTabColorizer
                 : mDefaultTabColorizer;
 
-        // Thick colored underline below the current selection
-        if (childCount > 0) {
-            View selectedTitle = getChildAt(mSelectedPosition);
-            int left = selectedTitle.getLeft();
-            int right = selectedTitle.getRight();
-            int color = tabColorizer.getIndicatorColor(mSelectedPosition);
-
-            if (mSelectionOffset > 0f && mSelectedPosition < (getChildCount() - 1)) {
-                int nextColor = tabColorizer.getIndicatorColor(mSelectedPosition + 1);
-                if (color != nextColor) {
-                    color = blendColors(nextColor, color, mSelectionOffset);
-                }
-
-                // Draw the selection partway between the tabs
-                View nextTitle = getChildAt(mSelectedPosition + 1);
-                left = (int) (mSelectionOffset * nextTitle.getLeft() +
-                        (1.0f - mSelectionOffset) * left);
-                right = (int) (mSelectionOffset * nextTitle.getRight() +
-                        (1.0f - mSelectionOffset) * right);
-            }
+        mTabIndicatorColors = new int[childCount];
+        mTabDividerColors = new int[childCount];
 
-            mSelectedIndicatorPaint.setColor(color);
+        for (int i = 0; i < childCount; i++) {
+            mTabIndicatorColors[i] = tabColorizer.getIndicatorColor(i);
+            mTabDividerColors[i] = tabColorizer.getDividerColor(i);
+        }
 
-            canvas.drawRect(left, height - mSelectedIndicatorThickness, right,
-                    height, mSelectedIndicatorPaint);
+        mTabColorsDirty = false;
+    }
+
+    /**
+     * Work out the bounds and color of the indicator for the current
+     * selection and offset.
+     */
+    private void updateIndicator() {
+        final int childCount = getChildCount();
+
+        if (childCount == 0) {
+            mIndicatorLeft = 0;
+            mIndicatorRight = 0;
+            return;
         }
 
-        // Thin underline along the entire bottom edge
-        canvas.drawRect(0, height - mBottomBorderThickness, getWidth(), height, mBottomBorderPaint);
+        ensureTabColors();
 
-        // Vertical separators between the titles
-        int separatorTop = (height - dividerHeightPx) / 2;
-        for (int i = 0; i < childCount - 1; i++) {
-            View child = getChildAt(i);
-            mDividerPaint.setColor(tabColorizer.getDividerColor(i));
-            canvas.drawLine(child.getRight(), separatorTop, child.getRight(),
-                    separatorTop + dividerHeightPx, mDividerPaint);
+        View selectedTitle = getChildAt(mSelectedPosition);
+        int left = selectedTitle.getLeft();
+        int right = selectedTitle.getRight();
+        int color = mTabIndicatorColors[mSelectedPosition];
+
+        if (mSelectionOffset > 0f && mSelectedPosition < (childCount - 1)) {
+            int nextColor = mTabIndicatorColors[mSelectedPosition + 1];
+            if (color != nextColor) {
+                color = blendColors(nextColor, color, mSelectionOffset);
+            }
+
+            // Draw the selection partway between the tabs
+            View nextTitle = getChildAt(mSelectedPosition + 1);
+            left = (int) (mSelectionOffset * nextTitle.getLeft() +
+                    (1.0f - mSelectionOffset) * left);
+            right = (int) (mSelectionOffset * nextTitle.getRight() +
+                    (1.0f - mSelectionOffset) * right);
+        }
+
+        mIndicatorLeft = left;
+        mIndicatorRight = right;
+        mIndicatorColor = color;
+        mSelectedIndicatorPaint.setColor(color);
+    }
+
+    /**
+     * Record where the divider after each tab but the last is drawn.
+     */
+    private void updateDividerPositions() {
+        final int dividerCount = Math.max(0, getChildCount() - 1);
+
+        if (mDividerPositions == null || mDividerPositions.length != dividerCount) {
+            mDividerPositions = new int[dividerCount];
+        }
+
+        for (int i = 0; i < dividerCount; i++) {
+            mDividerPositions[i] = getChildAt(i).getRight();
         }
     }
 
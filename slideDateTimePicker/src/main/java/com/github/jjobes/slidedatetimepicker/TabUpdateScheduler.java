@@ -0,0 +1,209 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.view.Choreographer;
+
+/**
+ * <p>Coalesces tab text updates so that each tab is rendered at most
+ * once per frame.</p>
+ *
+ * <p>A fling on one of the pickers can report several value changes
+ * within a single vsync, and setting the tab text for each of them
+ * triggers a text relayout that is never seen. Instead, the change
+ * callbacks in {@link SlideDateTimeDialogFragment} mark the date or
+ * time tab dirty, and the dirty tabs are rendered on the next frame.</p>
+ *
+ * <p>On Jelly Bean and above the frame is driven by {@code Choreographer}.
+ * On older devices we fall back to a {@code Handler} delayed by roughly
+ * one frame.</p>
+ *
+ * @author jjobes
+ *
+ */
+class TabUpdateScheduler
+{
+    /**
+     * Renders the text of a tab once it has been marked dirty.
+     */
+    interface TabRenderer
+    {
+        void renderDateTab();
+
+        void renderTimeTab();
+    }
+
+    private static final int DIRTY_DATE = 1;
+    private static final int DIRTY_TIME = 1 << 1;
+
+    private static final long FALLBACK_FRAME_DELAY_MS = 16;
+
+    private final TabRenderer mRenderer;
+    private final FrameCallbackCompat mFrameCallback;
+    private int mDirtyFlags;
+    private boolean mIsFrameScheduled;
+    private int mCoalescedUpdateCount;
+
+    TabUpdateScheduler(TabRenderer renderer)
+    {
+        mRenderer = renderer;
+
+        Runnable frame = new Runnable() {
+
+            @Override
+            public void run()
+            {
+                doFrame();
+            }
+        };
+
+        mFrameCallback = newFrameCallback(frame);
+    }
+
+    /**
+     * Return a callback that runs the given frame on the next vsync, or
+     * roughly one frame later before Jelly Bean. Also used by
+     * {@link SelectionStream}.
+     */
+    static FrameCallbackCompat newFrameCallback(Runnable frame)
+    {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+        {
+            return new ChoreographerFrameCallback(frame);
+        }
+        else
+        {
+            return new HandlerFrameCallback(frame);
+        }
+    }
+
+    /**
+     * Mark the date tab dirty so that it is rendered on the next frame.
+     */
+    void markDateDirty()
+    {
+        markDirty(DIRTY_DATE);
+    }
+
+    /**
+     * Mark the time tab dirty so that it is rendered on the next frame.
+     */
+    void markTimeDirty()
+    {
+        markDirty(DIRTY_TIME);
+    }
+
+    /**
+     * Drop any pending update. Called when the tab views are destroyed.
+     */
+    void cancel()
+    {
+        if (mIsFrameScheduled)
+        {
+            mFrameCallback.remove();
+            mIsFrameScheduled = false;
+        }
+
+        mDirtyFlags = 0;
+    }
+
+    /**
+     * @return the number of updates that were absorbed by an update
+     *         already pending for the same tab
+     */
+    int getCoalescedUpdateCount()
+    {
+        return mCoalescedUpdateCount;
+    }
+
+    private void markDirty(int flag)
+    {
+        if ((mDirtyFlags & flag) != 0)
+        {
+            mCoalescedUpdateCount++;
+        }
+
+        mDirtyFlags |= flag;
+
+        if (!mIsFrameScheduled)
+        {
+            mIsFrameScheduled = true;
+            mFrameCallback.post();
+        }
+    }
+
+    private void doFrame()
+    {
+        int dirtyFlags = mDirtyFlags;
+
+        mDirtyFlags = 0;
+        mIsFrameScheduled = false;
+
+        if ((dirtyFlags & DIRTY_DATE) != 0)
+            mRenderer.renderDateTab();
+
+        if ((dirtyFlags & DIRTY_TIME) != 0)
+            mRenderer.renderTimeTab();
+    }
+
+    interface FrameCallbackCompat
+    {
+        void post();
+
+        void remove();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ChoreographerFrameCallback implements FrameCallbackCompat,
+                                                               Choreographer.FrameCallback
+    {
+        private final Runnable mFrame;
+
+        ChoreographerFrameCallback(Runnable frame)
+        {
+            mFrame = frame;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos)
+        {
+            mFrame.run();
+        }
+
+        @Override
+        public void post()
+        {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        public void remove()
+        {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    private static class HandlerFrameCallback implements FrameCallbackCompat
+    {
+        private final Handler mHandler = new Handler();
+        private final Runnable mFrame;
+
+        HandlerFrameCallback(Runnable frame)
+        {
+            mFrame = frame;
+        }
+
+        @Override
+        public void post()
+        {
+            mHandler.postDelayed(mFrame, FALLBACK_FRAME_DELAY_MS);
+        }
+
+        @Override
+        public void remove()
+        {
+            mHandler.removeCallbacks(mFrame);
+        }
+    }
+}
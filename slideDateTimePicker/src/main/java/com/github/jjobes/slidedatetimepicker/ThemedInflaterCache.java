@@ -0,0 +1,117 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import android.app.Activity;
+import android.content.res.Configuration;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+
+/**
+ * <p>A process-wide cache of the Holo themed {@code LayoutInflater}s used
+ * to inflate the date and time pages.</p>
+ *
+ * <p>Creating a {@code ContextThemeWrapper} and cloning an inflater for
+ * it on every {@code onCreateView()} resolves the whole theme again each
+ * time the dialog is opened. Instead, one inflater is kept per theme and
+ * reused as long as it was created for the same {@code Activity} in the
+ * same configuration. Entries are also dropped by
+ * {@link ActivityCacheCallbacks} when that activity is destroyed or the
+ * configuration changes, so the cache never keeps an activity alive.</p>
+ *
+ * <p>All methods must be called from the main thread.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class ThemedInflaterCache
+{
+    private static Entry sHoloDarkEntry;
+    private static Entry sHoloLightEntry;
+
+    private ThemedInflaterCache() {}
+
+    /**
+     * Return the inflater for the given activity and theme, creating it
+     * if the cached one is missing or stale.
+     *
+     * @param activity
+     * @param theme  {@code SlideDateTimePicker.HOLO_DARK} or
+     *               {@code SlideDateTimePicker.HOLO_LIGHT}
+     * @return
+     */
+    static LayoutInflater get(Activity activity, int theme)
+    {
+        boolean isHoloDark = theme == SlideDateTimePicker.HOLO_DARK;
+        Entry entry = isHoloDark ? sHoloDarkEntry : sHoloLightEntry;
+        Configuration configuration = activity.getResources().getConfiguration();
+
+        if (entry != null && entry.activity == activity &&
+            entry.configuration.equals(configuration))
+        {
+            return entry.inflater;
+        }
+
+        ActivityCacheCallbacks.register(activity.getApplication());
+
+        // Clone the activity's own inflater rather than the one handed to
+        // the fragment, whose factory belongs to that fragment instance.
+        entry = new Entry(
+                activity,
+                new Configuration(configuration),
+                activity.getLayoutInflater().cloneInContext(
+                        new ContextThemeWrapper(activity, getPageTheme(theme))));
+
+        if (isHoloDark)
+            sHoloDarkEntry = entry;
+        else
+            sHoloLightEntry = entry;
+
+        return entry.inflater;
+    }
+
+    /**
+     * Return the theme used to inflate the pages. Unless we inflate
+     * using a Holo theme, on Lollipop devices the pickers will be the
+     * new-style pickers, which is not what we want.
+     */
+    static int getPageTheme(int theme)
+    {
+        return theme == SlideDateTimePicker.HOLO_DARK ?
+                android.R.style.Theme_Holo :
+                android.R.style.Theme_Holo_Light;
+    }
+
+    /**
+     * Drop the inflaters created for the given activity.
+     */
+    static void clear(Activity activity)
+    {
+        if (sHoloDarkEntry != null && sHoloDarkEntry.activity == activity)
+            sHoloDarkEntry = null;
+
+        if (sHoloLightEntry != null && sHoloLightEntry.activity == activity)
+            sHoloLightEntry = null;
+    }
+
+    /**
+     * Drop all cached inflaters.
+     */
+    static void clear()
+    {
+        sHoloDarkEntry = null;
+        sHoloLightEntry = null;
+    }
+
+    private static class Entry
+    {
+        final Activity activity;
+        final Configuration configuration;
+        final LayoutInflater inflater;
+
+        Entry(Activity activity, Configuration configuration, LayoutInflater inflater)
+        {
+            this.activity = activity;
+            this.configuration = configuration;
+            this.inflater = inflater;
+        }
+    }
+}
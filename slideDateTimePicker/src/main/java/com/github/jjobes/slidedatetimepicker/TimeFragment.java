@@ -1,22 +1,15 @@
 package com.github.jjobes.slidedatetimepicker;
 
-import android.content.Context;
-import android.os.Build;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
-import android.text.format.DateFormat;
-import android.view.ContextThemeWrapper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.DatePicker;
-import android.widget.NumberPicker;
-import android.widget.NumberPicker.OnValueChangeListener;
-import android.widget.TimePicker;
+import android.widget.FrameLayout;
 
 /**
  * The fragment for the second page in the ViewPager that holds
- * the TimePicker.
+ * the {@link CustomTimePicker}.
  *
  * @author jjobes
  *
@@ -34,7 +27,9 @@ public class TimeFragment extends Fragment
     }
 
     private TimeChangedListener mCallback;
-    private TimePicker mTimePicker;
+    private FrameLayout mContainer;
+    private CustomTimePicker mTimePicker;
+    private int mTheme;
 
     public TimeFragment()
     {
@@ -62,139 +57,152 @@ public class TimeFragment extends Fragment
     }
 
     /**
-     * Return an instance of TimeFragment with its bundle filled with the
-     * constructor arguments. The values in the bundle are retrieved in
-     * {@link #onCreateView()} below to properly initialize the TimePicker.
+     * Return an instance of TimeFragment. It has no arguments of its own:
+     * the theme and time format are read from the {@link PickerConfig} of
+     * {@link SlideDateTimeDialogFragment} in {@link #onCreateView()} below,
+     * and the time itself each time the TimePicker is built.
      *
-     * @param theme
-     * @param hour
-     * @param minute
-     * @param isClientSpecified24HourTime
-     * @param is24HourTime
      * @return
      */
-    public static final TimeFragment newInstance(int theme, int hour, int minute,
-        boolean isClientSpecified24HourTime, boolean is24HourTime)
+    public static final TimeFragment newInstance()
     {
-        TimeFragment f = new TimeFragment();
-
-        Bundle b = new Bundle();
-        b.putInt("theme", theme);
-        b.putInt("hour", hour);
-        b.putInt("minute", minute);
-        b.putBoolean("isClientSpecified24HourTime", isClientSpecified24HourTime);
-        b.putBoolean("is24HourTime", is24HourTime);
-        f.setArguments(b);
-
-        return f;
+        return new TimeFragment();
     }
 
     /**
-     * Create and return the user interface view for this fragment.
+     * Create and return the user interface view for this fragment. This
+     * is only an empty container. The TimePicker is built into it right
+     * away if this is the page being shown, and otherwise when
+     * {@link SlideDateTimeDialogFragment} asks for it.
      */
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
             Bundle savedInstanceState)
     {
-        int theme = getArguments().getInt("theme");
-        int initialHour = getArguments().getInt("hour");
-        int initialMinute = getArguments().getInt("minute");
-        boolean isClientSpecified24HourTime = getArguments().getBoolean("isClientSpecified24HourTime");
-        boolean is24HourTime = getArguments().getBoolean("is24HourTime");
-
-        // Unless we inflate using a cloned inflater with a Holo theme,
-        // on Lollipop devices the TimePicker will be the new-style
-        // radial TimePicker, which is not what we want. So we will
-        // clone the inflater that we're given but with our specified
-        // theme, then inflate the layout with this new inflater.
-
-        Context contextThemeWrapper = new ContextThemeWrapper(
-                getActivity(),
-                theme == SlideDateTimePicker.HOLO_DARK ?
-                         android.R.style.Theme_Holo :
-                         android.R.style.Theme_Holo_Light);
-
-        LayoutInflater localInflater = inflater.cloneInContext(contextThemeWrapper);
-
-        View v = localInflater.inflate(R.layout.fragment_time, container, false);
-
-        mTimePicker = (TimePicker) v.findViewById(R.id.timePicker);
-        // block keyboard popping up on touch
-        mTimePicker.setDescendantFocusability(DatePicker.FOCUS_BLOCK_DESCENDANTS);
-        mTimePicker.setOnTimeChangedListener(new TimePicker.OnTimeChangedListener() {
-
-            @Override
-            public void onTimeChanged(TimePicker view, int hourOfDay, int minute)
-            {
-                mCallback.onTimeChanged(hourOfDay, minute);
-            }
-        });
+        mTheme = getDialogFragment().getConfig().getTheme();
 
-        // If the client specifies a 24-hour time format, set it on
-        // the TimePicker.
-        if (isClientSpecified24HourTime)
-        {
-            mTimePicker.setIs24HourView(is24HourTime);
-        }
-        else
-        {
-            // If the client does not specify a 24-hour time format, use the
-            // device default.
-            mTimePicker.setIs24HourView(DateFormat.is24HourFormat(
-                getTargetFragment().getActivity()));
-        }
+        mContainer = new FrameLayout(getActivity());
 
-        mTimePicker.setCurrentHour(initialHour);
-        mTimePicker.setCurrentMinute(initialMinute);
+        if (getDialogFragment().isCurrentPage(SlideDateTimeDialogFragment.TIME_PAGE))
+            buildPicker();
 
-        // Fix for the bug where a TimePicker's onTimeChanged() is not called when
-        // the user toggles the AM/PM button. Only applies to 4.0.0 and 4.0.3.
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH &&
-            Build.VERSION.SDK_INT <= Build.VERSION_CODES.ICE_CREAM_SANDWICH_MR1)
-        {
-            fixTimePickerBug18982();
-        }
+        return mContainer;
+    }
 
-        return v;
+    @Override
+    public void onDestroyView()
+    {
+        mContainer = null;
+        mTimePicker = null;
+
+        super.onDestroyView();
     }
 
     /**
-     * Workaround for bug in Android TimePicker where the onTimeChanged() callback
-     * is not invoked when the user toggles between AM/PM. But we need to be able
-     * to detect this in order to dynamically update the tab title properly when
-     * the user toggles between AM/PM.
-     *
-     * Registered as Issue 18982:
+     * Build the TimePicker into this page, initialized with the time
+     * currently selected in the dialog, unless it has already been built.
      *
-     * https://code.google.com/p/android/issues/detail?id=18982
+     * @return <tt>true</tt> if the page now holds a TimePicker, or
+     *         <tt>false</tt> if this fragment has no view yet
      */
-    private void fixTimePickerBug18982()
+    boolean buildPicker()
     {
-        View amPmView = ((ViewGroup) mTimePicker.getChildAt(0)).getChildAt(3);
+        if (mContainer == null)
+            return false;
+
+        if (mTimePicker != null)
+            return true;
 
-        if (amPmView instanceof NumberPicker)
+        PickerTrace.begin(PickerTrace.TIME_PAGE_BUILD);
+
+        try
         {
-            ((NumberPicker) amPmView).setOnValueChangedListener(new OnValueChangeListener() {
+            PickerMetrics metrics = getDialogFragment().getMetrics();
+            long startNanos = metrics != null ? System.nanoTime() : 0;
+
+            // Use the layout inflated by SlideDateTimePicker.prewarm() if
+            // there is one.
+            View v = DialogPrewarmer.takeTimeView(getActivity(), mTheme);
+            boolean wasPrewarmed = v != null;
+
+            if (v == null)
+            {
+                // Reuse the Holo themed inflater cached for this activity
+                // rather than resolving the theme again on every open.
+                LayoutInflater localInflater = ThemedInflaterCache.get(getActivity(), mTheme);
+
+                v = localInflater.inflate(R.layout.fragment_time, mContainer, false);
+
+                if (metrics != null)
+                {
+                    metrics.onPickerInflated(PickerMetrics.PAGE_TIME, System.nanoTime() - startNanos);
+                }
+            }
+
+            mTimePicker = (CustomTimePicker) v.findViewById(R.id.timePicker);
+            mTimePicker.setOnTimeChangedListener(new CustomTimePicker.OnTimeChangedListener() {
 
                 @Override
-                public void onValueChange(NumberPicker picker, int oldVal, int newVal)
+                public void onTimeChanged(CustomTimePicker view, int hourOfDay, int minute)
                 {
-                    if (picker.getValue() == 1)  // PM
-                    {
-                        if (mTimePicker.getCurrentHour() < 12)
-                            mTimePicker.setCurrentHour(mTimePicker.getCurrentHour() + 12);
-                    }
-                    else  // AM
-                    {
-                        if (mTimePicker.getCurrentHour() >= 12)
-                            mTimePicker.setCurrentHour(mTimePicker.getCurrentHour() - 12);
-                    }
-
-                    mCallback.onTimeChanged(
-                        mTimePicker.getCurrentHour(),
-                        mTimePicker.getCurrentMinute());
+                    mCallback.onTimeChanged(hourOfDay, minute);
                 }
             });
+
+            // The client's 24-hour time format, or the device's default
+            PickerConfig config = getDialogFragment().getConfig();
+            mTimePicker.setIs24HourView(PickerController.is24HourView(getActivity(), config));
+            mTimePicker.setMinuteInterval(config.getMinuteInterval());
+            updatePicker();
+
+            mContainer.addView(v, new FrameLayout.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+
+            if (metrics != null)
+            {
+                metrics.onPageBuilt(PickerMetrics.PAGE_TIME, System.nanoTime() - startNanos,
+                        wasPrewarmed);
+            }
+
+            return true;
+        }
+        finally
+        {
+            PickerTrace.end();
         }
     }
+
+    /**
+     * Limit the TimePicker to the times allowed on the selected day, and
+     * set it to the selected time. Called when the page is built, and by
+     * {@link SlideDateTimeDialogFragment} when the date changes or the
+     * time had to be clamped.
+     */
+    void updatePicker()
+    {
+        if (mTimePicker == null)
+            return;
+
+        SlideDateTimeDialogFragment dialogFragment = getDialogFragment();
+        PickerController.updateTimePicker(mTimePicker, dialogFragment.getState(),
+                dialogFragment.getConstraints());
+    }
+
+    /**
+     * Drop the TimePicker's views while this page is off screen. They are
+     * built again from the dialog's state by {@link #buildPicker()}.
+     */
+    void releasePicker()
+    {
+        if (mContainer != null)
+            mContainer.removeAllViews();
+
+        mTimePicker = null;
+    }
+
+    private SlideDateTimeDialogFragment getDialogFragment()
+    {
+        return (SlideDateTimeDialogFragment) getTargetFragment();
+    }
 }
@@ -0,0 +1,134 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * <p>A table of the text shown on the time tab for every minute of
+ * the day, indexed by {@code hour * 60 + minute}.</p>
+ *
+ * <p>Tables are cached per process and keyed by time format and locale,
+ * so the 12-hour, 24-hour and device-default variants are each created
+ * once. Labels are formatted the first time they are requested and
+ * reused from then on, which means that spinning the TimePicker does not
+ * allocate a formatter, a {@code Date} or a {@code String} per tick.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class TimeLabels
+{
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    static final String PATTERN_24_HOUR = "HH:mm";
+    static final String PATTERN_12_HOUR = "h:mm aa";
+
+    private static final Map<String, TimeLabels> sTables = new HashMap<String, TimeLabels>();
+
+    private final String[] mLabels = new String[MINUTES_PER_DAY];
+    private final DateFormat mFormat;
+    private final Date mDate = new Date(0);
+
+    private TimeLabels(DateFormat format)
+    {
+        // Labels are formatted from a minute offset since midnight UTC,
+        // so the formatter must not apply the device's time zone.
+        mFormat = format;
+        mFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    /**
+     * Return the shared table for the given {@code SimpleDateFormat}
+     * pattern in the given locale.
+     *
+     * @param pattern  {@link #PATTERN_24_HOUR}, {@link #PATTERN_12_HOUR} or
+     *                 any other time-only pattern
+     * @param locale
+     * @return
+     */
+    static synchronized TimeLabels forPattern(String pattern, Locale locale)
+    {
+        String key = pattern + '|' + locale;
+        TimeLabels table = sTables.get(key);
+
+        if (table == null)
+        {
+            table = new TimeLabels(new SimpleDateFormat(pattern, locale));
+            sTables.put(key, table);
+        }
+
+        return table;
+    }
+
+    /**
+     * Return the shared table for a formatter obtained elsewhere, such
+     * as the device's default time format. The formatter is copied, so
+     * the caller's instance is left untouched.
+     *
+     * @param format
+     * @param locale
+     * @return
+     */
+    static synchronized TimeLabels forFormat(DateFormat format, Locale locale)
+    {
+        String pattern = format instanceof SimpleDateFormat ?
+                ((SimpleDateFormat) format).toPattern() :
+                format.getClass().getName();
+
+        String key = "default|" + pattern + '|' + locale;
+        TimeLabels table = sTables.get(key);
+
+        if (table == null)
+        {
+            table = new TimeLabels((DateFormat) format.clone());
+            sTables.put(key, table);
+        }
+
+        return table;
+    }
+
+    /**
+     * @param hour  the hour of the day, 0-23
+     * @param minute  the minute of the hour, 0-59
+     * @return the label for the given time
+     */
+    String get(int hour, int minute)
+    {
+        return get(hour * 60 + minute);
+    }
+
+    /**
+     * @param minuteOfDay  the number of minutes since midnight, 0-1439
+     * @return the label for the given time
+     */
+    String get(int minuteOfDay)
+    {
+        String label = mLabels[minuteOfDay];
+
+        if (label == null)
+        {
+            label = format(minuteOfDay);
+        }
+
+        return label;
+    }
+
+    private synchronized String format(int minuteOfDay)
+    {
+        String label = mLabels[minuteOfDay];
+
+        if (label == null)
+        {
+            mDate.setTime(minuteOfDay * 60000L);
+            label = mFormat.format(mDate);
+            mLabels[minuteOfDay] = label;
+        }
+
+        return label;
+    }
+}
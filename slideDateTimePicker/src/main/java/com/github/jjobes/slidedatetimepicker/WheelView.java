@@ -0,0 +1,783 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.support.v4.view.AccessibilityDelegateCompat;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.animation.DecelerateInterpolator;
+import android.widget.OverScroller;
+
+/**
+ * <p>A lightweight replacement for the platform {@code NumberPicker} in
+ * spinner mode, used by {@link CustomDatePicker} and
+ * {@link CustomTimePicker}.</p>
+ *
+ * <p>The wheel draws its items directly on the {@code Canvas} instead of
+ * laying out an {@code EditText} and buttons. Labels and their widths are
+ * computed once per value and cached, and flings and snapping are driven
+ * by the wheel's own {@code OverScroller}, so scrolling does not allocate
+ * or measure text. Since the wheel draws its own selection dividers, no
+ * reflection is needed to restyle it.</p>
+ *
+ * <p>Values are plain ints in the range [{@link #getMinValue()},
+ * {@link #getMaxValue()}]. Their labels come either from an array of
+ * displayed values indexed by value, or from a {@link Formatter}.</p>
+ *
+ * <p>The wheel can be focused and stepped with the D-pad, and reports its
+ * value to accessibility services, which can scroll it forward and
+ * backward one value at a time.</p>
+ *
+ * @author jjobes
+ *
+ */
+class WheelView extends View
+{
+    /**
+     * Informs the owner each time the value at the center of the wheel
+     * changes because the user scrolled or tapped it.
+     */
+    public interface OnValueChangeListener
+    {
+        void onValueChange(WheelView wheel, int oldValue, int newValue);
+    }
+
+    /**
+     * Formats a value for display. Each value is formatted once and the
+     * result is cached by the wheel.
+     */
+    public interface Formatter
+    {
+        String format(int value);
+    }
+
+    /**
+     * Formats values 0-99 with a leading zero, as the platform pickers
+     * do for days, minutes and 24-hour hours.
+     */
+    static final Formatter TWO_DIGIT_FORMATTER = new Formatter() {
+
+        @Override
+        public String format(int value)
+        {
+            return value < 10 && value >= 0 ? "0" + value : String.valueOf(value);
+        }
+    };
+
+    private static final int VISIBLE_ITEMS = 3;
+    private static final int ITEM_HEIGHT_DIPS = 56;
+    private static final int HORIZONTAL_PADDING_DIPS = 16;
+    private static final int MIN_WIDTH_DIPS = 64;
+    private static final int TEXT_SIZE_SP = 18;
+    private static final int SNAP_DURATION_MS = 300;
+
+    private static final int SCROLL_STATE_IDLE = 0;
+    private static final int SCROLL_STATE_DRAGGING = 1;
+    private static final int SCROLL_STATE_FLINGING = 2;
+    private static final int SCROLL_STATE_SETTLING = 3;
+
+    private final Paint mTextPaint;
+    private final int mItemHeight;
+    private final int mHorizontalPadding;
+    private final int mMinWidth;
+    private final float mTextBaselineOffset;
+    private final int mTouchSlop;
+    private final int mMinimumFlingVelocity;
+    private final int mMaximumFlingVelocity;
+    private final OverScroller mScroller;
+
+    private Drawable mSelectionDivider;
+
+    private int mMinValue;
+    private int mMaxValue;
+    private int mValue;
+    private boolean mWrapSelectorWheel;
+    private OnValueChangeListener mOnValueChangeListener;
+
+    private String[] mDisplayedValues;
+    private Formatter mFormatter;
+
+    // Labels produced by mFormatter, indexed by value - mLabelCacheBase.
+    // The cache only grows, so changing the range back and forth (as the
+    // day wheel does between months) reuses the labels already made.
+    private String[] mLabelCache;
+    private int mLabelCacheBase;
+    private float mMaxLabelWidth = -1;
+
+    // The distance, in pixels, that the items are currently drawn below
+    // their resting position. Kept in (-mItemHeight / 2, mItemHeight / 2].
+    private int mScrollOffset;
+    private int mScrollState = SCROLL_STATE_IDLE;
+    private int mLastScrollerY;
+
+    private VelocityTracker mVelocityTracker;
+    private float mDownY;
+    private float mLastY;
+    private boolean mIsBeyondTouchSlop;
+
+    public WheelView(Context context)
+    {
+        this(context, null);
+    }
+
+    public WheelView(Context context, AttributeSet attrs)
+    {
+        super(context, attrs);
+
+        final float density = getResources().getDisplayMetrics().density;
+
+        mItemHeight = (int) (ITEM_HEIGHT_DIPS * density);
+        mHorizontalPadding = (int) (HORIZONTAL_PADDING_DIPS * density);
+        mMinWidth = (int) (MIN_WIDTH_DIPS * density);
+
+        // Use the primary text color of the theme we are inflated with,
+        // which is Holo or Holo Light.
+        TypedArray a = context.obtainStyledAttributes(new int[] { android.R.attr.textColorPrimary });
+        int textColor = a.getColor(0, 0xFF000000);
+        a.recycle();
+
+        mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+        mTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+                TEXT_SIZE_SP, getResources().getDisplayMetrics()));
+        mTextPaint.setColor(textColor);
+
+        Paint.FontMetrics fontMetrics = mTextPaint.getFontMetrics();
+        mTextBaselineOffset = -(fontMetrics.ascent + fontMetrics.descent) / 2;
+
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        mTouchSlop = configuration.getScaledTouchSlop();
+        mMinimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        // Slow down flings the same way NumberPicker does, so that a
+        // fling doesn't spin through dozens of values.
+        mMaximumFlingVelocity = configuration.getScaledMaximumFlingVelocity() / 8;
+
+        mScroller = new OverScroller(context, new DecelerateInterpolator(2.5f));
+
+        setFocusable(true);
+        ViewCompat.setAccessibilityDelegate(this, new WheelAccessibilityDelegate());
+    }
+
+    /**
+     * Set the drawable drawn above and below the selected item. It may be
+     * shared with other wheels.
+     */
+    public void setSelectionDivider(Drawable selectionDivider)
+    {
+        mSelectionDivider = selectionDivider;
+        invalidate();
+    }
+
+    public void setOnValueChangedListener(OnValueChangeListener listener)
+    {
+        mOnValueChangeListener = listener;
+    }
+
+    /**
+     * Set the labels shown for each value. The array is indexed by value,
+     * so it must cover [0, {@link #getMaxValue()}]. The array is not
+     * copied and may be shared between wheels.
+     */
+    public void setDisplayedValues(String[] displayedValues)
+    {
+        if (mDisplayedValues == displayedValues)
+            return;
+
+        mDisplayedValues = displayedValues;
+        onLabelsChanged();
+    }
+
+    /**
+     * Set the formatter used for values that have no displayed value.
+     */
+    public void setFormatter(Formatter formatter)
+    {
+        if (mFormatter == formatter)
+            return;
+
+        mFormatter = formatter;
+        mLabelCache = null;
+        onLabelsChanged();
+    }
+
+    /**
+     * Set the range of selectable values. The current value is clamped
+     * to the new range without notifying the listener.
+     *
+     * @param minValue
+     * @param maxValue
+     * @param wrapSelectorWheel  <tt>true</tt> if scrolling past one end of
+     *                           the range continues from the other end
+     */
+    public void setRange(int minValue, int maxValue, boolean wrapSelectorWheel)
+    {
+        if (minValue > maxValue)
+            throw new IllegalArgumentException("minValue > maxValue");
+
+        if (minValue == mMinValue && maxValue == mMaxValue &&
+            wrapSelectorWheel == mWrapSelectorWheel)
+        {
+            return;
+        }
+
+        mMinValue = minValue;
+        mMaxValue = maxValue;
+        mWrapSelectorWheel = wrapSelectorWheel && (maxValue - minValue + 1) > VISIBLE_ITEMS;
+        mValue = Math.max(minValue, Math.min(maxValue, mValue));
+
+        onLabelsChanged();
+    }
+
+    public int getMinValue()
+    {
+        return mMinValue;
+    }
+
+    public int getMaxValue()
+    {
+        return mMaxValue;
+    }
+
+    /**
+     * Set the value at the center of the wheel. The value is clamped to
+     * the current range and the listener is not notified.
+     */
+    public void setValue(int value)
+    {
+        value = Math.max(mMinValue, Math.min(mMaxValue, value));
+
+        if (value == mValue && mScrollOffset == 0)
+            return;
+
+        mValue = value;
+        invalidate();
+    }
+
+    public int getValue()
+    {
+        return mValue;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec)
+    {
+        int desiredWidth = Math.max(mMinWidth,
+                (int) Math.ceil(getMaxLabelWidth()) + 2 * mHorizontalPadding +
+                getPaddingLeft() + getPaddingRight());
+        int desiredHeight = VISIBLE_ITEMS * mItemHeight + getPaddingTop() + getPaddingBottom();
+
+        setMeasuredDimension(resolveSize(desiredWidth, widthMeasureSpec),
+                resolveSize(desiredHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas)
+    {
+        final int left = getPaddingLeft();
+        final int right = getWidth() - getPaddingRight();
+        final float x = (left + right) / 2f;
+        final int centerY = getPaddingTop() + (getHeight() - getPaddingTop() - getPaddingBottom()) / 2;
+        final int halfCount = VISIBLE_ITEMS / 2 + 1;
+        final float fadeDistance = mItemHeight * (halfCount + 0.5f);
+
+        for (int i = -halfCount; i <= halfCount; i++)
+        {
+            int value = getValueAtOffset(i);
+
+            if (value < mMinValue)
+                continue;
+
+            float itemCenterY = centerY + i * mItemHeight + mScrollOffset;
+            float alpha = 1f - Math.abs(itemCenterY - centerY) / fadeDistance;
+
+            if (alpha <= 0f)
+                continue;
+
+            mTextPaint.setAlpha((int) (alpha * 255));
+            canvas.drawText(getLabel(value), x, itemCenterY + mTextBaselineOffset, mTextPaint);
+        }
+
+        if (mSelectionDivider != null)
+        {
+            int dividerHeight = Math.max(1, mSelectionDivider.getIntrinsicHeight());
+            int top = centerY - mItemHeight / 2;
+            int bottom = centerY + mItemHeight / 2;
+
+            mSelectionDivider.setBounds(left, top, right, top + dividerHeight);
+            mSelectionDivider.draw(canvas);
+            mSelectionDivider.setBounds(left, bottom - dividerHeight, right, bottom);
+            mSelectionDivider.draw(canvas);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event)
+    {
+        if (!isEnabled())
+            return false;
+
+        if (mVelocityTracker == null)
+            mVelocityTracker = VelocityTracker.obtain();
+
+        mVelocityTracker.addMovement(event);
+
+        switch (event.getActionMasked())
+        {
+        case MotionEvent.ACTION_DOWN:
+            mScroller.forceFinished(true);
+            mDownY = event.getY();
+            mLastY = mDownY;
+            mIsBeyondTouchSlop = mScrollState != SCROLL_STATE_IDLE;
+            mScrollState = SCROLL_STATE_DRAGGING;
+            break;
+
+        case MotionEvent.ACTION_MOVE:
+            float y = event.getY();
+
+            if (!mIsBeyondTouchSlop && Math.abs(y - mDownY) > mTouchSlop)
+            {
+                mIsBeyondTouchSlop = true;
+                mLastY = y;
+            }
+
+            if (mIsBeyondTouchSlop)
+            {
+                int dy = (int) (y - mLastY);
+
+                if (dy != 0)
+                {
+                    scrollBy(dy);
+                    mLastY += dy;
+                    invalidate();
+                }
+            }
+            break;
+
+        case MotionEvent.ACTION_UP:
+            mVelocityTracker.computeCurrentVelocity(1000, mMaximumFlingVelocity);
+            int velocityY = (int) mVelocityTracker.getYVelocity();
+
+            if (mIsBeyondTouchSlop && Math.abs(velocityY) > mMinimumFlingVelocity)
+            {
+                fling(velocityY);
+            }
+            else if (!mIsBeyondTouchSlop)
+            {
+                onTap(event.getY());
+            }
+            else
+            {
+                settle();
+            }
+
+            recycleVelocityTracker();
+            break;
+
+        case MotionEvent.ACTION_CANCEL:
+            settle();
+            recycleVelocityTracker();
+            break;
+        }
+
+        return true;
+    }
+
+    /**
+     * Step the value with the D-pad, down moving to the next value as the
+     * platform NumberPicker does. At either end of the range the key is
+     * left for focus navigation.
+     */
+    @Override
+    public boolean onKeyDown(int keyCode, KeyEvent event)
+    {
+        if (isEnabled() && mScrollState != SCROLL_STATE_DRAGGING)
+        {
+            switch (keyCode)
+            {
+            case KeyEvent.KEYCODE_DPAD_DOWN:
+                if (smoothStep(1))
+                    return true;
+                break;
+
+            case KeyEvent.KEYCODE_DPAD_UP:
+                if (smoothStep(-1))
+                    return true;
+                break;
+            }
+        }
+
+        return super.onKeyDown(keyCode, event);
+    }
+
+    @Override
+    public void computeScroll()
+    {
+        if (mScrollState != SCROLL_STATE_FLINGING && mScrollState != SCROLL_STATE_SETTLING)
+            return;
+
+        if (mScroller.computeScrollOffset())
+        {
+            int y = mScroller.getCurrY();
+            scrollBy(y - mLastScrollerY);
+            mLastScrollerY = y;
+        }
+
+        if (mScroller.isFinished())
+        {
+            if (mScrollState == SCROLL_STATE_FLINGING)
+            {
+                settle();
+            }
+            else
+            {
+                mScrollOffset = 0;
+                mScrollState = SCROLL_STATE_IDLE;
+            }
+        }
+
+        invalidate();
+    }
+
+    @Override
+    protected void onDetachedFromWindow()
+    {
+        super.onDetachedFromWindow();
+
+        mScroller.forceFinished(true);
+        mScrollOffset = 0;
+        mScrollState = SCROLL_STATE_IDLE;
+        recycleVelocityTracker();
+    }
+
+    private void fling(int velocityY)
+    {
+        mLastScrollerY = 0;
+        mScroller.fling(0, 0, 0, velocityY, 0, 0, Integer.MIN_VALUE / 2, Integer.MAX_VALUE / 2);
+        mScrollState = SCROLL_STATE_FLINGING;
+        invalidate();
+    }
+
+    /**
+     * Animate the item nearest to the center back to its resting position.
+     */
+    private void settle()
+    {
+        smoothScrollBy(-mScrollOffset);
+    }
+
+    /**
+     * Tapping the item above or below the selection moves it to the center.
+     */
+    private void onTap(float y)
+    {
+        float centerY = getPaddingTop() + (getHeight() - getPaddingTop() - getPaddingBottom()) / 2f;
+
+        boolean isStepped = false;
+
+        if (y < centerY - mItemHeight / 2f)
+            isStepped = smoothStep(-1);
+        else if (y > centerY + mItemHeight / 2f)
+            isStepped = smoothStep(1);
+
+        if (!isStepped)
+            settle();
+    }
+
+    /**
+     * Animate the next value (or the previous one, if {@code direction} is
+     * negative) to the center of the wheel. The listener is notified as it
+     * arrives. A step that is still animating is completed first, so that
+     * repeated keys or accessibility actions each move one value.
+     *
+     * @return <tt>false</tt> if there is no value in that direction
+     */
+    private boolean smoothStep(int direction)
+    {
+        if (getValueAtOffset(direction) < mMinValue)
+            return false;
+
+        if (mScrollState == SCROLL_STATE_SETTLING)
+        {
+            scrollBy(mScroller.getFinalY() - mLastScrollerY);
+            mScroller.forceFinished(true);
+
+            if (getValueAtOffset(direction) < mMinValue)
+            {
+                settle();
+                return true;
+            }
+        }
+        else if (mScrollState == SCROLL_STATE_FLINGING)
+        {
+            mScroller.forceFinished(true);
+        }
+
+        smoothScrollBy(-direction * mItemHeight - mScrollOffset);
+        return true;
+    }
+
+    private boolean isScrollable()
+    {
+        return mMaxValue > mMinValue;
+    }
+
+    private void smoothScrollBy(int dy)
+    {
+        if (dy == 0)
+        {
+            mScrollState = SCROLL_STATE_IDLE;
+            invalidate();
+            return;
+        }
+
+        mLastScrollerY = 0;
+        mScroller.startScroll(0, 0, 0, dy, SNAP_DURATION_MS);
+        mScrollState = SCROLL_STATE_SETTLING;
+        invalidate();
+    }
+
+    /**
+     * Move the items down by {@code dy} pixels (up if negative), changing
+     * the value each time an item crosses the center of the wheel.
+     */
+    private void scrollBy(int dy)
+    {
+        mScrollOffset += dy;
+
+        final int half = mItemHeight / 2;
+
+        while (mScrollOffset > half)
+        {
+            int previous = getValueAtOffset(-1);
+
+            if (previous < mMinValue)
+            {
+                stopAtEnd();
+                return;
+            }
+
+            mScrollOffset -= mItemHeight;
+            changeValue(previous);
+        }
+
+        while (mScrollOffset <= -half)
+        {
+            int next = getValueAtOffset(1);
+
+            if (next < mMinValue)
+            {
+                stopAtEnd();
+                return;
+            }
+
+            mScrollOffset += mItemHeight;
+            changeValue(next);
+        }
+
+        // Don't let the wheel be dragged past either end of its range.
+        if (!mWrapSelectorWheel &&
+            ((mValue == mMinValue && mScrollOffset > 0) ||
+             (mValue == mMaxValue && mScrollOffset < 0)))
+        {
+            stopAtEnd();
+        }
+    }
+
+    private void stopAtEnd()
+    {
+        mScrollOffset = 0;
+
+        if (mScrollState == SCROLL_STATE_FLINGING)
+        {
+            mScroller.forceFinished(true);
+            mScrollState = SCROLL_STATE_IDLE;
+        }
+    }
+
+    private void changeValue(int newValue)
+    {
+        int oldValue = mValue;
+        mValue = newValue;
+
+        if (mOnValueChangeListener != null)
+            mOnValueChangeListener.onValueChange(this, oldValue, newValue);
+
+        // Read out by accessibility services, with the new label
+        sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
+    }
+
+    /**
+     * Return the value drawn {@code offset} items below the current one,
+     * or {@code Integer.MIN_VALUE} if there is none.
+     */
+    private int getValueAtOffset(int offset)
+    {
+        int value = mValue + offset;
+
+        if (value >= mMinValue && value <= mMaxValue)
+            return value;
+
+        if (!mWrapSelectorWheel)
+            return Integer.MIN_VALUE;
+
+        int count = mMaxValue - mMinValue + 1;
+        int index = (value - mMinValue) % count;
+
+        return mMinValue + (index < 0 ? index + count : index);
+    }
+
+    private String getLabel(int value)
+    {
+        if (mDisplayedValues != null)
+            return mDisplayedValues[value];
+
+        if (mFormatter == null)
+            return String.valueOf(value);
+
+        if (mLabelCache == null ||
+            value < mLabelCacheBase ||
+            value >= mLabelCacheBase + mLabelCache.length)
+        {
+            growLabelCache();
+        }
+
+        int index = value - mLabelCacheBase;
+        String label = mLabelCache[index];
+
+        if (label == null)
+        {
+            label = mFormatter.format(value);
+            mLabelCache[index] = label;
+        }
+
+        return label;
+    }
+
+    private void growLabelCache()
+    {
+        int base = mLabelCache == null ? mMinValue : Math.min(mMinValue, mLabelCacheBase);
+        int end = mLabelCache == null ? mMaxValue : Math.max(mMaxValue, mLabelCacheBase + mLabelCache.length - 1);
+        String[] cache = new String[end - base + 1];
+
+        if (mLabelCache != null)
+            System.arraycopy(mLabelCache, 0, cache, mLabelCacheBase - base, mLabelCache.length);
+
+        mLabelCache = cache;
+        mLabelCacheBase = base;
+    }
+
+    private float getMaxLabelWidth()
+    {
+        if (mMaxLabelWidth < 0)
+        {
+            float maxWidth = 0;
+
+            int maxValue = mDisplayedValues != null ?
+                    Math.min(mMaxValue, mDisplayedValues.length - 1) :
+                    mMaxValue;
+
+            for (int value = mMinValue; value <= maxValue; value++)
+            {
+                maxWidth = Math.max(maxWidth, mTextPaint.measureText(getLabel(value)));
+            }
+
+            mMaxLabelWidth = maxWidth;
+        }
+
+        return mMaxLabelWidth;
+    }
+
+    /**
+     * Re-measure the labels, and only request a new layout if the widest
+     * label no longer has the same width.
+     */
+    private void onLabelsChanged()
+    {
+        float oldMaxLabelWidth = mMaxLabelWidth;
+        mMaxLabelWidth = -1;
+
+        if (getMaxLabelWidth() != oldMaxLabelWidth)
+            requestLayout();
+
+        invalidate();
+    }
+
+    private void recycleVelocityTracker()
+    {
+        if (mVelocityTracker != null)
+        {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+    }
+
+    /**
+     * Exposes the selected value and the scroll actions to accessibility
+     * services.
+     */
+    private final class WheelAccessibilityDelegate extends AccessibilityDelegateCompat
+    {
+        @Override
+        public void onInitializeAccessibilityEvent(View host, AccessibilityEvent event)
+        {
+            super.onInitializeAccessibilityEvent(host, event);
+
+            event.setClassName(WheelView.class.getName());
+            event.setScrollable(isScrollable());
+            event.setItemCount(mMaxValue - mMinValue + 1);
+            event.setCurrentItemIndex(mValue - mMinValue);
+        }
+
+        @Override
+        public void onPopulateAccessibilityEvent(View host, AccessibilityEvent event)
+        {
+            super.onPopulateAccessibilityEvent(host, event);
+
+            event.getText().add(getLabel(mValue));
+        }
+
+        @Override
+        public void onInitializeAccessibilityNodeInfo(View host, AccessibilityNodeInfoCompat info)
+        {
+            super.onInitializeAccessibilityNodeInfo(host, info);
+
+            info.setClassName(WheelView.class.getName());
+            info.setText(getLabel(mValue));
+            info.setScrollable(isScrollable());
+
+            if (isEnabled())
+            {
+                if (getValueAtOffset(1) >= mMinValue)
+                    info.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD);
+                if (getValueAtOffset(-1) >= mMinValue)
+                    info.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD);
+            }
+        }
+
+        @Override
+        public boolean performAccessibilityAction(View host, int action, Bundle args)
+        {
+            if (isEnabled())
+            {
+                if (action == AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD)
+                    return smoothStep(1);
+                if (action == AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD)
+                    return smoothStep(-1);
+            }
+
+            return super.performAccessibilityAction(host, action, args);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * <p>The UTC offset changes of a time zone over a range of years, held as
+ * a sorted array of transition instants with the offset in effect after
+ * each one, so that converting between UTC and local time is a binary
+ * search.</p>
+ *
+ * <p>{@code TimeZone} has no public way to list its transitions, so they
+ * are found by sampling the offset once a week and bisecting each change
+ * down to the millisecond. Two changes within the same week that cancel
+ * each other out would be missed; no zone in the tz database has one.
+ * Tables are cached per process, keyed by zone ID and year range.
+ * Outside its range, a table falls back to the {@code TimeZone}
+ * itself.</p>
+ *
+ * <p>A local time that falls in the gap of a transition that moves the
+ * clocks forward does not exist, and one that falls in the overlap of a
+ * transition that moves them back exists twice. Both are resolved by the
+ * policy passed to {@link #toUtcMillis(long, int, int)}.</p>
+ *
+ * @author jjobes
+ *
+ */
+final class ZoneTransitions
+{
+    /** Move a time in a gap forward by the length of the gap, as a lenient {@code Calendar} does. */
+    static final int DST_GAP_SHIFT_FORWARD = 0;
+    /** Move a time in a gap to the first valid time after it. */
+    static final int DST_GAP_NEXT_VALID_TIME = 1;
+    /** Resolve a time in an overlap to its first occurrence, as a lenient {@code Calendar} does. */
+    static final int DST_OVERLAP_EARLIER = 0;
+    /** Resolve a time in an overlap to its second occurrence. */
+    static final int DST_OVERLAP_LATER = 1;
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 7 * DateTimeState.MILLIS_PER_DAY;
+
+    private static final Map<String, ZoneTransitions> sTables = new HashMap<String, ZoneTransitions>();
+
+    private final TimeZone mZone;
+    private final long mStartMillis;
+    private final long mEndMillis;
+    // The instants at which the offset changes
+    private final long[] mTransitions;
+    // The offset before the first transition, then the offset from each
+    // transition on, so one longer than mTransitions
+    private final int[] mOffsets;
+    // The first local time affected by each transition: the start of its
+    // gap or overlap
+    private final long[] mLocalStarts;
+
+    /**
+     * Return the shared table for the given zone and years.
+     *
+     * @param zone
+     * @param startYear  the first year the pickers can show
+     * @param endYear  the last year the pickers can show
+     * @return
+     */
+    static synchronized ZoneTransitions forZone(TimeZone zone, int startYear, int endYear)
+    {
+        String key = zone.getID() + '|' + startYear + '|' + endYear;
+        ZoneTransitions table = sTables.get(key);
+
+        if (table == null)
+        {
+            // A day of margin on each side, for the offset itself
+            long startMillis = (DateTimeState.daysFromCivil(startYear, 1, 1) - 1) * DateTimeState.MILLIS_PER_DAY;
+            long endMillis = (DateTimeState.daysFromCivil(endYear + 1, 1, 1) + 1) * DateTimeState.MILLIS_PER_DAY;
+
+            table = new ZoneTransitions(zone, startMillis, endMillis);
+            sTables.put(key, table);
+        }
+
+        return table;
+    }
+
+    private ZoneTransitions(TimeZone zone, long startMillis, long endMillis)
+    {
+        mZone = zone;
+        mStartMillis = startMillis;
+        mEndMillis = endMillis;
+
+        long[] transitions = new long[16];
+        int[] offsets = new int[17];
+        int count = 0;
+
+        int offset = zone.getOffset(startMillis);
+        offsets[0] = offset;
+
+        long millis = startMillis;
+
+        while (millis < endMillis)
+        {
+            long sample = Math.min(millis + SAMPLE_INTERVAL_MILLIS, endMillis);
+
+            if (zone.getOffset(sample) == offset)
+            {
+                millis = sample;
+                continue;
+            }
+
+            // Find the first instant with a different offset
+            long low = millis;
+            long high = sample;
+
+            while (high - low > 1)
+            {
+                long middle = low + (high - low) / 2;
+
+                if (zone.getOffset(middle) == offset)
+                    low = middle;
+                else
+                    high = middle;
+            }
+
+            if (count == transitions.length)
+            {
+                transitions = Arrays.copyOf(transitions, 2 * count);
+                offsets = Arrays.copyOf(offsets, 2 * count + 1);
+            }
+
+            offset = zone.getOffset(high);
+            transitions[count] = high;
+            offsets[++count] = offset;
+
+            // Carry on from the transition, in case the offset changes
+            // again before the sample.
+            millis = high;
+        }
+
+        mTransitions = Arrays.copyOf(transitions, count);
+        mOffsets = Arrays.copyOf(offsets, count + 1);
+        mLocalStarts = new long[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            mLocalStarts[i] = mTransitions[i] + Math.min(mOffsets[i], mOffsets[i + 1]);
+        }
+    }
+
+    /**
+     * @param utcMillis  milliseconds since the epoch
+     * @return the zone's offset from UTC at that instant, in milliseconds
+     */
+    int getOffset(long utcMillis)
+    {
+        if (utcMillis < mStartMillis || utcMillis >= mEndMillis)
+            return mZone.getOffset(utcMillis);
+
+        int index = Arrays.binarySearch(mTransitions, utcMillis);
+
+        return mOffsets[index >= 0 ? index + 1 : -index - 1];
+    }
+
+    /**
+     * Convert a local wall-clock time to an instant.
+     *
+     * @param localMillis  the local time, expressed as if it were
+     *                     milliseconds since the epoch in UTC
+     * @param gapPolicy  {@link #DST_GAP_SHIFT_FORWARD} or
+     *                   {@link #DST_GAP_NEXT_VALID_TIME}
+     * @param overlapPolicy  {@link #DST_OVERLAP_EARLIER} or
+     *                       {@link #DST_OVERLAP_LATER}
+     * @return milliseconds since the epoch
+     */
+    long toUtcMillis(long localMillis, int gapPolicy, int overlapPolicy)
+    {
+        if (localMillis < mStartMillis || localMillis >= mEndMillis)
+            return toUtcMillisFromZone(localMillis);
+
+        // Find the last transition that affects local times at or before
+        // this one
+        int index = Arrays.binarySearch(mLocalStarts, localMillis);
+
+        if (index < 0)
+            index = -index - 2;
+
+        if (index < 0)
+            return localMillis - mOffsets[0];
+
+        long transition = mTransitions[index];
+        int offsetBefore = mOffsets[index];
+        int offsetAfter = mOffsets[index + 1];
+
+        // Past the gap or overlap
+        if (localMillis >= transition + Math.max(offsetBefore, offsetAfter))
+            return localMillis - offsetAfter;
+
+        if (offsetAfter > offsetBefore)
+        {
+            // In the gap: this local time never happened
+            return gapPolicy == DST_GAP_NEXT_VALID_TIME ? transition : localMillis - offsetBefore;
+        }
+        else
+        {
+            // In the overlap: this local time happened twice
+            return overlapPolicy == DST_OVERLAP_LATER ? localMillis - offsetAfter : localMillis - offsetBefore;
+        }
+    }
+
+    /**
+     * Estimate the offset from the standard offset, then correct it once
+     * in case the estimate fell on the other side of a transition.
+     */
+    private long toUtcMillisFromZone(long localMillis)
+    {
+        int offset = mZone.getOffset(localMillis - mZone.getRawOffset());
+        int correctedOffset = mZone.getOffset(localMillis - offset);
+
+        return localMillis - correctedOffset;
+    }
+
+    /**
+     * Format an offset for display, for example {@code GMT+05:30}.
+     */
+    static String formatOffset(int offsetMillis)
+    {
+        int offsetMinutes = offsetMillis / (int) DateTimeState.MILLIS_PER_MINUTE;
+        int absMinutes = Math.abs(offsetMinutes);
+        int hours = absMinutes / 60;
+        int minutes = absMinutes % 60;
+
+        StringBuilder sb = new StringBuilder(9);
+        sb.append("GMT").append(offsetMinutes < 0 ? '-' : '+');
+        sb.append(hours < 10 ? "0" : "").append(hours).append(':');
+        sb.append(minutes < 10 ? "0" : "").append(minutes);
+
+        return sb.toString();
+    }
+}
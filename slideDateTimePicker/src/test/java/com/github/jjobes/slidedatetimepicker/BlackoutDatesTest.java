@@ -0,0 +1,176 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * <p>Checks how {@link BlackoutDates} builds its index of intervals and
+ * finds the available days around them.</p>
+ *
+ * @author jjobes
+ *
+ */
+public class BlackoutDatesTest
+{
+    // Days 10-15, 20 and 30-35
+    private static final BlackoutDates BLACKOUT_DATES = new BlackoutDates(new long[] {
+            BlackoutDates.pack(10, 15),
+            BlackoutDates.pack(20, 20),
+            BlackoutDates.pack(30, 35) });
+
+    @Test
+    public void normalizeMergesOverlappingAndAdjacentIntervals()
+    {
+        long[] intervals = {
+                BlackoutDates.pack(20, 25),
+                BlackoutDates.pack(10, 15),
+                BlackoutDates.pack(14, 18),    // overlaps 10-15
+                BlackoutDates.pack(19, 19),    // touches 14-18 and 20-25
+                BlackoutDates.pack(12, 13),    // inside 10-15
+                BlackoutDates.pack(30, 30),
+                BlackoutDates.pack(32, 40) };  // a day apart from 30
+
+        assertArrayEquals(new long[] {
+                BlackoutDates.pack(10, 25),
+                BlackoutDates.pack(30, 30),
+                BlackoutDates.pack(32, 40) },
+                BlackoutDates.normalize(intervals));
+    }
+
+    @Test
+    public void normalizeMergesAcrossTheEpoch()
+    {
+        long[] intervals = {
+                BlackoutDates.pack(0, 3),
+                BlackoutDates.pack(-5, -1),
+                BlackoutDates.pack(-8, -7),
+                BlackoutDates.pack(-8, -8) };
+
+        assertArrayEquals(new long[] { BlackoutDates.pack(-8, -7), BlackoutDates.pack(-5, 3) },
+                BlackoutDates.normalize(intervals));
+    }
+
+    @Test
+    public void normalizeKeepsDisjointIntervals()
+    {
+        long[] intervals = { BlackoutDates.pack(5, 6), BlackoutDates.pack(1, 2) };
+        long[] normalized = BlackoutDates.normalize(intervals);
+
+        assertArrayEquals(new long[] { BlackoutDates.pack(1, 2), BlackoutDates.pack(5, 6) }, normalized);
+        // Nothing was merged, so the array is reused
+        assertTrue(normalized == intervals);
+    }
+
+    @Test
+    public void toIntervalsUsesTheDaysInTheZone()
+    {
+        TimeZone zone = TimeZone.getTimeZone("GMT-05:00");
+        long day = DateTimeState.MILLIS_PER_DAY;
+        long hour = day / 24;
+
+        // Day 1 at 02:00 UTC is still day 0 five hours west, and day 2 at
+        // 04:00 UTC still day 1, which touches the next range.
+        long[] ranges = BlackoutDates.appendRange(null, 0, day + 2 * hour, 2 * day + 4 * hour);
+        ranges = BlackoutDates.appendRange(ranges, 1, 2 * day + 6 * hour, 3 * day);
+
+        assertArrayEquals(new long[] { BlackoutDates.pack(0, 2) },
+                BlackoutDates.toIntervals(ranges, 2, zone));
+        assertNull(BlackoutDates.toIntervals(null, 0, zone));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void appendRangeRejectsAnEndBeforeTheStart()
+    {
+        BlackoutDates.appendRange(null, 0, 2000L, 1000L);
+    }
+
+    @Test
+    public void lookupsBeforeTheFirstInterval()
+    {
+        assertAvailable(Integer.MIN_VALUE);
+        assertAvailable(0);
+        assertAvailable(9);
+    }
+
+    @Test
+    public void lookupsInsideAndBetweenIntervals()
+    {
+        assertBlackedOut(10, 16, 9);
+        assertBlackedOut(12, 16, 9);
+        assertBlackedOut(15, 16, 9);
+        assertAvailable(16);
+        assertAvailable(19);
+        assertBlackedOut(20, 21, 19);
+        assertAvailable(21);
+    }
+
+    @Test
+    public void lookupsBeforeInsideAndAfterTheLastInterval()
+    {
+        assertAvailable(29);
+        assertBlackedOut(30, 36, 29);
+        assertBlackedOut(33, 36, 29);
+        assertBlackedOut(35, 36, 29);
+        assertAvailable(36);
+        assertAvailable(1000);
+        assertAvailable(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void noneBlacksOutNothing()
+    {
+        assertTrue(BlackoutDates.NONE.isEmpty());
+        assertFalse(BlackoutDates.NONE.isBlackedOut(0));
+        assertEquals(7, BlackoutDates.NONE.nextAvailableDay(7));
+        assertEquals(7, BlackoutDates.NONE.previousAvailableDay(7));
+        assertEquals(7, BlackoutDates.NONE.findAvailableDay(7, 1, 0, 10));
+    }
+
+    @Test
+    public void findAvailableDayLooksInTheScrollDirectionFirst()
+    {
+        assertEquals(16, BLACKOUT_DATES.findAvailableDay(12, 1, 0, 100));
+        assertEquals(9, BLACKOUT_DATES.findAvailableDay(12, -1, 0, 100));
+        assertEquals(21, BLACKOUT_DATES.findAvailableDay(20, 0, 0, 100));
+        assertEquals(18, BLACKOUT_DATES.findAvailableDay(18, -1, 0, 100));
+    }
+
+    @Test
+    public void findAvailableDayTurnsBackAtTheBounds()
+    {
+        assertEquals(9, BLACKOUT_DATES.findAvailableDay(12, 1, 0, 15));
+        assertEquals(16, BLACKOUT_DATES.findAvailableDay(12, -1, 10, 100));
+        assertEquals(29, BLACKOUT_DATES.findAvailableDay(33, 1, 0, 35));
+    }
+
+    @Test
+    public void findAvailableDayReturnsTheDayWhenTheRangeIsFullyBlackedOut()
+    {
+        assertEquals(12, BLACKOUT_DATES.findAvailableDay(12, 1, 10, 15));
+        assertEquals(12, BLACKOUT_DATES.findAvailableDay(12, -1, 10, 15));
+        assertEquals(13, BLACKOUT_DATES.findAvailableDay(13, 1, 11, 14));
+        assertEquals(33, BLACKOUT_DATES.findAvailableDay(33, -1, 30, 35));
+    }
+
+    private static void assertAvailable(int epochDay)
+    {
+        assertFalse(BLACKOUT_DATES.isBlackedOut(epochDay));
+        assertEquals(epochDay, BLACKOUT_DATES.nextAvailableDay(epochDay));
+        assertEquals(epochDay, BLACKOUT_DATES.previousAvailableDay(epochDay));
+        assertEquals(epochDay, BLACKOUT_DATES.findAvailableDay(epochDay, 1, Integer.MIN_VALUE, Integer.MAX_VALUE));
+    }
+
+    private static void assertBlackedOut(int epochDay, int nextAvailableDay, int previousAvailableDay)
+    {
+        assertTrue(BLACKOUT_DATES.isBlackedOut(epochDay));
+        assertEquals(nextAvailableDay, BLACKOUT_DATES.nextAvailableDay(epochDay));
+        assertEquals(previousAvailableDay, BLACKOUT_DATES.previousAvailableDay(epochDay));
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * <p>Checks how {@link DateTimeConstraints} clamps a selection to its
+ * minimum and maximum dates, and moves it off days that cannot be
+ * selected.</p>
+ *
+ * @author jjobes
+ *
+ */
+public class DateTimeConstraintsTest
+{
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    // 2015-06-15
+    private static final int DAY = DateTimeState.daysFromCivil(2015, 6, 15);
+
+    @Test
+    public void minAndMaxOnTheSameDay()
+    {
+        DateTimeConstraints constraints = new DateTimeConstraints(
+                utc(DAY, 9, 0), utc(DAY, 17, 0), UTC, 1, BlackoutDates.NONE);
+
+        assertEquals(DAY, constraints.getMinEpochDay());
+        assertEquals(DAY, constraints.getMaxEpochDay());
+        assertEquals(9 * 60, constraints.getMinMinuteOfDay(DAY));
+        assertEquals(17 * 60, constraints.getMaxMinuteOfDay(DAY));
+
+        assertClamped(constraints, DAY - 3, 12 * 60, DAY, 9 * 60);
+        assertClamped(constraints, DAY + 1, 8 * 60, DAY, 17 * 60);
+        assertClamped(constraints, DAY, 8 * 60 + 59, DAY, 9 * 60);
+        assertClamped(constraints, DAY, 17 * 60 + 1, DAY, 17 * 60);
+
+        assertUnchanged(constraints, DAY, 9 * 60);
+        assertUnchanged(constraints, DAY, 12 * 60);
+        assertUnchanged(constraints, DAY, 17 * 60);
+    }
+
+    @Test
+    public void maxBeforeMinCollapsesOntoMin()
+    {
+        DateTimeConstraints constraints = new DateTimeConstraints(
+                utc(DAY, 17, 0), utc(DAY, 9, 0), UTC, 1, BlackoutDates.NONE);
+
+        assertEquals(17 * 60, constraints.getMinMinuteOfDay(DAY));
+        assertEquals(17 * 60, constraints.getMaxMinuteOfDay(DAY));
+        assertClamped(constraints, DAY, 12 * 60, DAY, 17 * 60);
+        assertEquals(utc(DAY, 17, 0).getTime(), constraints.clampMillis(utc(DAY, 9, 0).getTime()));
+    }
+
+    @Test
+    public void clampsTheTimeOnTheBoundaryDaysOnly()
+    {
+        DateTimeConstraints constraints = new DateTimeConstraints(
+                utc(DAY, 9, 30), utc(DAY + 2, 17, 15), UTC, 1, BlackoutDates.NONE);
+
+        assertClamped(constraints, DAY, 8 * 60, DAY, 9 * 60 + 30);
+        assertClamped(constraints, DAY + 2, 18 * 60, DAY + 2, 17 * 60 + 15);
+
+        // The whole day is allowed in between
+        assertEquals(0, constraints.getMinMinuteOfDay(DAY + 1));
+        assertEquals(DateTimeState.MINUTES_PER_DAY - 1, constraints.getMaxMinuteOfDay(DAY + 1));
+        assertUnchanged(constraints, DAY + 1, 0);
+        assertUnchanged(constraints, DAY + 1, DateTimeState.MINUTES_PER_DAY - 1);
+        assertUnchanged(constraints, DAY, DateTimeState.MINUTES_PER_DAY - 1);
+        assertUnchanged(constraints, DAY + 2, 0);
+    }
+
+    @Test
+    public void clampCarriesTheDayAcrossMidnight()
+    {
+        DateTimeConstraints constraints = new DateTimeConstraints(
+                utc(DAY, 0, 10), utc(DAY, 23, 50), UTC, 1, BlackoutDates.NONE);
+
+        assertClamped(constraints, DAY - 1, 23 * 60 + 55, DAY, 10);
+        assertClamped(constraints, DAY + 1, 5, DAY, 23 * 60 + 50);
+    }
+
+    @Test
+    public void clampCarriesTheDayAcrossMidnightBeforeTheEpoch()
+    {
+        // 1969-12-31 23:50 to 1970-01-01 00:10
+        DateTimeConstraints constraints = new DateTimeConstraints(
+                utc(-1, 23, 50), utc(0, 0, 10), UTC, 1, BlackoutDates.NONE);
+
+        assertEquals(-1, constraints.getMinEpochDay());
+        assertEquals(0, constraints.getMaxEpochDay());
+        assertEquals(23 * 60 + 50, constraints.getMinMinuteOfDay(-1));
+        assertEquals(10, constraints.getMaxMinuteOfDay(0));
+
+        assertClamped(constraints, -2, 10 * 60, -1, 23 * 60 + 50);
+        assertClamped(constraints, 1, 0, 0, 10);
+        assertUnchanged(constraints, -1, 23 * 60 + 59);
+        assertUnchanged(constraints, 0, 0);
+    }
+
+    @Test
+    public void boundsAreLocalToTheZone()
+    {
+        // 23:30 UTC is 00:30 the next day an hour east
+        DateTimeConstraints constraints = new DateTimeConstraints(
+                utc(DAY - 1, 23, 30), null, TimeZone.getTimeZone("GMT+01:00"), 1, BlackoutDates.NONE);
+
+        assertEquals(DAY, constraints.getMinEpochDay());
+        assertEquals(30, constraints.getMinMinuteOfDay(DAY));
+        assertClamped(constraints, DAY - 1, 23 * 60 + 45, DAY, 30);
+    }
+
+    @Test
+    public void boundsMoveInwardsOntoTheMinuteInterval()
+    {
+        DateTimeConstraints constraints = new DateTimeConstraints(
+                utc(DAY, 9, 52), utc(DAY, 17, 7), UTC, 15, BlackoutDates.NONE);
+
+        assertEquals(10 * 60, constraints.getMinMinuteOfDay(DAY));
+        assertEquals(17 * 60, constraints.getMaxMinuteOfDay(DAY));
+        assertClamped(constraints, DAY, 9 * 60 + 55, DAY, 10 * 60);
+        assertClamped(constraints, DAY, 17 * 60 + 5, DAY, 17 * 60);
+    }
+
+    @Test
+    public void minuteIntervalRoundingPastTheMaxIsClampedBack()
+    {
+        DateTimeConstraints constraints = new DateTimeConstraints(
+                null, utc(DAY, 23, 59), UTC, 15, BlackoutDates.NONE);
+
+        assertEquals(23 * 60 + 45, constraints.getMaxMinuteOfDay(DAY));
+
+        // 23:55 rounds up to midnight, the next day
+        DateTimeState state = newState(DAY, 23 * 60 + 55);
+        state.roundToMinuteInterval(15);
+        assertEquals(DAY + 1, state.getEpochDay());
+        assertEquals(0, state.getMinuteOfDay());
+
+        assertTrue(constraints.clamp(state));
+        assertEquals(DAY, state.getEpochDay());
+        assertEquals(23 * 60 + 45, state.getMinuteOfDay());
+    }
+
+    @Test
+    public void clampMovesOffABlackedOutDayOntoTheBoundaryTime()
+    {
+        Date minDate = utc(DAY, 9, 0);
+        Date maxDate = utc(DAY + 2, 17, 0);
+
+        DateTimeConstraints nextDayAllowed = new DateTimeConstraints(minDate, maxDate, UTC, 1,
+                blackout(DAY + 1, DAY + 1));
+        assertClamped(nextDayAllowed, DAY + 1, 20 * 60, DAY + 2, 17 * 60);
+
+        // Only the day before is left, so go back to it
+        DateTimeConstraints onlyPreviousDayAllowed = new DateTimeConstraints(minDate, maxDate, UTC, 1,
+                blackout(DAY + 1, DAY + 2));
+        assertClamped(onlyPreviousDayAllowed, DAY + 1, 8 * 60, DAY, 9 * 60);
+    }
+
+    @Test
+    public void findAvailableDaySkipsBlackedOutAndUnavailableDays()
+    {
+        DateTimeConstraints constraints = new DateTimeConstraints(
+                null, null, UTC, 1, blackout(DAY + 3, DAY + 3));
+        constraints.setDayAvailability(unavailable(DAY + 1, DAY + 2));
+
+        assertEquals(DAY + 4, constraints.findAvailableDay(DAY + 1, 1, DAY, DAY + 10));
+        assertEquals(DAY, constraints.findAvailableDay(DAY + 2, -1, DAY, DAY + 10));
+        assertEquals(DAY + 5, constraints.findAvailableDay(DAY + 5, -1, DAY, DAY + 10));
+
+        // Nothing can be selected between the bounds
+        assertEquals(DAY + 1, constraints.findAvailableDay(DAY + 1, 1, DAY + 1, DAY + 3));
+        assertEquals(DAY + 2, constraints.findAvailableDay(DAY + 2, -1, DAY + 1, DAY + 3));
+    }
+
+    private static Date utc(int epochDay, int hour, int minute)
+    {
+        return new Date(epochDay * DateTimeState.MILLIS_PER_DAY
+                + (hour * 60 + minute) * DateTimeState.MILLIS_PER_MINUTE);
+    }
+
+    private static BlackoutDates blackout(int startEpochDay, int endEpochDay)
+    {
+        return new BlackoutDates(new long[] { BlackoutDates.pack(startEpochDay, endEpochDay) });
+    }
+
+    private static DayAvailability unavailable(final int... epochDays)
+    {
+        return new DayAvailability() {
+
+            @Override
+            public boolean isUnavailable(int epochDay)
+            {
+                for (int day : epochDays)
+                {
+                    if (day == epochDay)
+                        return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    private static DateTimeState newState(int epochDay, int minuteOfDay)
+    {
+        DateTimeState state = new DateTimeState();
+        state.setEpochDay(epochDay);
+        state.setMinuteOfDay(minuteOfDay);
+
+        return state;
+    }
+
+    private static void assertClamped(DateTimeConstraints constraints, int epochDay, int minuteOfDay,
+            int expectedEpochDay, int expectedMinuteOfDay)
+    {
+        DateTimeState state = newState(epochDay, minuteOfDay);
+
+        assertTrue(constraints.clamp(state));
+        assertEquals(expectedEpochDay, state.getEpochDay());
+        assertEquals(expectedMinuteOfDay, state.getMinuteOfDay());
+    }
+
+    private static void assertUnchanged(DateTimeConstraints constraints, int epochDay, int minuteOfDay)
+    {
+        DateTimeState state = newState(epochDay, minuteOfDay);
+
+        assertFalse(constraints.clamp(state));
+        assertEquals(epochDay, state.getEpochDay());
+        assertEquals(minuteOfDay, state.getMinuteOfDay());
+    }
+}
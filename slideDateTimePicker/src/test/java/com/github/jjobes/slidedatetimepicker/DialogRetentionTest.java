@@ -0,0 +1,230 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ActivityController;
+
+import android.app.Activity;
+import android.support.v4.app.FragmentActivity;
+import android.support.v4.app.FragmentManager;
+
+/**
+ * <p>Checks that the retained dialog does not keep the activity that
+ * showed it alive, once that activity has been recreated by a rotation
+ * or the dialog has been dismissed.</p>
+ *
+ * <p>The listener holds its activity, as an anonymous listener in an
+ * activity does, so the activity can only be collected if neither the
+ * dialog nor {@link PickerRegistry} holds the listener.</p>
+ *
+ * <p>Since the dialog drops its listener on rotation, the result only
+ * reaches the listener that the new activity binds with
+ * {@link SlideDateTimePicker#rebindListener(String, SlideDateTimeListener)}.
+ * Each test uses its own request key, since the registry is static.</p>
+ *
+ * @author jjobes
+ *
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DialogRetentionTest
+{
+    private static final int MAX_GC_ATTEMPTS = 20;
+
+    private static final Date INITIAL_DATE = new Date(1420070400000L);
+
+    @Test
+    public void rotatedActivityIsCollectedWhileTheDialogShows()
+    {
+        ActivityController<FragmentActivity> controller = createActivity();
+        WeakReference<Activity> oldActivity = showDialog(controller, "rotated");
+
+        controller.configurationChange();
+
+        // The new activity binds its own listener, as a client does in
+        // onCreate()
+        FragmentActivity newActivity = controller.get();
+        assertTrue(SlideDateTimePicker.rebindListener("rotated", new ActivityListener(newActivity)));
+
+        // The retained dialog is still showing in the new activity
+        assertNotNull(findDialog(newActivity, "rotated"));
+        assertTrue(isCollected(oldActivity));
+
+        dismiss(newActivity, "rotated");
+        controller.pause().stop().destroy();
+    }
+
+    @Test
+    public void activityIsCollectedAfterTheDialogIsDismissed()
+    {
+        ActivityController<FragmentActivity> controller = createActivity();
+        WeakReference<Activity> activity = showDialog(controller, "dismissed");
+
+        dismiss(controller.get(), "dismissed");
+
+        // Still alive, so the dialog did not go away by itself
+        assertFalse(isCollected(activity));
+
+        controller.pause().stop().destroy();
+        controller = null;
+
+        assertTrue(isCollected(activity));
+    }
+
+    @Test
+    public void reboundListenerReceivesTheResultAfterRotation()
+    {
+        ActivityController<FragmentActivity> controller = createActivity();
+        RecordingListener oldListener = new RecordingListener();
+        show(controller.get(), "rebound", oldListener);
+
+        controller.configurationChange();
+
+        RecordingListener newListener = new RecordingListener();
+        assertTrue(SlideDateTimePicker.rebindListener("rebound", newListener));
+
+        clickOk(controller.get(), "rebound");
+
+        assertEquals(1, newListener.mDates.size());
+        assertEquals(INITIAL_DATE, newListener.mDates.get(0));
+        assertTrue(oldListener.mDates.isEmpty());
+
+        controller.pause().stop().destroy();
+    }
+
+    @Test
+    public void resultWaitsForTheListenerToBeRebound()
+    {
+        ActivityController<FragmentActivity> controller = createActivity();
+        RecordingListener oldListener = new RecordingListener();
+        show(controller.get(), "late", oldListener);
+
+        controller.configurationChange();
+
+        // The user presses OK before the new activity binds a listener
+        clickOk(controller.get(), "late");
+        assertTrue(oldListener.mDates.isEmpty());
+
+        RecordingListener newListener = new RecordingListener();
+        assertTrue(SlideDateTimePicker.rebindListener("late", newListener));
+
+        assertEquals(1, newListener.mDates.size());
+        assertEquals(INITIAL_DATE, newListener.mDates.get(0));
+        assertTrue(oldListener.mDates.isEmpty());
+
+        controller.pause().stop().destroy();
+    }
+
+    static ActivityController<FragmentActivity> createActivity()
+    {
+        return Robolectric.buildActivity(FragmentActivity.class).create().start().resume().visible();
+    }
+
+    /**
+     * Show a dialog from the controller's activity with a listener that
+     * holds the activity, keeping no other reference to it.
+     *
+     * @return a weak reference to the activity
+     */
+    private static WeakReference<Activity> showDialog(ActivityController<FragmentActivity> controller,
+            String requestKey)
+    {
+        FragmentActivity activity = controller.get();
+        show(activity, requestKey, new ActivityListener(activity));
+
+        return new WeakReference<Activity>(activity);
+    }
+
+    private static void show(FragmentActivity activity, String requestKey, SlideDateTimeListener listener)
+    {
+        FragmentManager fm = activity.getSupportFragmentManager();
+
+        new SlideDateTimePicker.Builder(fm)
+            .setListener(listener)
+            .setRequestKey(requestKey)
+            .setInitialDate(INITIAL_DATE)
+            .build()
+            .show();
+
+        fm.executePendingTransactions();
+    }
+
+    static SlideDateTimeDialogFragment findDialog(FragmentActivity activity, String requestKey)
+    {
+        return (SlideDateTimeDialogFragment) activity.getSupportFragmentManager().findFragmentByTag(
+                SlideDateTimeDialogFragment.getFragmentTag(requestKey));
+    }
+
+    private static void clickOk(FragmentActivity activity, String requestKey)
+    {
+        findDialog(activity, requestKey).getDialog().findViewById(R.id.okButton).performClick();
+        activity.getSupportFragmentManager().executePendingTransactions();
+    }
+
+    private static void dismiss(FragmentActivity activity, String requestKey)
+    {
+        findDialog(activity, requestKey).dismiss();
+        activity.getSupportFragmentManager().executePendingTransactions();
+    }
+
+    static boolean isCollected(WeakReference<?> reference)
+    {
+        for (int i = 0; i < MAX_GC_ATTEMPTS && reference.get() != null; i++)
+        {
+            System.gc();
+            System.runFinalization();
+
+            try
+            {
+                Thread.sleep(10);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        return reference.get() == null;
+    }
+
+    private static final class ActivityListener extends SlideDateTimeListener
+    {
+        private final Activity mActivity;
+
+        ActivityListener(Activity activity)
+        {
+            mActivity = activity;
+        }
+
+        @Override
+        public void onDateTimeSet(Date date)
+        {
+            mActivity.setTitle(date.toString());
+        }
+    }
+
+    private static final class RecordingListener extends SlideDateTimeListener
+    {
+        final List<Date> mDates = new ArrayList<Date>();
+
+        @Override
+        public void onDateTimeSet(Date date)
+        {
+            mDates.add(date);
+        }
+    }
+}
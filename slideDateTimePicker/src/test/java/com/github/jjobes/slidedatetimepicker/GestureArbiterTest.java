@@ -0,0 +1,375 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>Replays recorded gestures through {@link GestureArbiter} the way
+ * {@link CustomViewPager} feeds it, and checks which consumer wins each
+ * gesture and how many events the ViewPager and the picker receive.</p>
+ *
+ * <p>The gestures are sampled every 8 ms, as a 120 Hz touch panel
+ * reports them, or slower for the slow drags. Velocities are taken
+ * between consecutive samples.</p>
+ *
+ * @author jjobes
+ *
+ */
+public class GestureArbiterTest
+{
+    // The scaled touch slop (8dp) and minimum fling velocity (50dp/s) of
+    // an xhdpi device
+    private static final float TOUCH_SLOP = 16;
+    private static final float LOCK_VELOCITY = 100;
+
+    private GestureArbiter mArbiter;
+
+    @Before
+    public void setUp()
+    {
+        mArbiter = new GestureArbiter(TOUCH_SLOP, LOCK_VELOCITY);
+    }
+
+    @Test
+    public void fastHorizontalSwipeLocksToThePagerBeforeTheSlop()
+    {
+        Dispatches dispatches = replay(new Gesture(100, 100)
+                .move(8, 104, 101)     // under half the slop: held back
+                .move(16, 112, 102)    // fast and horizontal: locked
+                .move(24, 140, 103)
+                .move(32, 180, 104)
+                .up(40, 190, 104));
+
+        assertEquals(GestureArbiter.CONSUMER_PAGER, dispatches.mWinner);
+        assertEquals(2, dispatches.mLockedAtEvent);
+        assertEquals(1, dispatches.mHeldBack);
+        // The down, three moves and the up
+        assertEquals(5, dispatches.mPagerEvents);
+        assertEquals(0, dispatches.mPagerCancels);
+        // Only the down, then a cancel
+        assertEquals(1, dispatches.mPickerEvents);
+        assertEquals(1, dispatches.mPickerCancels);
+    }
+
+    @Test
+    public void verticalWheelFlingLocksToThePickerBeforeTheSlop()
+    {
+        Dispatches dispatches = replay(new Gesture(100, 100)
+                .move(8, 101, 107)
+                .move(16, 101, 114)
+                .move(24, 101, 140)
+                .move(32, 102, 180)
+                .move(40, 102, 230)
+                .up(44, 102, 250));
+
+        assertEquals(GestureArbiter.CONSUMER_PICKER, dispatches.mWinner);
+        assertEquals(2, dispatches.mLockedAtEvent);
+        assertEquals(1, dispatches.mHeldBack);
+        assertEquals(1, dispatches.mPagerEvents);
+        assertEquals(1, dispatches.mPagerCancels);
+        // The down, four moves and the up
+        assertEquals(6, dispatches.mPickerEvents);
+        assertEquals(0, dispatches.mPickerCancels);
+    }
+
+    @Test
+    public void diagonalDragWaitsForTheSlopAndGoesToThePickerOnATie()
+    {
+        Dispatches dispatches = replay(new Gesture(100, 100)
+                .move(8, 105, 105)
+                .move(16, 110, 110)    // past half the slop, but no axis dominates
+                .move(24, 115, 115)
+                .move(32, 120, 120)    // past the slop
+                .move(40, 130, 130)
+                .up(48, 130, 130));
+
+        assertEquals(GestureArbiter.CONSUMER_PICKER, dispatches.mWinner);
+        assertEquals(4, dispatches.mLockedAtEvent);
+        assertEquals(3, dispatches.mHeldBack);
+        assertEquals(1, dispatches.mPagerEvents);
+        assertEquals(1, dispatches.mPagerCancels);
+        assertEquals(4, dispatches.mPickerEvents);
+        assertEquals(0, dispatches.mPickerCancels);
+    }
+
+    @Test
+    public void diagonalDragGoesToTheLargerAxisAtTheSlop()
+    {
+        Dispatches dispatches = replay(new Gesture(100, 100)
+                .move(8, 106, 96)
+                .move(16, 112, 92)     // 1.5 times faster horizontally: not enough
+                .move(24, 118, 88)     // past the slop
+                .up(32, 124, 84));
+
+        assertEquals(GestureArbiter.CONSUMER_PAGER, dispatches.mWinner);
+        assertEquals(3, dispatches.mLockedAtEvent);
+        assertEquals(2, dispatches.mHeldBack);
+        assertEquals(3, dispatches.mPagerEvents);
+        assertEquals(0, dispatches.mPagerCancels);
+        assertEquals(1, dispatches.mPickerEvents);
+        assertEquals(1, dispatches.mPickerCancels);
+    }
+
+    @Test
+    public void slowHorizontalDragWaitsForTheSlop()
+    {
+        // 60 px/s, under the lock velocity
+        Dispatches dispatches = replay(new Gesture(100, 100)
+                .move(50, 103, 100)
+                .move(100, 106, 101)
+                .move(150, 109, 101)
+                .move(200, 112, 100)
+                .move(250, 115, 100)
+                .move(300, 118, 101)   // past the slop
+                .move(350, 121, 101)
+                .up(400, 121, 101));
+
+        assertEquals(GestureArbiter.CONSUMER_PAGER, dispatches.mWinner);
+        assertEquals(6, dispatches.mLockedAtEvent);
+        assertEquals(5, dispatches.mHeldBack);
+        assertEquals(4, dispatches.mPagerEvents);
+        assertEquals(0, dispatches.mPagerCancels);
+        assertEquals(1, dispatches.mPickerEvents);
+        assertEquals(1, dispatches.mPickerCancels);
+    }
+
+    @Test
+    public void slowVerticalDragWaitsForTheSlop()
+    {
+        Dispatches dispatches = replay(new Gesture(100, 100)
+                .move(50, 100, 96)
+                .move(100, 101, 92)
+                .move(150, 101, 88)
+                .move(200, 101, 84)
+                .move(250, 102, 80)    // past the slop
+                .up(300, 102, 78));
+
+        assertEquals(GestureArbiter.CONSUMER_PICKER, dispatches.mWinner);
+        assertEquals(5, dispatches.mLockedAtEvent);
+        assertEquals(4, dispatches.mHeldBack);
+        assertEquals(1, dispatches.mPagerEvents);
+        assertEquals(1, dispatches.mPagerCancels);
+        assertEquals(3, dispatches.mPickerEvents);
+        assertEquals(0, dispatches.mPickerCancels);
+    }
+
+    @Test
+    public void tapGoesToThePicker()
+    {
+        Dispatches dispatches = replay(new Gesture(100, 100)
+                .move(8, 102, 101)
+                .up(60, 102, 101));
+
+        assertEquals(GestureArbiter.CONSUMER_PICKER, dispatches.mWinner);
+        assertEquals(2, dispatches.mLockedAtEvent);
+        assertEquals(1, dispatches.mHeldBack);
+        assertEquals(1, dispatches.mPagerEvents);
+        assertEquals(1, dispatches.mPagerCancels);
+        assertEquals(2, dispatches.mPickerEvents);
+        assertEquals(0, dispatches.mPickerCancels);
+    }
+
+    @Test
+    public void touchWhilePagerSettlesGoesToThePager()
+    {
+        Dispatches dispatches = replay(new Gesture(100, 100)
+                .settling()
+                .move(8, 100, 120)     // even a vertical one
+                .move(16, 100, 160)
+                .up(24, 100, 170));
+
+        assertEquals(GestureArbiter.CONSUMER_PAGER, dispatches.mWinner);
+        assertEquals(0, dispatches.mLockedAtEvent);
+        assertEquals(0, dispatches.mHeldBack);
+        assertEquals(4, dispatches.mPagerEvents);
+        assertEquals(0, dispatches.mPagerCancels);
+        assertEquals(0, dispatches.mPickerEvents);
+        assertEquals(0, dispatches.mPickerCancels);
+    }
+
+    @Test
+    public void cancelBeforeTheLockGoesToBoth()
+    {
+        Dispatches dispatches = replay(new Gesture(100, 100)
+                .move(8, 103, 103)
+                .cancel(16, 103, 103));
+
+        assertEquals(GestureArbiter.CONSUMER_UNDECIDED, dispatches.mWinner);
+        assertEquals(1, dispatches.mHeldBack);
+        assertEquals(2, dispatches.mPagerEvents);
+        assertEquals(0, dispatches.mPagerCancels);
+        assertEquals(2, dispatches.mPickerEvents);
+        assertEquals(0, dispatches.mPickerCancels);
+    }
+
+    @Test
+    public void eachGestureIsDecidedAfresh()
+    {
+        replay(new Gesture(100, 100)
+                .move(8, 104, 101)
+                .move(16, 112, 102)
+                .up(24, 140, 103));
+
+        assertEquals(GestureArbiter.CONSUMER_UNDECIDED, mArbiter.getConsumer());
+
+        Dispatches dispatches = replay(new Gesture(100, 100)
+                .move(8, 101, 107)
+                .move(16, 101, 114)
+                .up(24, 101, 140));
+
+        assertEquals(GestureArbiter.CONSUMER_PICKER, dispatches.mWinner);
+        assertEquals(1, dispatches.mPagerEvents);
+        assertEquals(1, dispatches.mPagerCancels);
+        assertEquals(3, dispatches.mPickerEvents);
+    }
+
+    @Test
+    public void decideIgnoresVelocityUnderHalfTheSlop()
+    {
+        assertEquals(GestureArbiter.CONSUMER_UNDECIDED,
+                GestureArbiter.decide(7, 0, 5000, 0, TOUCH_SLOP, LOCK_VELOCITY));
+        assertEquals(GestureArbiter.CONSUMER_PAGER,
+                GestureArbiter.decide(9, 0, 5000, 0, TOUCH_SLOP, LOCK_VELOCITY));
+        assertEquals(GestureArbiter.CONSUMER_PICKER,
+                GestureArbiter.decide(0, -9, 0, -5000, TOUCH_SLOP, LOCK_VELOCITY));
+        // Fast, but not fast enough
+        assertEquals(GestureArbiter.CONSUMER_UNDECIDED,
+                GestureArbiter.decide(9, 0, LOCK_VELOCITY, 0, TOUCH_SLOP, LOCK_VELOCITY));
+    }
+
+    /**
+     * Feed the gesture to mArbiter as CustomViewPager does, computing the
+     * velocity only when the arbiter asks for it.
+     */
+    private Dispatches replay(Gesture gesture)
+    {
+        Dispatches dispatches = new Dispatches();
+        float downX = 0;
+        float downY = 0;
+
+        for (int i = 0; i < gesture.mEvents.size(); i++)
+        {
+            float[] event = gesture.mEvents.get(i);
+            int action = (int) event[0];
+
+            if (action == GestureArbiter.ACTION_DOWN)
+            {
+                downX = event[2];
+                downY = event[3];
+            }
+
+            float deltaX = event[2] - downX;
+            float deltaY = event[3] - downY;
+            float velocityX = 0;
+            float velocityY = 0;
+
+            if (action == GestureArbiter.ACTION_MOVE && mArbiter.needsVelocity(deltaX, deltaY))
+            {
+                float[] previous = gesture.mEvents.get(i - 1);
+                float seconds = (event[1] - previous[1]) / 1000f;
+                velocityX = (event[2] - previous[2]) / seconds;
+                velocityY = (event[3] - previous[3]) / seconds;
+            }
+
+            boolean wasUndecided = i == 0 || mArbiter.getConsumer() == GestureArbiter.CONSUMER_UNDECIDED;
+            int routing = mArbiter.route(action, deltaX, deltaY, velocityX, velocityY,
+                    action == GestureArbiter.ACTION_DOWN && gesture.mIsPagerSettling);
+
+            if (routing == 0)
+                dispatches.mHeldBack++;
+            if ((routing & GestureArbiter.DISPATCH_PAGER) != 0)
+                dispatches.mPagerEvents++;
+            if ((routing & GestureArbiter.DISPATCH_PICKER) != 0)
+                dispatches.mPickerEvents++;
+            if ((routing & GestureArbiter.CANCEL_PAGER) != 0)
+                dispatches.mPagerCancels++;
+            if ((routing & GestureArbiter.CANCEL_PICKER) != 0)
+                dispatches.mPickerCancels++;
+
+            // An ACTION_UP also resets the arbiter, so the winner is read
+            // from the routing.
+            int consumer = getConsumer(routing);
+
+            if (wasUndecided && consumer != GestureArbiter.CONSUMER_UNDECIDED)
+            {
+                dispatches.mWinner = consumer;
+                dispatches.mLockedAtEvent = i;
+            }
+        }
+
+        return dispatches;
+    }
+
+    private static int getConsumer(int routing)
+    {
+        boolean toPager = (routing & GestureArbiter.DISPATCH_PAGER) != 0;
+        boolean toPicker = (routing & GestureArbiter.DISPATCH_PICKER) != 0;
+
+        if (toPager && !toPicker)
+            return GestureArbiter.CONSUMER_PAGER;
+        if (toPicker && !toPager)
+            return GestureArbiter.CONSUMER_PICKER;
+
+        return GestureArbiter.CONSUMER_UNDECIDED;
+    }
+
+    /**
+     * A recorded gesture, as {action, time in ms, x, y} samples.
+     */
+    private static final class Gesture
+    {
+        final List<float[]> mEvents = new ArrayList<float[]>();
+        boolean mIsPagerSettling;
+
+        Gesture(float downX, float downY)
+        {
+            add(GestureArbiter.ACTION_DOWN, 0, downX, downY);
+        }
+
+        Gesture settling()
+        {
+            mIsPagerSettling = true;
+            return this;
+        }
+
+        Gesture move(float timeMillis, float x, float y)
+        {
+            return add(GestureArbiter.ACTION_MOVE, timeMillis, x, y);
+        }
+
+        Gesture up(float timeMillis, float x, float y)
+        {
+            return add(GestureArbiter.ACTION_UP, timeMillis, x, y);
+        }
+
+        Gesture cancel(float timeMillis, float x, float y)
+        {
+            return add(GestureArbiter.ACTION_CANCEL, timeMillis, x, y);
+        }
+
+        private Gesture add(int action, float timeMillis, float x, float y)
+        {
+            mEvents.add(new float[] { action, timeMillis, x, y });
+            return this;
+        }
+    }
+
+    /**
+     * What each consumer received during a gesture.
+     */
+    private static final class Dispatches
+    {
+        int mWinner = GestureArbiter.CONSUMER_UNDECIDED;
+        int mLockedAtEvent = -1;
+        int mHeldBack;
+        int mPagerEvents;
+        int mPagerCancels;
+        int mPickerEvents;
+        int mPickerCancels;
+    }
+}
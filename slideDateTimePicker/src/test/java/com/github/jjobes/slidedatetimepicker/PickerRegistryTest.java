@@ -0,0 +1,248 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * <p>Checks that {@link PickerRegistry} lets go of the client's listener,
+ * and so of the activity it belongs to, whenever the dialog no longer
+ * reaches that activity, and that a result kept while no listener is
+ * bound is delivered exactly once.</p>
+ *
+ * <p>A byte array stands in for the activity here.
+ * {@link DialogRetentionTest} checks a real activity, rotated and
+ * dismissed with the dialog showing. Each test uses its own request
+ * keys, since the registry is static.</p>
+ *
+ * <p>Runs under Robolectric only because the registry logs a warning
+ * when a result has no listener.</p>
+ *
+ * @author jjobes
+ *
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class PickerRegistryTest
+{
+    private static final int MAX_GC_ATTEMPTS = 20;
+
+    @After
+    public void tearDown()
+    {
+        PickerRegistry.setCapacity(PickerRegistry.DEFAULT_CAPACITY);
+    }
+
+    @Test
+    public void releasedEntryNoLongerHoldsTheActivity()
+    {
+        PickerRegistry.Entry entry = PickerRegistry.register("released", null, null, null);
+        WeakReference<Object> activity = bindActivityListener("released");
+
+        // Still bound: the dialog reaches the activity
+        assertFalse(isCollected(activity));
+
+        PickerRegistry.releaseListener(entry);
+
+        // The entry is kept for the dialog, but not the activity
+        assertTrue(isCollected(activity));
+        assertNotNull(entry);
+    }
+
+    @Test
+    public void evictedEntryNoLongerHoldsTheActivity()
+    {
+        PickerRegistry.setCapacity(1);
+
+        // The evicted dialog is still on screen and holds its entry
+        PickerRegistry.Entry entry = PickerRegistry.register("evicted", null, null, null);
+        WeakReference<Object> activity = bindActivityListener("evicted");
+
+        PickerRegistry.register("evictor", null, null, null);
+
+        assertTrue(isCollected(activity));
+        assertFalse(PickerRegistry.rebindListener("evicted", new RecordingListener()));
+        assertNotNull(entry);
+    }
+
+    @Test
+    public void replacedEntryNoLongerHoldsTheActivity()
+    {
+        PickerRegistry.Entry entry = PickerRegistry.register("replaced", null, null, null);
+        WeakReference<Object> activity = bindActivityListener("replaced");
+
+        PickerRegistry.register("replaced", new RecordingListener(), null, null);
+
+        assertTrue(isCollected(activity));
+        assertNotNull(entry);
+    }
+
+    @Test
+    public void pendingResultIsDeliveredExactlyOnceOnRebind()
+    {
+        RecordingListener oldListener = new RecordingListener();
+        PickerRegistry.Entry entry = PickerRegistry.register("pending", oldListener, null, null);
+
+        // The activity is recreated, and the user picks a date meanwhile
+        PickerRegistry.releaseListener(entry);
+        PickerRegistry.deliverSelectionChanging(entry, 1000L);
+        PickerRegistry.deliverDateTimeSet(entry, 2000L);
+        PickerRegistry.onDialogDestroyed(entry);
+
+        assertTrue(oldListener.mCalls.isEmpty());
+
+        RecordingListener newListener = new RecordingListener();
+        assertTrue(PickerRegistry.rebindListener("pending", newListener));
+
+        assertEquals(2, newListener.mCalls.size());
+        assertEquals("onSelectionChanging 1000", newListener.mCalls.get(0));
+        assertEquals("onDateTimeSet 2000", newListener.mCalls.get(1));
+
+        // Delivered, so the entry is gone
+        RecordingListener laterListener = new RecordingListener();
+        assertFalse(PickerRegistry.rebindListener("pending", laterListener));
+        assertFalse(PickerRegistry.rebindListener("pending", newListener));
+
+        assertEquals(2, newListener.mCalls.size());
+        assertTrue(laterListener.mCalls.isEmpty());
+        assertTrue(oldListener.mCalls.isEmpty());
+    }
+
+    @Test
+    public void pendingRangeSelectionKeepsBothEnds()
+    {
+        PickerRegistry.Entry entry = PickerRegistry.register("range", null, null, null);
+
+        // Moving the start past the end moves the end as well
+        PickerRegistry.deliverRangeChanging(entry, 1000L, 3000L);
+        PickerRegistry.deliverRangeChanging(entry, 4000L, 4000L);
+        PickerRegistry.deliverDateTimeRangeSet(entry, 4000L, 5000L);
+        PickerRegistry.onDialogDestroyed(entry);
+
+        RecordingListener listener = new RecordingListener();
+        assertTrue(PickerRegistry.rebindListener("range", listener));
+
+        assertEquals(2, listener.mCalls.size());
+        assertEquals("onRangeChanging 4000 4000", listener.mCalls.get(0));
+        assertEquals("onDateTimeRangeSet 4000 5000", listener.mCalls.get(1));
+    }
+
+    @Test
+    public void pendingResultIsDeliveredExactlyOnceWhileTheDialogLives()
+    {
+        PickerRegistry.Entry entry = PickerRegistry.register("alive", null, null, null);
+        PickerRegistry.deliverCancel(entry);
+
+        RecordingListener listener = new RecordingListener();
+        assertTrue(PickerRegistry.rebindListener("alive", listener));
+        assertTrue(PickerRegistry.rebindListener("alive", listener));
+
+        assertEquals(1, listener.mCalls.size());
+        assertEquals("onDateTimeCancel", listener.mCalls.get(0));
+
+        PickerRegistry.onDialogDestroyed(entry);
+
+        assertFalse(PickerRegistry.rebindListener("alive", listener));
+        assertEquals(1, listener.mCalls.size());
+    }
+
+    @Test
+    public void destroyedEntryWithoutResultIsRemoved()
+    {
+        PickerRegistry.Entry entry = PickerRegistry.register("destroyed", new RecordingListener(), null, null);
+        PickerRegistry.onDialogDestroyed(entry);
+
+        assertFalse(PickerRegistry.rebindListener("destroyed", new RecordingListener()));
+    }
+
+    /**
+     * Bind a listener that holds a stand-in for an activity, as an
+     * anonymous listener in an activity does, keeping no other reference
+     * to either.
+     *
+     * @return a weak reference to the activity
+     */
+    private static WeakReference<Object> bindActivityListener(String requestKey)
+    {
+        final Object activity = new byte[1024 * 1024];
+
+        PickerRegistry.rebindListener(requestKey, new SlideDateTimeListener() {
+
+            @Override
+            public void onDateTimeSet(Date date)
+            {
+                activity.hashCode();
+            }
+        });
+
+        return new WeakReference<Object>(activity);
+    }
+
+    private static boolean isCollected(WeakReference<?> reference)
+    {
+        for (int i = 0; i < MAX_GC_ATTEMPTS && reference.get() != null; i++)
+        {
+            System.gc();
+            System.runFinalization();
+
+            try
+            {
+                Thread.sleep(10);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        return reference.get() == null;
+    }
+
+    private static final class RecordingListener extends SlideDateTimeListener
+    {
+        final List<String> mCalls = new ArrayList<String>();
+
+        @Override
+        public void onDateTimeSet(Date date)
+        {
+            mCalls.add("onDateTimeSet " + date.getTime());
+        }
+
+        @Override
+        public void onSelectionChanging(long epochMillis)
+        {
+            mCalls.add("onSelectionChanging " + epochMillis);
+        }
+
+        @Override
+        public void onDateTimeRangeSet(Date start, Date end)
+        {
+            mCalls.add("onDateTimeRangeSet " + start.getTime() + " " + end.getTime());
+        }
+
+        @Override
+        public void onRangeChanging(long startMillis, long endMillis)
+        {
+            mCalls.add("onRangeChanging " + startMillis + " " + endMillis);
+        }
+
+        @Override
+        public void onDateTimeCancel()
+        {
+            mCalls.add("onDateTimeCancel");
+        }
+    }
+}
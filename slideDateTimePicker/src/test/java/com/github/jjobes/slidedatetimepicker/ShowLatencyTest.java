@@ -0,0 +1,284 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ActivityController;
+
+import android.support.v4.app.FragmentActivity;
+import android.support.v4.app.FragmentManager;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+/**
+ * <p>Times showing the dialog under Robolectric, from
+ * {@code SlideDateTimePicker.Builder(...).build().show()} through to the
+ * dialog's first complete layout, along with each step that
+ * {@link PickerTrace} marks: {@code onCreateView()} of the dialog, the
+ * building of each page and the construction of
+ * {@link CustomDatePicker} and {@link CustomTimePicker}.</p>
+ *
+ * <p>Uncached runs show the dialog from a new activity with the
+ * library's caches cleared. Prewarmed runs call
+ * {@code SlideDateTimePicker.prewarm()} on the activity first, as a
+ * client that prewarms would. Both run after a few discarded iterations
+ * that warm up the JIT, so neither is a cold start. The only cold show
+ * is the first one in the JVM, which is reported on its own.</p>
+ *
+ * <p>The p50 and p90 of every step are written to
+ * {@code build/reports/latency}. The p90 from {@code show()} to the first
+ * layout is only checked against its budget when {@code latency.enforce}
+ * is set, since wall-clock budgets fail on a loaded host. For
+ * example:</p>
+ *
+ * <pre>./gradlew :slideDateTimePicker:test -Platency.enforce -Platency.iterations=100 -Platency.uncachedBudgetMs=300</pre>
+ *
+ * <p>Robolectric does not render, so these times are only comparable
+ * between runs on the same machine. Use systrace on a device for
+ * absolute numbers.</p>
+ *
+ * @author jjobes
+ *
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ShowLatencyTest
+{
+    private static final int ITERATIONS = Integer.getInteger("latency.iterations", 30);
+    // Discarded runs that load the classes and warm up the JIT first
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("latency.warmupIterations", 5);
+    private static final long UNCACHED_BUDGET_MS = Long.getLong("latency.uncachedBudgetMs", 250);
+    private static final long PREWARMED_BUDGET_MS = Long.getLong("latency.prewarmedBudgetMs", 150);
+    private static final boolean IS_BUDGET_ENFORCED = Boolean.getBoolean("latency.enforce");
+    private static final File REPORT_DIR = new File(System.getProperty("latency.reportDir", "build/reports/latency"));
+
+    private static final String SHOW_TO_FIRST_LAYOUT = "show() to first layout";
+    private static final String FIRST_SHOW_IN_JVM = "first show() to first layout in the JVM";
+
+    // The time of the first show in the JVM, taken by whichever test runs
+    // first, before anything is loaded or compiled
+    private static long sFirstShowNanos = -1;
+
+    private static final int WINDOW_WIDTH = 480;
+    private static final int WINDOW_HEIGHT = 800;
+
+    private static final SlideDateTimeListener LISTENER = new SlideDateTimeListener() {
+
+        @Override
+        public void onDateTimeSet(Date date)
+        {
+
+        }
+    };
+
+    private Samples mSamples;
+
+    @Before
+    public void setUp()
+    {
+        mSamples = new Samples();
+    }
+
+    @After
+    public void tearDown()
+    {
+        PickerTrace.setRecorder(null);
+        DialogPrewarmer.discard();
+        ThemedInflaterCache.clear();
+    }
+
+    @Test
+    public void uncachedShowIsWithinBudget() throws FileNotFoundException
+    {
+        run(false);
+        mSamples.report("Uncached show", "uncached.txt");
+        mSamples.checkBudget(SHOW_TO_FIRST_LAYOUT, UNCACHED_BUDGET_MS);
+    }
+
+    @Test
+    public void prewarmedShowIsWithinBudget() throws FileNotFoundException
+    {
+        run(true);
+        mSamples.report("Prewarmed show", "prewarmed.txt");
+        mSamples.checkBudget(SHOW_TO_FIRST_LAYOUT, PREWARMED_BUDGET_MS);
+    }
+
+    private void run(boolean isPrewarmed)
+    {
+        for (int i = -WARMUP_ITERATIONS; i < ITERATIONS; i++)
+        {
+            DialogPrewarmer.discard();
+            ThemedInflaterCache.clear();
+
+            ActivityController<FragmentActivity> controller =
+                    Robolectric.buildActivity(FragmentActivity.class).create().start().resume().visible();
+            FragmentActivity activity = controller.get();
+
+            if (isPrewarmed)
+                SlideDateTimePicker.prewarm(activity, SlideDateTimePicker.HOLO_LIGHT);
+
+            // Only the show is timed, not prewarming
+            boolean isRecorded = i >= 0;
+            PickerTrace.setRecorder(isRecorded ? mSamples : null);
+
+            long startNanos = System.nanoTime();
+            SlideDateTimeDialogFragment dialogFragment = showAndLayout(activity);
+            long nanos = System.nanoTime() - startNanos;
+
+            if (isRecorded)
+                mSamples.onSection(SHOW_TO_FIRST_LAYOUT, nanos);
+
+            if (sFirstShowNanos < 0)
+            {
+                sFirstShowNanos = nanos;
+                mSamples.onSection(FIRST_SHOW_IN_JVM, nanos);
+            }
+
+            // The time page is built once the dialog is idle, which
+            // Robolectric does not get to, so swipe to it instead.
+            View decorView = dialogFragment.getDialog().getWindow().getDecorView();
+            CustomViewPager viewPager = (CustomViewPager) decorView.findViewById(R.id.viewPager);
+            viewPager.setCurrentItem(SlideDateTimeDialogFragment.TIME_PAGE, false);
+            layout(decorView);
+
+            PickerTrace.setRecorder(null);
+
+            dialogFragment.dismiss();
+            activity.getSupportFragmentManager().executePendingTransactions();
+            controller.pause().stop().destroy();
+        }
+    }
+
+    private static SlideDateTimeDialogFragment showAndLayout(FragmentActivity activity)
+    {
+        FragmentManager fm = activity.getSupportFragmentManager();
+
+        new SlideDateTimePicker.Builder(fm)
+            .setListener(LISTENER)
+            .setInitialDate(new Date(1420070400000L))
+            .setTheme(SlideDateTimePicker.HOLO_LIGHT)
+            .build()
+            .show();
+
+        fm.executePendingTransactions();
+
+        SlideDateTimeDialogFragment dialogFragment =
+                (SlideDateTimeDialogFragment) fm.findFragmentByTag(
+                        SlideDateTimeDialogFragment.getFragmentTag(SlideDateTimePicker.DEFAULT_REQUEST_KEY));
+
+        // The pages are only added, and the date page built, by the
+        // ViewPager's first measure.
+        layout(dialogFragment.getDialog().getWindow().getDecorView());
+
+        return dialogFragment;
+    }
+
+    private static void layout(View view)
+    {
+        view.measure(
+                MeasureSpec.makeMeasureSpec(WINDOW_WIDTH, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(WINDOW_HEIGHT, MeasureSpec.AT_MOST));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    /**
+     * The durations of each section, in the order the sections were first
+     * seen.
+     */
+    private static final class Samples implements PickerTrace.Recorder
+    {
+        private final Map<String, long[]> mNanos = new LinkedHashMap<String, long[]>();
+        private final Map<String, Integer> mCounts = new LinkedHashMap<String, Integer>();
+
+        @Override
+        public void onSection(String sectionName, long nanos)
+        {
+            long[] samples = mNanos.get(sectionName);
+            Integer count = mCounts.get(sectionName);
+            int n = count != null ? count : 0;
+
+            if (samples == null)
+                samples = new long[ITERATIONS];
+            else if (n == samples.length)
+                samples = Arrays.copyOf(samples, 2 * n);
+
+            samples[n] = nanos;
+            mNanos.put(sectionName, samples);
+            mCounts.put(sectionName, n + 1);
+        }
+
+        /**
+         * @param percentile  0-100
+         * @return the nearest-rank percentile of the section, in
+         *         milliseconds
+         */
+        double getPercentileMillis(String sectionName, int percentile)
+        {
+            int n = mCounts.get(sectionName);
+            long[] sorted = Arrays.copyOf(mNanos.get(sectionName), n);
+            Arrays.sort(sorted);
+
+            int rank = (int) Math.ceil(percentile / 100.0 * n);
+
+            return sorted[Math.max(rank, 1) - 1] / 1e6;
+        }
+
+        /**
+         * Write the p50 and p90 of each section to a file in the report
+         * directory.
+         */
+        void report(String title, String fileName) throws FileNotFoundException
+        {
+            REPORT_DIR.mkdirs();
+            PrintWriter writer = new PrintWriter(new File(REPORT_DIR, fileName));
+
+            try
+            {
+                writer.println(title + ", " + ITERATIONS + " iterations:");
+
+                for (String sectionName : mNanos.keySet())
+                {
+                    writer.println(String.format(Locale.US, "  %-45s p50 %8.3f ms  p90 %8.3f ms  (n=%d)",
+                            sectionName,
+                            getPercentileMillis(sectionName, 50),
+                            getPercentileMillis(sectionName, 90),
+                            mCounts.get(sectionName)));
+                }
+            }
+            finally
+            {
+                writer.close();
+            }
+        }
+
+        /**
+         * Fail if the p90 of the section is over its budget, but only if
+         * the budgets are enforced.
+         */
+        void checkBudget(String sectionName, long budgetMillis)
+        {
+            if (!IS_BUDGET_ENFORCED)
+                return;
+
+            double p90 = getPercentileMillis(sectionName, 90);
+
+            assertTrue(String.format(Locale.US, "p90 of %s is %.3f ms, over the budget of %d ms",
+                    sectionName, p90, budgetMillis), p90 <= budgetMillis);
+        }
+    }
+}
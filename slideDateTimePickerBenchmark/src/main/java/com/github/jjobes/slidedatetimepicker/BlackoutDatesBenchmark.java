@@ -0,0 +1,87 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Measures the {@link BlackoutDates} lookups the DatePicker makes each
+ * time the day changes, and building the index when the dialog is
+ * shown, for increasing numbers of blackout ranges.</p>
+ *
+ * <p>The ranges are up to a week long and spread over about 50 years,
+ * with a fixed seed so that every run measures the same index.</p>
+ *
+ * @author jjobes
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlackoutDatesBenchmark
+{
+    private static final int FIRST_DAY = DateTimeState.daysFromCivil(2000, 1, 1);
+    private static final int DAY_COUNT = 50 * 365;
+
+    @Param({"100", "10000"})
+    public int rangeCount;
+
+    private long[] mUnsortedIntervals;
+    private BlackoutDates mBlackoutDates;
+    private int mStep;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(42);
+        mUnsortedIntervals = new long[rangeCount];
+
+        for (int i = 0; i < rangeCount; i++)
+        {
+            int start = FIRST_DAY + random.nextInt(DAY_COUNT);
+            mUnsortedIntervals[i] = BlackoutDates.pack(start, start + random.nextInt(7));
+        }
+
+        mBlackoutDates = new BlackoutDates(BlackoutDates.normalize(mUnsortedIntervals.clone()));
+    }
+
+    @Benchmark
+    public boolean isBlackedOut()
+    {
+        return mBlackoutDates.isBlackedOut(FIRST_DAY + mStep++ % DAY_COUNT);
+    }
+
+    /**
+     * What the DatePicker does when the user scrolls forward by a day.
+     */
+    @Benchmark
+    public int findAvailableDay()
+    {
+        int epochDay = FIRST_DAY + mStep++ % DAY_COUNT;
+
+        return mBlackoutDates.findAvailableDay(epochDay, 1, FIRST_DAY, FIRST_DAY + DAY_COUNT);
+    }
+
+    /**
+     * Sorting and merging the ranges when the dialog is shown.
+     */
+    @Benchmark
+    public long[] normalize()
+    {
+        return BlackoutDates.normalize(mUnsortedIntervals.clone());
+    }
+}
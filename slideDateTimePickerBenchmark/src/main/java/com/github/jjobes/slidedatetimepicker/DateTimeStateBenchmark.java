@@ -0,0 +1,165 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Compares the {@code Calendar} updates that
+ * {@code SlideDateTimeDialogFragment} used to make for each date or time
+ * change with the equivalent {@link DateTimeState} updates.</p>
+ *
+ * <p>Each invocation moves to a different day or minute, the way a
+ * spinner does, so that neither side can cache its result.</p>
+ *
+ * @author jjobes
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DateTimeStateBenchmark
+{
+    private static final int YEAR = 2015;
+
+    private TimeZone mTimeZone;
+    private Calendar mCalendar;
+    private DateTimeState mState;
+    private DateTimeConstraints mConstraints;
+    private ZoneTransitions mZoneTransitions;
+    private int mStep;
+
+    @Setup
+    public void setup()
+    {
+        // A zone with DST, so that the offset lookups are not trivial
+        mTimeZone = TimeZone.getTimeZone("America/Los_Angeles");
+
+        long now = System.currentTimeMillis();
+
+        mCalendar = Calendar.getInstance(mTimeZone);
+        mCalendar.setTimeInMillis(now);
+
+        mState = new DateTimeState();
+        mState.setFromMillis(now, mTimeZone);
+
+        // Bounds in the middle of the benchmark's months, so that the
+        // clamping is exercised in both directions
+        Calendar bound = Calendar.getInstance(mTimeZone);
+        bound.clear();
+        bound.set(YEAR, Calendar.MARCH, 10, 14, 30);
+        Date minDate = bound.getTime();
+        bound.set(YEAR, Calendar.OCTOBER, 20, 9, 15);
+        Date maxDate = bound.getTime();
+
+        mConstraints = new DateTimeConstraints(minDate, maxDate, mTimeZone, 1, BlackoutDates.NONE);
+        mZoneTransitions = ZoneTransitions.forZone(mTimeZone, YEAR - 5, YEAR + 5);
+    }
+
+    /**
+     * onDateChanged() before DateTimeState: set the fields, then read the
+     * millis back for the date tab.
+     */
+    @Benchmark
+    public long calendarDateChanged()
+    {
+        int step = mStep++;
+        mCalendar.set(YEAR, step % 12, step % 28 + 1);
+
+        return mCalendar.getTimeInMillis();
+    }
+
+    @Benchmark
+    public long stateDateChanged()
+    {
+        int step = mStep++;
+        mState.setDate(YEAR, step % 12, step % 28 + 1);
+
+        return mState.getLocalMillis();
+    }
+
+    /**
+     * onDateChanged() with a minimum and maximum date: clamp the
+     * selection, then work out the time bounds for the time page.
+     */
+    @Benchmark
+    public int stateDateChangedConstrained()
+    {
+        int step = mStep++;
+        mState.setDate(YEAR, step % 12, step % 28 + 1);
+        mState.setTime(step % 24, step % 60);
+        mConstraints.clamp(mState);
+
+        return mConstraints.getMinMinuteOfDay(mState.getEpochDay())
+                + mConstraints.getMaxMinuteOfDay(mState.getEpochDay());
+    }
+
+    /**
+     * onTimeChanged() before DateTimeState.
+     */
+    @Benchmark
+    public long calendarTimeChanged()
+    {
+        int step = mStep++;
+        mCalendar.set(Calendar.HOUR_OF_DAY, step % 24);
+        mCalendar.set(Calendar.MINUTE, step % 60);
+
+        return mCalendar.getTimeInMillis();
+    }
+
+    @Benchmark
+    public int stateTimeChanged()
+    {
+        int step = mStep++;
+        mState.setTime(step % 24, step % 60);
+
+        return mState.getMinuteOfDay();
+    }
+
+    /**
+     * The {@code Date} handed to the listener when the user taps OK.
+     */
+    @Benchmark
+    public Date calendarResult()
+    {
+        mCalendar.set(Calendar.MINUTE, mStep++ % 60);
+
+        return mCalendar.getTime();
+    }
+
+    @Benchmark
+    public Date stateResult()
+    {
+        mState.setMinuteOfDay(mStep++ % DateTimeState.MINUTES_PER_DAY);
+
+        return new Date(mState.toMillis(mTimeZone));
+    }
+
+    /**
+     * The same, through the time zone's transition table, as when the
+     * client sets a time zone. The time tab does this on every change.
+     */
+    @Benchmark
+    public long stateResultWithTransitions()
+    {
+        mState.setMinuteOfDay(mStep++ % DateTimeState.MINUTES_PER_DAY);
+
+        return mState.toMillis(mZoneTransitions,
+                ZoneTransitions.DST_GAP_SHIFT_FORWARD, ZoneTransitions.DST_OVERLAP_EARLIER);
+    }
+}
@@ -0,0 +1,404 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Compares the round trip of the dialog's arguments through saved
+ * state: the separate bundle keys with {@code Serializable} dates and
+ * time zone that the dialog used to store, against the single
+ * {@link PickerConfig} written as primitives.</p>
+ *
+ * <p>{@code android.os.Parcel} is not available on the JVM, so both are
+ * written to {@link ParcelBuffer}, which lays out values the way
+ * {@code Parcel} does: 4-byte aligned, strings as UTF-16, and each bundle
+ * entry as its key, a type tag and its value. A {@code Serializable} is
+ * written as {@code Parcel.writeSerializable()} does, as its class name
+ * and the bytes of an {@code ObjectOutputStream}. The size of each
+ * encoding is printed once per trial.</p>
+ *
+ * @author jjobes
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PickerConfigBenchmark
+{
+    // Type tags as used by Parcel.writeValue()
+    private static final int VAL_STRING = 0;
+    private static final int VAL_INTEGER = 1;
+    private static final int VAL_LONG = 6;
+    private static final int VAL_BOOLEAN = 9;
+    private static final int VAL_PARCELABLE = 4;
+    private static final int VAL_SERIALIZABLE = 21;
+    private static final int VAL_LONGARRAY = 19;
+
+    private static final String CONFIG_CLASS_NAME = "com.github.jjobes.slidedatetimepicker.PickerConfig";
+
+    // SlideDateTimePicker.DEFAULT_REQUEST_KEY and HOLO_DARK, which cannot
+    // be compiled into this module
+    private static final String REQUEST_KEY = "SlideDateTimePicker";
+    private static final int THEME = 1;
+
+    private String mRequestKey;
+    private Date mInitialDate;
+    private Date mMinDate;
+    private Date mMaxDate;
+    private TimeZone mTimeZone;
+    private long[] mBlackoutIntervals;
+    private ParcelBuffer mBuffer;
+
+    @Setup
+    public void setup() throws IOException, ClassNotFoundException
+    {
+        mRequestKey = REQUEST_KEY;
+        mInitialDate = new Date(1420070400000L);
+        mMinDate = new Date(1417392000000L);
+        mMaxDate = new Date(1451606399000L);
+        mTimeZone = TimeZone.getTimeZone("America/New_York");
+        mBlackoutIntervals = new long[] {
+                BlackoutDates.pack(16436, 16437),
+                BlackoutDates.pack(16500, 16506)};
+        mBuffer = new ParcelBuffer();
+
+        bundleRoundTrip();
+        int bundleSize = mBuffer.size();
+        configRoundTrip();
+        int configSize = mBuffer.size();
+
+        System.out.println("Bundle with Serializable values: " + bundleSize + " bytes");
+        System.out.println("Bundle with PickerConfig: " + configSize + " bytes");
+    }
+
+    /**
+     * The arguments as the dialog used to store them.
+     */
+    @Benchmark
+    public long bundleRoundTrip() throws IOException, ClassNotFoundException
+    {
+        ParcelBuffer out = mBuffer;
+        out.reset();
+
+        out.writeInt(15);
+        writeStringEntry(out, "requestKey", mRequestKey);
+        writeSerializableEntry(out, "initialDate", mInitialDate);
+        writeSerializableEntry(out, "minDate", mMinDate);
+        writeSerializableEntry(out, "maxDate", mMaxDate);
+        writeBooleanEntry(out, "isClientSpecified24HourTime", true);
+        writeBooleanEntry(out, "is24HourTime", false);
+        writeIntEntry(out, "theme", THEME);
+        writeIntEntry(out, "indicatorColor", 0xFF33B5E5);
+        writeBooleanEntry(out, "trimOffscreenPage", false);
+        writeIntEntry(out, "minuteInterval", 15);
+        writeSerializableEntry(out, "timeZone", mTimeZone);
+        writeIntEntry(out, "dstGapPolicy", 0);
+        writeIntEntry(out, "dstOverlapPolicy", 0);
+        out.writeString("blackoutIntervals");
+        out.writeInt(VAL_LONGARRAY);
+        out.writeLongArray(mBlackoutIntervals);
+        writeLongEntry(out, "showNanos", 0);
+
+        out.rewind();
+
+        long checksum = 0;
+        int count = out.readInt();
+
+        for (int i = 0; i < count; i++)
+        {
+            checksum += out.readString().length();
+
+            switch (out.readInt())
+            {
+            case VAL_STRING:
+                checksum += out.readString().length();
+                break;
+            case VAL_INTEGER:
+            case VAL_BOOLEAN:
+                checksum += out.readInt();
+                break;
+            case VAL_LONG:
+                checksum += out.readLong();
+                break;
+            case VAL_LONGARRAY:
+                checksum += out.createLongArray().length;
+                break;
+            case VAL_SERIALIZABLE:
+                out.readString();
+                Object value = new ObjectInputStream(
+                        new ByteArrayInputStream(out.createByteArray())).readObject();
+                checksum += value.hashCode();
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+        }
+
+        return checksum;
+    }
+
+    /**
+     * The arguments as a single {@link PickerConfig}, following the
+     * order of {@code PickerConfig.writeToParcel()}.
+     */
+    @Benchmark
+    public long configRoundTrip()
+    {
+        ParcelBuffer out = mBuffer;
+        out.reset();
+
+        out.writeInt(1);
+        out.writeString("config");
+        out.writeInt(VAL_PARCELABLE);
+        out.writeString(CONFIG_CLASS_NAME);
+        out.writeString(mRequestKey);
+        out.writeLong(mInitialDate.getTime());
+        out.writeLong(mInitialDate.getTime());
+        out.writeLong(mMinDate.getTime());
+        out.writeLong(mMaxDate.getTime());
+        // Has a minimum and maximum date, client specified 12-hour time
+        out.writeInt(0x7);
+        out.writeInt(THEME);
+        out.writeInt(0xFF33B5E5);
+        out.writeInt(15);
+        out.writeString(mTimeZone.getID());
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeLongArray(mBlackoutIntervals);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeLong(0);
+
+        out.rewind();
+
+        long checksum = out.readInt();
+        checksum += out.readString().length();
+        checksum += out.readInt();
+        checksum += out.readString().length();
+        checksum += out.readString().length();
+        checksum += out.readLong();
+        checksum += out.readLong();
+        checksum += out.readLong();
+        checksum += out.readLong();
+        checksum += out.readInt();
+        checksum += out.readInt();
+        checksum += out.readInt();
+        checksum += out.readInt();
+        checksum += TimeZone.getTimeZone(out.readString()).getRawOffset();
+        checksum += out.readInt();
+        checksum += out.readInt();
+        checksum += out.createLongArray().length;
+        checksum += out.readInt();
+        checksum += out.readInt();
+        checksum += out.readLong();
+
+        return checksum;
+    }
+
+    private static void writeStringEntry(ParcelBuffer out, String key, String value)
+    {
+        out.writeString(key);
+        out.writeInt(VAL_STRING);
+        out.writeString(value);
+    }
+
+    private static void writeIntEntry(ParcelBuffer out, String key, int value)
+    {
+        out.writeString(key);
+        out.writeInt(VAL_INTEGER);
+        out.writeInt(value);
+    }
+
+    private static void writeLongEntry(ParcelBuffer out, String key, long value)
+    {
+        out.writeString(key);
+        out.writeInt(VAL_LONG);
+        out.writeLong(value);
+    }
+
+    private static void writeBooleanEntry(ParcelBuffer out, String key, boolean value)
+    {
+        out.writeString(key);
+        out.writeInt(VAL_BOOLEAN);
+        out.writeInt(value ? 1 : 0);
+    }
+
+    private static void writeSerializableEntry(ParcelBuffer out, String key, Serializable value)
+            throws IOException
+    {
+        out.writeString(key);
+        out.writeInt(VAL_SERIALIZABLE);
+        out.writeString(value.getClass().getName());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+        objectOut.writeObject(value);
+        objectOut.close();
+
+        out.writeByteArray(bytes.toByteArray());
+    }
+
+    /**
+     * A growable buffer with the layout of {@code android.os.Parcel}.
+     */
+    static final class ParcelBuffer
+    {
+        private byte[] mData = new byte[256];
+        private int mSize;
+        private int mPosition;
+
+        void reset()
+        {
+            mSize = 0;
+            mPosition = 0;
+        }
+
+        void rewind()
+        {
+            mPosition = 0;
+        }
+
+        int size()
+        {
+            return mSize;
+        }
+
+        private void ensureCapacity(int length)
+        {
+            if (mSize + length > mData.length)
+                mData = Arrays.copyOf(mData, Math.max(2 * mData.length, mSize + length));
+        }
+
+        void writeInt(int value)
+        {
+            ensureCapacity(4);
+            mData[mSize++] = (byte) value;
+            mData[mSize++] = (byte) (value >> 8);
+            mData[mSize++] = (byte) (value >> 16);
+            mData[mSize++] = (byte) (value >> 24);
+        }
+
+        void writeLong(long value)
+        {
+            writeInt((int) value);
+            writeInt((int) (value >> 32));
+        }
+
+        /**
+         * A length, then the UTF-16 chars and a null terminator, padded to
+         * 4 bytes.
+         */
+        void writeString(String value)
+        {
+            int length = value.length();
+            writeInt(length);
+            ensureCapacity(2 * length + 4);
+
+            for (int i = 0; i < length; i++)
+            {
+                char c = value.charAt(i);
+                mData[mSize++] = (byte) c;
+                mData[mSize++] = (byte) (c >> 8);
+            }
+
+            mData[mSize++] = 0;
+            mData[mSize++] = 0;
+            mSize = (mSize + 3) & ~3;
+        }
+
+        void writeLongArray(long[] values)
+        {
+            writeInt(values.length);
+
+            for (long value : values)
+            {
+                writeLong(value);
+            }
+        }
+
+        void writeByteArray(byte[] values)
+        {
+            writeInt(values.length);
+            ensureCapacity(values.length + 3);
+            System.arraycopy(values, 0, mData, mSize, values.length);
+            mSize = (mSize + values.length + 3) & ~3;
+        }
+
+        int readInt()
+        {
+            int value = (mData[mPosition] & 0xFF)
+                    | (mData[mPosition + 1] & 0xFF) << 8
+                    | (mData[mPosition + 2] & 0xFF) << 16
+                    | (mData[mPosition + 3] & 0xFF) << 24;
+            mPosition += 4;
+
+            return value;
+        }
+
+        long readLong()
+        {
+            long low = readInt() & 0xFFFFFFFFL;
+
+            return low | (long) readInt() << 32;
+        }
+
+        String readString()
+        {
+            int length = readInt();
+            char[] chars = new char[length];
+
+            for (int i = 0; i < length; i++)
+            {
+                chars[i] = (char) ((mData[mPosition] & 0xFF) | (mData[mPosition + 1] & 0xFF) << 8);
+                mPosition += 2;
+            }
+
+            mPosition = (mPosition + 2 + 3) & ~3;
+
+            return new String(chars);
+        }
+
+        long[] createLongArray()
+        {
+            long[] values = new long[readInt()];
+
+            for (int i = 0; i < values.length; i++)
+            {
+                values[i] = readLong();
+            }
+
+            return values;
+        }
+
+        byte[] createByteArray()
+        {
+            int length = readInt();
+            byte[] values = Arrays.copyOfRange(mData, mPosition, mPosition + length);
+            mPosition = (mPosition + length + 3) & ~3;
+
+            return values;
+        }
+    }
+}
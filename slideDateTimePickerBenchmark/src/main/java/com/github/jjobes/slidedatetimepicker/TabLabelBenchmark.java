@@ -0,0 +1,115 @@
+package com.github.jjobes.slidedatetimepicker;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Measures producing the text of the date and time tabs for a new
+ * selection.</p>
+ *
+ * <p>The time tab used to create a {@code SimpleDateFormat} and format a
+ * {@code Date} on every change; it now looks the label up in
+ * {@link TimeLabels}. The date tab is formatted on the device with
+ * {@code DateUtils.formatDateTime()}, which can't run off the device, so
+ * it is approximated here with a shared {@code SimpleDateFormat} over the
+ * millis each representation produces.</p>
+ *
+ * @author jjobes
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TabLabelBenchmark
+{
+    private static final String DATE_TAB_PATTERN = "EEE, MMM d, yyyy";
+
+    private Calendar mCalendar;
+    private DateTimeState mState;
+    private TimeLabels mTimeLabels;
+    private DateFormat mZonedDateFormat;
+    private DateFormat mUtcDateFormat;
+    private int mStep;
+
+    @Setup
+    public void setup()
+    {
+        TimeZone timeZone = TimeZone.getTimeZone("America/Los_Angeles");
+        long now = System.currentTimeMillis();
+
+        mCalendar = Calendar.getInstance(timeZone, Locale.US);
+        mCalendar.setTimeInMillis(now);
+
+        mState = new DateTimeState();
+        mState.setFromMillis(now, timeZone);
+
+        mTimeLabels = TimeLabels.forPattern(TimeLabels.PATTERN_12_HOUR, Locale.US);
+
+        mZonedDateFormat = new SimpleDateFormat(DATE_TAB_PATTERN, Locale.US);
+        mZonedDateFormat.setTimeZone(timeZone);
+
+        // DateTimeState holds local wall-clock millis, formatted in UTC
+        mUtcDateFormat = new SimpleDateFormat(DATE_TAB_PATTERN, Locale.US);
+        mUtcDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    /**
+     * updateTimeTab() before TimeLabels.
+     */
+    @Benchmark
+    public String timeTabSimpleDateFormat()
+    {
+        int step = mStep++;
+        mCalendar.set(Calendar.HOUR_OF_DAY, step % 24);
+        mCalendar.set(Calendar.MINUTE, step % 60);
+
+        SimpleDateFormat formatter = new SimpleDateFormat(TimeLabels.PATTERN_12_HOUR, Locale.US);
+        return formatter.format(mCalendar.getTime());
+    }
+
+    @Benchmark
+    public String timeTabTimeLabels()
+    {
+        int step = mStep++;
+        mState.setTime(step % 24, step % 60);
+
+        return mTimeLabels.get(mState.getMinuteOfDay());
+    }
+
+    @Benchmark
+    public String dateTabCalendar()
+    {
+        int step = mStep++;
+        mCalendar.set(Calendar.DAY_OF_MONTH, step % 28 + 1);
+
+        return mZonedDateFormat.format(new Date(mCalendar.getTimeInMillis()));
+    }
+
+    @Benchmark
+    public String dateTabState()
+    {
+        int step = mStep++;
+        mState.setDate(mState.getYear(), mState.getMonth(), step % 28 + 1);
+
+        return mUtcDateFormat.format(new Date(mState.getLocalMillis()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.jjobes.slidedatetimepicker.sample;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.jjobes.slidedatetimepicker.AvailabilityProvider;
+
+/**
+ * <p>An {@link AvailabilityProvider} backed by a map held in memory, with
+ * an optional delay on each request to stand in for a real backend.
+ * Useful to try out the picker's loading, prefetching and cancellation
+ * without a server.</p>
+ *
+ * <p>Days can be added and removed from any thread. A change only shows
+ * up in a dialog for the months it has not loaded yet.</p>
+ *
+ * @author jjobes
+ *
+ */
+public class InMemoryAvailabilityProvider implements AvailabilityProvider
+{
+    // Bit masks of unavailable days, keyed by year * 12 + month
+    private final Map<Integer, Integer> mUnavailableDays = new HashMap<Integer, Integer>();
+    private volatile long mLatencyMillis;
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+
+    public InMemoryAvailabilityProvider()
+    {
+
+    }
+
+    /**
+     * @param latencyMillis  how long each request blocks before it returns
+     */
+    public InMemoryAvailabilityProvider(long latencyMillis)
+    {
+        mLatencyMillis = latencyMillis;
+    }
+
+    public void setLatencyMillis(long latencyMillis)
+    {
+        mLatencyMillis = latencyMillis;
+    }
+
+    /**
+     * @param year
+     * @param month  0-11
+     * @param dayOfMonth  1-31
+     */
+    public synchronized void setUnavailable(int year, int month, int dayOfMonth)
+    {
+        int key = year * 12 + month;
+        Integer mask = mUnavailableDays.get(key);
+
+        mUnavailableDays.put(key, (mask != null ? mask : 0) | 1 << (dayOfMonth - 1));
+    }
+
+    /**
+     * @param year
+     * @param month  0-11
+     * @param dayOfMonth  1-31
+     */
+    public synchronized void setAvailable(int year, int month, int dayOfMonth)
+    {
+        int key = year * 12 + month;
+        Integer mask = mUnavailableDays.get(key);
+
+        if (mask != null)
+            mUnavailableDays.put(key, mask & ~(1 << (dayOfMonth - 1)));
+    }
+
+    /**
+     * @return the number of months requested so far, including requests
+     *         that were cancelled while they waited
+     */
+    public int getRequestCount()
+    {
+        return mRequestCount.get();
+    }
+
+    @Override
+    public int getUnavailableDays(int year, int month) throws InterruptedException
+    {
+        mRequestCount.incrementAndGet();
+
+        if (mLatencyMillis > 0)
+            Thread.sleep(mLatencyMillis);
+
+        synchronized (this)
+        {
+            Integer mask = mUnavailableDays.get(year * 12 + month);
+            return mask != null ? mask : 0;
+        }
+    }
+}
@@ -53,6 +53,15 @@ public class SampleActivity extends FragmentActivity
 
         mButton = (Button) findViewById(R.id.button);
 
+        // The dialog outlives this activity across a rotation, but drops
+        // the old activity's listener. Bind this one, which also delivers
+        // a result the user picked while the activity was being recreated.
+        SlideDateTimePicker.rebindListener(SlideDateTimePicker.DEFAULT_REQUEST_KEY, listener);
+
+        // Optional: inflate the dialog while this activity is idle so that
+        // the first tap on the button shows it without a delay.
+        SlideDateTimePicker.prewarmWhenIdle(this, SlideDateTimePicker.HOLO_LIGHT);
+
         mButton.setOnClickListener(new OnClickListener() {
 
             @Override
@@ -63,6 +72,7 @@ public class SampleActivity extends FragmentActivity
                     .setInitialDate(new Date())
                     //.setMinDate(minDate)
                     //.setMaxDate(maxDate)
+                    //.setAvailabilityProvider(new InMemoryAvailabilityProvider(500))
                     //.setIs24HourTime(true)
                     //.setTheme(SlideDateTimePicker.HOLO_DARK)
                     //.setIndicatorColor(Color.parseColor("#990000"))